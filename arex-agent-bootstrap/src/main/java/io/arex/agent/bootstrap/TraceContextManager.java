@@ -1,12 +1,19 @@
 package io.arex.agent.bootstrap;
 
 import io.arex.agent.bootstrap.ctx.ArexThreadLocal;
+import io.arex.agent.bootstrap.ctx.TraceContext;
 
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 
 public class TraceContextManager {
-    private static final ArexThreadLocal<String> TRACE_CONTEXT = new ArexThreadLocal<>();
+    private static final ArexThreadLocal<TraceContext> TRACE_CONTEXT = new ArexThreadLocal<>();
+    /**
+     * contexts of recording or replay created and not expired yet,
+     * updated once per request, not per task
+     */
+    private static final AtomicInteger ACTIVE_CONTEXTS = new AtomicInteger();
     private static IDGenerator idGenerator;
 
     public static void init(String ipAddress) {
@@ -21,22 +28,60 @@ public class TraceContextManager {
      * This method can only be called at the service entrance
      */
     public static String get(boolean createIfAbsent) {
-        String messageId = TRACE_CONTEXT.get();
-        if (messageId == null && createIfAbsent) {
-            messageId = idGenerator.next();
-            TRACE_CONTEXT.set(messageId);
+        TraceContext traceContext = current(createIfAbsent);
+        return traceContext == null ? null : traceContext.getTraceId();
+    }
+
+    /**
+     * @param createIfAbsent only at the service entrance
+     * @return the trace of current thread, holding the trace id and the context
+     */
+    public static TraceContext current(boolean createIfAbsent) {
+        TraceContext traceContext = TRACE_CONTEXT.get();
+        if (traceContext == null && createIfAbsent) {
+            traceContext = new TraceContext(idGenerator.next());
+            TRACE_CONTEXT.set(traceContext);
         }
-        return messageId;
+        return traceContext;
     }
 
+    /**
+     * The context of the trace is resolved again by id
+     */
     public static void set(String traceId) {
-        TRACE_CONTEXT.set(traceId);
+        TRACE_CONTEXT.set(traceId == null ? null : new TraceContext(traceId));
     }
 
+    /**
+     * The trace is completed, see {@link TraceContext#complete()}
+     */
     public static String remove() {
-        String messageId = TRACE_CONTEXT.get();
+        TraceContext traceContext = TRACE_CONTEXT.get();
         TRACE_CONTEXT.remove();
-        return messageId;
+        if (traceContext == null) {
+            return null;
+        }
+        traceContext.complete();
+        return traceContext.getTraceId();
+    }
+
+    public static void contextCreated() {
+        ACTIVE_CONTEXTS.incrementAndGet();
+    }
+
+    public static void contextCompleted() {
+        ACTIVE_CONTEXTS.decrementAndGet();
+    }
+
+    /**
+     * @return false if no recording or replay is active, the executor wrappers skip the thread local lookup
+     */
+    public static boolean hasActiveContext() {
+        return ACTIVE_CONTEXTS.get() > 0;
+    }
+
+    static int activeContexts() {
+        return ACTIVE_CONTEXTS.get();
     }
 
     public static String generateId() {
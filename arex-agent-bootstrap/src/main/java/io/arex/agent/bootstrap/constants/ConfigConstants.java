@@ -38,6 +38,43 @@ public class ConfigConstants {
     public static final String DECELERATE_CODE = "arex.decelerate.code";
     public static final String SERIALIZER_CONFIG = "arex.serializer.config";
     public static final String BUFFER_SIZE = "arex.buffer.size";
+    /**
+     * Serialize recorded mockers on background workers instead of the request thread.
+     */
+    public static final String ASYNC_SERIALIZE = "arex.serialize.async";
+    public static final String SERIALIZE_WORKER_SIZE = "arex.serialize.worker.size";
+    /**
+     * Merge recorded data into one batchSaveMockers request, flush when size/bytes is reached or linger time elapsed.
+     */
+    public static final String BATCH_SAVE_SIZE = "arex.batch.save.size";
+    public static final String BATCH_SAVE_BYTES = "arex.batch.save.bytes";
+    public static final String BATCH_SAVE_LINGER_MS = "arex.batch.save.linger.ms";
+    /**
+     * Compress recorded data with a zstd dictionary trained at runtime, storage service needs to support it.
+     */
+    public static final String ZSTD_DICTIONARY_ENABLE = "arex.zstd.dictionary.enable";
+    /**
+     * Adaptive record rate controller: aimd or pid, the fixed health check rule is used if not set.
+     */
+    public static final String HEALTH_CONTROLLER = "arex.health.controller";
+    /**
+     * Spool recorded data to local disk when storage service fails, replay it after storage service recovers.
+     */
+    public static final String SPOOL_ENABLE = "arex.spool.enable";
+    public static final String SPOOL_PATH = "arex.spool.path";
+    public static final String SPOOL_MAX_BYTES = "arex.spool.max.bytes";
+    /**
+     * Directory and max disk usage of the embedded storage, used if storage mode is local.
+     */
+    public static final String LOCAL_STORAGE_PATH = "arex.storage.local.path";
+    public static final String LOCAL_STORAGE_MAX_BYTES = "arex.storage.local.max.bytes";
+    /**
+     * Connection pool (for each of the save and query pools) and timeouts in milliseconds of the http client.
+     */
+    public static final String HTTP_CLIENT_MAX_TOTAL = "arex.http.client.max.total";
+    public static final String HTTP_CLIENT_MAX_PER_ROUTE = "arex.http.client.max.per.route";
+    public static final String HTTP_CLIENT_CONNECT_TIMEOUT = "arex.http.client.connect.timeout";
+    public static final String HTTP_CLIENT_SOCKET_TIMEOUT = "arex.http.client.socket.timeout";
     public static final String SIMPLE_LOGGER_SHOW_DATE_TIME = "shaded.org.slf4j.simpleLogger.showDateTime";
     public static final String SIMPLE_LOGGER_DATE_TIME_FORMAT = "shaded.org.slf4j.simpleLogger.dateTimeFormat";
     public static final String SIMPLE_LOGGER_FILE = "shaded.org.slf4j.simpleLogger.logFile";
@@ -2,10 +2,8 @@ package io.arex.agent.bootstrap.ctx;
 
 import io.arex.agent.bootstrap.internal.CallDepth;
 
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.WeakHashMap;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * transmittable-thread-local simple version
@@ -13,87 +11,139 @@ import java.util.WeakHashMap;
  * 2. Support more ThreadPool（agent）
  * 3. transmittable-thread-local not work in nio.reactor.Worker（@see AbstractMultiworkerIOReactor）
  * 4. Change from InheritableThreadLocal to ThreadLocal，avoid collect unexpected data
+ * <pre>
+ * Each instance is assigned a fixed slot, the values of a thread are kept in one array indexed by the slot,
+ * so capture/replay/restore are array copies and a thread without values is captured by one check.
+ * The slots are not reused, create the instances as constants.
+ * </pre>
  */
 public class ArexThreadLocal<T> extends ThreadLocal<T> {
+    private static final AtomicInteger NEXT_INDEX = new AtomicInteger();
+    private static final ThreadLocal<Values> VALUES = new ThreadLocal<>();
+
+    private final int index;
 
     public ArexThreadLocal() {
+        this.index = NEXT_INDEX.getAndIncrement();
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public final T get() {
-        T value = super.get();
-        if (null != value) addThisToHolder();
-        return value;
+        Values values = VALUES.get();
+        Object value = values == null ? null : values.get(index);
+        if (value != null) {
+            return (T) value;
+        }
+        T initialValue = initialValue();
+        if (initialValue != null) {
+            set(initialValue);
+        }
+        return initialValue;
     }
 
     @Override
     public final void set(T value) {
         if (null == value) {
             remove();
-        } else {
-            super.set(value);
-            addThisToHolder();
+            return;
         }
+        Values values = VALUES.get();
+        if (values == null) {
+            values = new Values();
+            VALUES.set(values);
+        }
+        values.set(index, value);
     }
 
     @Override
     public final void remove() {
-        removeThisFromHolder();
-        super.remove();
+        Values values = VALUES.get();
+        if (values != null) {
+            values.set(index, null);
+        }
     }
 
+    /**
+     * same as {@link #remove()}, kept for compatibility
+     */
     public void superRemove() {
-        super.remove();
+        remove();
     }
 
     public T copyValue() {
-        T value = get();
+        return copy(get());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T copy(T value) {
         if (value instanceof CallDepth) {
             return (T) ((CallDepth) value).copy();
         }
         return value;
     }
 
-    private static final ThreadLocal<WeakHashMap<ArexThreadLocal<Object>, ?>> holder =
-            new InheritableThreadLocal<WeakHashMap<ArexThreadLocal<Object>, ?>>() {
-                @Override
-                protected WeakHashMap<ArexThreadLocal<Object>, ?> initialValue() {
-                    return new WeakHashMap<>();
-                }
+    /**
+     * values of a thread, only accessed by the owner thread
+     */
+    static final class Values {
+        private static final Object[] EMPTY = new Object[0];
 
-                @Override
-                protected WeakHashMap<ArexThreadLocal<Object>, ?> childValue(WeakHashMap<ArexThreadLocal<Object>, ?> parentValue) {
-                    return new WeakHashMap<ArexThreadLocal<Object>, Object>(parentValue);
-                }
-            };
+        private Object[] slots = EMPTY;
+        private int size;
 
-    @SuppressWarnings("unchecked")
-    private void addThisToHolder() {
-        if (!holder.get().containsKey(this)) {
-            holder.get().put((ArexThreadLocal<Object>) this, null);
+        Object get(int index) {
+            return index < slots.length ? slots[index] : null;
+        }
+
+        void set(int index, Object value) {
+            if (index >= slots.length) {
+                if (value == null) {
+                    return;
+                }
+                slots = Arrays.copyOf(slots, Math.max(index + 1, NEXT_INDEX.get()));
+            }
+            Object previous = slots[index];
+            slots[index] = value;
+            if (previous == null && value != null) {
+                size++;
+            } else if (previous != null && value == null) {
+                size--;
+            }
         }
-    }
 
-    private void removeThisFromHolder() {
-        holder.get().remove(this);
+        /**
+         * replace all the values by the snapshot, the snapshot array is not shared
+         */
+        void replace(Object[] snapshot) {
+            int count = 0;
+            for (Object value : snapshot) {
+                if (value != null) {
+                    count++;
+                }
+            }
+            slots = count == 0 ? EMPTY : snapshot.clone();
+            size = count;
+        }
     }
 
     public static class Transmitter {
+        private static final Snapshot EMPTY_SNAPSHOT = new Snapshot(Values.EMPTY);
 
+        /**
+         * @return null if the thread has no value to transmit
+         */
         public static Object capture() {
-            HashMap<ArexThreadLocal<Object>, Object> values = captureValues();
-            return values == null ? null : new Snapshot(values);
-        }
-
-        private static HashMap<ArexThreadLocal<Object>, Object> captureValues() {
-            HashMap<ArexThreadLocal<Object>, Object> values = null;
-            for (ArexThreadLocal<Object> threadLocal : holder.get().keySet()) {
-                if (null == values) {
-                    values = new HashMap<>();
-                }
-                values.put(threadLocal, threadLocal.copyValue());
+            Values values = VALUES.get();
+            if (values == null || values.size == 0) {
+                return null;
             }
-            return values;
+            Object[] slots = values.slots;
+            Object[] captured = new Object[slots.length];
+            for (int i = 0; i < slots.length; i++) {
+                captured[i] = copy(slots[i]);
+            }
+            return new Snapshot(captured);
         }
 
         public static Object replay(Object captured) {
@@ -101,22 +151,13 @@ public class ArexThreadLocal<T> extends ThreadLocal<T> {
                 return null;
             }
 
-            final Snapshot capturedSnapshot = (Snapshot) captured;
-            return new Snapshot(replayValues(capturedSnapshot.values));
-        }
-
-        private static HashMap<ArexThreadLocal<Object>, Object> replayValues(HashMap<ArexThreadLocal<Object>, Object> captured) {
-            HashMap<ArexThreadLocal<Object>, Object> backup = new HashMap<>();
-            for (final Iterator<ArexThreadLocal<Object>> iterator = holder.get().keySet().iterator(); iterator.hasNext(); ) {
-                ArexThreadLocal<Object> threadLocal = iterator.next();
-                backup.put(threadLocal, threadLocal.get());
-                if (!captured.containsKey(threadLocal)) {
-                    iterator.remove();
-                    threadLocal.superRemove();
-                }
+            Values values = VALUES.get();
+            if (values == null) {
+                values = new Values();
+                VALUES.set(values);
             }
-
-            setTtlTo(captured);
+            Snapshot backup = values.size == 0 ? EMPTY_SNAPSHOT : new Snapshot(values.slots.clone());
+            values.replace(((Snapshot) captured).values);
             return backup;
         }
 
@@ -125,32 +166,18 @@ public class ArexThreadLocal<T> extends ThreadLocal<T> {
                 return;
             }
 
-            final Snapshot backupSnapshot = (Snapshot) backup;
-            restoreValues(backupSnapshot.values);
-        }
-
-        private static void restoreValues(HashMap<ArexThreadLocal<Object>, Object> backup) {
-            for (final Iterator<ArexThreadLocal<Object>> iterator = holder.get().keySet().iterator(); iterator.hasNext(); ) {
-                ArexThreadLocal<Object> threadLocal = iterator.next();
-                if (!backup.containsKey(threadLocal)) {
-                    iterator.remove();
-                    threadLocal.superRemove();
-                }
-            }
-            setTtlTo(backup);
-        }
-
-        public static void setTtlTo(HashMap<ArexThreadLocal<Object>, Object> ttlValues) {
-            for (Map.Entry<ArexThreadLocal<Object>, Object> entry : ttlValues.entrySet()) {
-                ArexThreadLocal<Object> threadLocal = entry.getKey();
-                threadLocal.set(entry.getValue());
+            Values values = VALUES.get();
+            if (values == null) {
+                values = new Values();
+                VALUES.set(values);
             }
+            values.replace(((Snapshot) backup).values);
         }
 
         public static class Snapshot {
-            final HashMap<ArexThreadLocal<Object>, Object> values;
+            final Object[] values;
 
-            public Snapshot(HashMap<ArexThreadLocal<Object>, Object> values) {
+            public Snapshot(Object[] values) {
                 this.values = values;
             }
         }
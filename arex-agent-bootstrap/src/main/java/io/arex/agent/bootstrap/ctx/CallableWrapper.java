@@ -44,7 +44,8 @@ public class CallableWrapper<V> implements Callable<V> {
     }
 
     public static <T> Callable<T> get(Callable<T> callable) {
-        if (null == callable || TraceContextManager.get() == null) {
+        // no recording or replay is active, not even look up the trace of the thread
+        if (null == callable || !TraceContextManager.hasActiveContext() || TraceContextManager.get() == null) {
             return callable;
         }
 
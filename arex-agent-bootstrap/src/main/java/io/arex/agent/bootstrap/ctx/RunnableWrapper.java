@@ -47,7 +47,8 @@ public class RunnableWrapper implements Runnable {
     }
 
     public static Runnable get(Runnable runnable) {
-        if (null == runnable  || TraceContextManager.get() == null) {
+        // no recording or replay is active, not even look up the trace of the thread
+        if (null == runnable || !TraceContextManager.hasActiveContext() || TraceContextManager.get() == null) {
             return runnable;
         }
 
@@ -0,0 +1,44 @@
+package io.arex.agent.bootstrap.ctx;
+
+/**
+ * Value of the trace thread local, carries the trace id and the context object of the runtime,
+ * the same instance is transmitted to async threads by {@link TraceTransmitter},
+ * so the context is resolved once by id and then read from the field.
+ */
+public final class TraceContext {
+    private final String traceId;
+    private volatile Object context;
+    private volatile boolean completed;
+
+    public TraceContext(String traceId) {
+        this.traceId = traceId;
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    /**
+     * @return null if the trace is completed
+     */
+    public Object getContext() {
+        return completed ? null : context;
+    }
+
+    public void setContext(Object context) {
+        this.context = context;
+    }
+
+    /**
+     * The trace is removed at the end of the request, the async threads sharing it
+     * no longer read the context from the field and resolve it by id again.
+     */
+    public void complete() {
+        this.completed = true;
+        this.context = null;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+}
@@ -1,59 +1,91 @@
 package io.arex.agent.bootstrap.internal;
 
+import java.util.Arrays;
+
+/**
+ * Radix tree (path compressed trie) of immutable nodes.
+ * <pre>
+ * 1. each node keeps the chars of its edge, so a common prefix like "io.arex.inst." is one node
+ * 2. the children are sorted by the first char of their edges and found by binary search
+ * 3. put copies the nodes on the path and publishes the new root, get reads a snapshot without any lock
+ * </pre>
+ * Written rarely (advice classes collected at startup) and read on class loading of many threads.
+ */
 public class TrieCache<T> implements Cache<String, T> {
 
-    private TrieNode<T> root;
+    private volatile TrieNode<T> root;
 
     public TrieCache() {
-        root = new TrieNode();
+        root = TrieNode.empty();
     }
 
+    /**
+     * @param init the common prefix of the keys
+     */
     public TrieCache(String init) {
-        root = new TrieNode(1);
-
-        TrieNode<T> current = root;
-        TrieNode<T> node;
-        for (int i = 0; i < init.length(); i++) {
-            node = current.getChild(init.charAt(i));
-            if (node == null) {
-                node = new TrieNode<>(1);
-                current.addChild(init.charAt(i), node);
-            }
-            current = node;
+        TrieNode<T> node = TrieNode.empty();
+        if (init != null && init.length() > 0) {
+            node = node.withChild(new TrieNode<>(init, null, TrieNode.EMPTY_CHARS, TrieNode.EMPTY_NODES));
         }
+        root = node;
     }
 
-    public void put(String key, T value) {
+    public synchronized void put(String key, T value) {
         if (key == null || key.length() == 0) {
             return;
         }
+        root = put(root, key, 0, value);
+    }
 
-        TrieNode<T> current = root;
-        TrieNode<T> node;
-        for (int i = 0; i < key.length(); i++) {
-            node = current.getChild(key.charAt(i));
-            if (node == null) {
-                node = new TrieNode<>();
-                current.addChild(key.charAt(i), node);
-            }
-            current = node;
+    /**
+     * @param node whose edge matches the key before pos
+     * @return the copy of the node with the value put
+     */
+    private static <T> TrieNode<T> put(TrieNode<T> node, String key, int pos, T value) {
+        if (pos == key.length()) {
+            return node.withValue(value);
+        }
+        TrieNode<T> child = node.getChild(key.charAt(pos));
+        if (child == null) {
+            return node.withChild(new TrieNode<>(key.substring(pos), value, TrieNode.EMPTY_CHARS, TrieNode.EMPTY_NODES));
+        }
 
-            if (key.length() - 1 == i) {
-                current.setValue(value);
-            }
+        String edge = child.edge;
+        int common = 1;
+        int max = Math.min(edge.length(), key.length() - pos);
+        while (common < max && edge.charAt(common) == key.charAt(pos + common)) {
+            common++;
         }
+        if (common == edge.length()) {
+            return node.withChild(put(child, key, pos + common, value));
+        }
+
+        // split the edge at the first different char
+        TrieNode<T> suffix = new TrieNode<>(edge.substring(common), child.value, child.chars, child.children);
+        TrieNode<T> split = new TrieNode<T>(edge.substring(0, common), null, TrieNode.EMPTY_CHARS, TrieNode.EMPTY_NODES)
+                .withChild(suffix);
+        return node.withChild(put(split, key, pos + common, value));
     }
 
     public T get(String key) {
+        if (key == null) {
+            return null;
+        }
         TrieNode<T> current = root;
-        for (int i = 0; i < key.length(); i++) {
-            current = current.getChild(key.charAt(i));
+        int pos = 0;
+        int length = key.length();
+        while (pos < length) {
+            current = current.getChild(key.charAt(pos));
             if (current == null) {
                 return null;
             }
+            String edge = current.edge;
+            if (!key.startsWith(edge, pos)) {
+                return null;
+            }
+            pos += edge.length();
         }
-
-        return current != null ? current.getValue() : null;
+        return current.value;
     }
 
     @Override
@@ -61,109 +93,67 @@ public class TrieCache<T> implements Cache<String, T> {
         return get(key) != null;
     }
 
-    public void clear() {
-        root = new TrieNode<T>();
+    public synchronized void clear() {
+        root = TrieNode.empty();
     }
 
-    static class TrieNode<T> {
-        private final Char2TrieNodeMap childes;
-        private T value;
-
-        public void setValue(T value) {
+    static final class TrieNode<T> {
+        static final char[] EMPTY_CHARS = new char[0];
+        static final TrieNode[] EMPTY_NODES = new TrieNode[0];
+        private static final TrieNode EMPTY = new TrieNode<>("", null, EMPTY_CHARS, EMPTY_NODES);
+
+        private final String edge;
+        private final T value;
+        /**
+         * first char of the children's edges, ascending
+         */
+        private final char[] chars;
+        private final TrieNode<T>[] children;
+
+        TrieNode(String edge, T value, char[] chars, TrieNode<T>[] children) {
+            this.edge = edge;
             this.value = value;
+            this.chars = chars;
+            this.children = children;
         }
 
-        public T getValue() {
-            return value;
-        }
-
-        public TrieNode() {
-            this.childes = new Char2TrieNodeMap();
+        @SuppressWarnings("unchecked")
+        static <T> TrieNode<T> empty() {
+            return EMPTY;
         }
 
-        public TrieNode(int capacity) {
-            this.childes = new Char2TrieNodeMap(capacity);
+        TrieNode<T> getChild(char letter) {
+            int index = Arrays.binarySearch(chars, letter);
+            return index < 0 ? null : children[index];
         }
 
-        public void addChild(char letter, TrieNode child) {
-            childes.put(letter, child);
+        TrieNode<T> withValue(T value) {
+            return new TrieNode<>(edge, value, chars, children);
         }
 
-        public TrieNode<T> getChild(char letter) {
-            if (childes == null || childes.size() == 0) {
-                return null;
+        /**
+         * @return the copy of the node with the child added, or replaced if its first char exists
+         */
+        TrieNode<T> withChild(TrieNode<T> child) {
+            char letter = child.edge.charAt(0);
+            int index = Arrays.binarySearch(chars, letter);
+            if (index >= 0) {
+                TrieNode<T>[] newChildren = children.clone();
+                newChildren[index] = child;
+                return new TrieNode<>(edge, value, chars, newChildren);
             }
 
-            return childes.get(letter);
-        }
-    }
-
-    static class Char2TrieNodeMap {
-
-        static final char[] EMPTY_CHAR_ARRAY = new char[0];
-        static final TrieNode[] EMPTY_OBJECT_ARRAY = new TrieNode[0];
-
-        private transient char[] key;
-        private transient TrieNode[] value;
-        private int size;
-
-        public Char2TrieNodeMap() {
-            this(EMPTY_CHAR_ARRAY, EMPTY_OBJECT_ARRAY);
-        }
-
-        public Char2TrieNodeMap(int capacity) {
-            this.key = new char[capacity];
-            this.value = new TrieNode[capacity];
-            this.size = 0;
-        }
-
-        public Char2TrieNodeMap(char[] key, TrieNode[] value) {
-            this.key = key;
-            this.value = value;
-            if (key.length != value.length) {
-                throw new IllegalArgumentException("Keys and values have different lengths");
-            }
-            this.size = key.length;
-        }
-
-        public int size() {
-            return size;
-        }
-
-        public TrieNode get(char letter) {
-            char[] key = this.key;
-            int i = this.size;
-
-            do {
-                if (i-- == 0) {
-                    return null;
-                }
-            } while(key[i] != letter);
-
-            return this.value[i];
-        }
-
-        // not thread safe
-        public void put(char letter, TrieNode value) {
-            ensureCapacity();
-
-            this.key[this.size] = letter;
-            this.value[this.size] = value;
-            ++this.size;
-        }
-
-        private void ensureCapacity() {
-            if (this.size == this.key.length) {
-                char[] newKey = new char[this.size == 0 ? 7 : this.size * 2];
-                TrieNode[] newValue = new TrieNode[this.size == 0 ? 7 : this.size * 2];
-
-                for(int i = this.size; i-- != 0; newValue[i] = this.value[i]) {
-                    newKey[i] = this.key[i];
-                }
-
-                this.key = newKey;
-                this.value = newValue;
-            }
+            index = -index - 1;
+            char[] newChars = new char[chars.length + 1];
+            @SuppressWarnings("unchecked")
+            TrieNode<T>[] newChildren = new TrieNode[children.length + 1];
+            System.arraycopy(chars, 0, newChars, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            newChars[index] = letter;
+            newChildren[index] = child;
+            System.arraycopy(chars, index, newChars, index + 1, chars.length - index);
+            System.arraycopy(children, index, newChildren, index + 1, children.length - index);
+            return new TrieNode<>(edge, value, newChars, newChildren);
         }
     }
 }
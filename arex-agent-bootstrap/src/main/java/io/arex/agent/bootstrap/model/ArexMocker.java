@@ -23,11 +23,11 @@ public class ArexMocker implements Mocker {
     /**
      * replay match need
      */
-    private transient int fuzzyMatchKey;
+    private transient long fuzzyMatchKey;
     /**
      * replay match need
      */
-    private transient int accurateMatchKey;
+    private transient long accurateMatchKey;
 
     /**
      * The default constructor is for deserialization
@@ -160,22 +160,22 @@ public class ArexMocker implements Mocker {
     }
 
     @Override
-    public int getAccurateMatchKey() {
+    public long getAccurateMatchKey() {
         return this.accurateMatchKey;
     }
 
     @Override
-    public void setAccurateMatchKey(int accurateMatchKey) {
+    public void setAccurateMatchKey(long accurateMatchKey) {
         this.accurateMatchKey = accurateMatchKey;
     }
 
     @Override
-    public int getFuzzyMatchKey() {
+    public long getFuzzyMatchKey() {
         return this.fuzzyMatchKey;
     }
 
     @Override
-    public void setFuzzyMatchKey(int fuzzyMatchKey) {
+    public void setFuzzyMatchKey(long fuzzyMatchKey) {
         this.fuzzyMatchKey = fuzzyMatchKey;
     }
 }
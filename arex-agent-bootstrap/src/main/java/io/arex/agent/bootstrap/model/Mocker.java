@@ -125,11 +125,11 @@ public interface Mocker extends Serializable {
 
     void setMatched(boolean matched);
 
-    int getAccurateMatchKey();
+    long getAccurateMatchKey();
 
-    void setAccurateMatchKey(int accurateMatchKey);
+    void setAccurateMatchKey(long accurateMatchKey);
 
-    int getFuzzyMatchKey();
+    long getFuzzyMatchKey();
 
-    void setFuzzyMatchKey(int fuzzyMatchKey);
+    void setFuzzyMatchKey(long fuzzyMatchKey);
 }
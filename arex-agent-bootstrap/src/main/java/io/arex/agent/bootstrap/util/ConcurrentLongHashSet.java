@@ -0,0 +1,124 @@
+package io.arex.agent.bootstrap.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Open addressing set of primitive long, no boxing and no entry objects.
+ * <pre>
+ * Writes are synchronized, reads are lock free on the current table:
+ * a read racing with a write may miss the key being added.
+ * </pre>
+ */
+public class ConcurrentLongHashSet {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final long EMPTY = 0L;
+
+    private volatile AtomicLongArray table;
+    private volatile boolean containsEmptyKey;
+    private volatile int size;
+
+    public ConcurrentLongHashSet() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ConcurrentLongHashSet(int initialCapacity) {
+        this.table = new AtomicLongArray(tableSizeFor(initialCapacity));
+    }
+
+    public boolean contains(long key) {
+        if (key == EMPTY) {
+            return containsEmptyKey;
+        }
+        AtomicLongArray tab = table;
+        int mask = tab.length() - 1;
+        for (int i = index(key, mask); ; i = (i + 1) & mask) {
+            long current = tab.get(i);
+            if (current == key) {
+                return true;
+            }
+            if (current == EMPTY) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @return true if the key is not contained before
+     */
+    public synchronized boolean add(long key) {
+        if (key == EMPTY) {
+            if (containsEmptyKey) {
+                return false;
+            }
+            containsEmptyKey = true;
+            size++;
+            return true;
+        }
+        AtomicLongArray tab = table;
+        // keep the load factor under 0.5, so there is always an empty slot to end the probing
+        if ((size + 1) << 1 > tab.length()) {
+            tab = resize(tab);
+        }
+        if (!insert(tab, key)) {
+            return false;
+        }
+        size++;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public synchronized void clear() {
+        if (size == 0) {
+            return;
+        }
+        table = new AtomicLongArray(DEFAULT_CAPACITY);
+        containsEmptyKey = false;
+        size = 0;
+    }
+
+    private AtomicLongArray resize(AtomicLongArray tab) {
+        AtomicLongArray newTable = new AtomicLongArray(tab.length() << 1);
+        for (int i = 0; i < tab.length(); i++) {
+            long key = tab.get(i);
+            if (key != EMPTY) {
+                insert(newTable, key);
+            }
+        }
+        table = newTable;
+        return newTable;
+    }
+
+    private static boolean insert(AtomicLongArray tab, long key) {
+        int mask = tab.length() - 1;
+        for (int i = index(key, mask); ; i = (i + 1) & mask) {
+            long current = tab.get(i);
+            if (current == key) {
+                return false;
+            }
+            if (current == EMPTY) {
+                tab.set(i, key);
+                return true;
+            }
+        }
+    }
+
+    private static int index(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private static int tableSizeFor(int capacity) {
+        int n = DEFAULT_CAPACITY;
+        while (n < capacity << 1 && n < (1 << 30)) {
+            n <<= 1;
+        }
+        return n;
+    }
+}
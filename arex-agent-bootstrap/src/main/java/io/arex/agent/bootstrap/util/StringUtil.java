@@ -290,6 +290,75 @@ public class StringUtil {
         return Base64.getEncoder().encodeToString(str.getBytes(StandardCharsets.UTF_8)).hashCode();
     }
 
+    private static final long HASH_C1 = 0x87c37b91114253d5L;
+    private static final long HASH_C2 = 0x4cf5ad432745937fL;
+
+    /**
+     * 64 bit hash (MurmurHash3 mixing over chars, 4 chars per block) of the parts joined by '_',
+     * the same as hashing String.format("%s_%s", ...) but without building the joined string,
+     * a null part is hashed as "null"
+     */
+    public static long hash64(CharSequence... parts) {
+        long hash = 0;
+        long block = 0;
+        int blockChars = 0;
+        long length = 0;
+        for (int i = 0; i < parts.length; i++) {
+            CharSequence part = parts[i] == null ? "null" : parts[i];
+            int partLength = part.length();
+            for (int j = i == 0 ? 0 : -1; j < partLength; j++) {
+                char c = j < 0 ? '_' : part.charAt(j);
+                block |= (long) c << (blockChars << 4);
+                if (++blockChars == 4) {
+                    hash ^= mixHashBlock(block);
+                    hash = Long.rotateLeft(hash, 27) * 5 + 0x52dce729;
+                    block = 0;
+                    blockChars = 0;
+                }
+            }
+            length += partLength + (i == 0 ? 0 : 1);
+        }
+        if (blockChars > 0) {
+            hash ^= mixHashBlock(block);
+        }
+        hash ^= length;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static long mixHashBlock(long block) {
+        block *= HASH_C1;
+        block = Long.rotateLeft(block, 31);
+        return block * HASH_C2;
+    }
+
+    /**
+     * @return the UTF-8 encoded length of the chars in [start, end), without encoding them
+     */
+    public static long utf8Length(CharSequence chars, int start, int end) {
+        long length = end - start;
+        for (int i = start; i < end; i++) {
+            char c = chars.charAt(i);
+            if (c < 0x80) {
+                continue;
+            }
+            if (c < 0x800) {
+                length += 1;
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(chars.charAt(i + 1))) {
+                // 4 bytes for the pair of 2 chars
+                length += 2;
+                i++;
+            } else {
+                length += 2;
+            }
+        }
+        return length;
+    }
+
     public static String replace(final String text, final String searchString, final String replacement) {
         return replace(text, searchString, replacement, -1);
     }
@@ -2,6 +2,7 @@ package io.arex.agent.bootstrap;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import io.arex.agent.bootstrap.ctx.TraceContext;
 import org.junit.jupiter.api.Test;
 
 /**
@@ -20,10 +21,32 @@ class TraceContextManagerTest {
         String get3 = TraceContextManager.get();
         assertEquals(get2 + "-1", get3);
 
+        TraceContextManager.current(false).setContext("context");
+        assertEquals(get3, TraceContextManager.current(false).getTraceId());
+        assertEquals("context", TraceContextManager.current(false).getContext());
+
+        TraceContext shared = TraceContextManager.current(false);
         String get4 = TraceContextManager.remove();
         assertEquals(get3, get4);
+        // the trace shared with async threads is completed
+        assertTrue(shared.isCompleted());
+        assertNull(shared.getContext());
+        shared.setContext("context");
+        assertNull(shared.getContext());
+        assertNull(TraceContextManager.current(false));
+        assertNull(TraceContextManager.remove());
 
         String get5 = TraceContextManager.generateId();
         assertTrue(get5.startsWith("AREX-test-ip-"));
     }
+
+    @Test
+    void activeContexts() {
+        int active = TraceContextManager.activeContexts();
+        TraceContextManager.contextCreated();
+        assertTrue(TraceContextManager.hasActiveContext());
+        assertEquals(active + 1, TraceContextManager.activeContexts());
+        TraceContextManager.contextCompleted();
+        assertEquals(active, TraceContextManager.activeContexts());
+    }
 }
@@ -1,47 +1,113 @@
 package io.arex.agent.bootstrap.ctx;
 
+import io.arex.agent.bootstrap.internal.CallDepth;
 import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
-import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class ArexThreadLocalTest {
 
     static ArexThreadLocal<String> target = null;
-
-    static HashMap<ArexThreadLocal<Object>, Object> snapshotMap = null;
+    static ArexThreadLocal<CallDepth> callDepth = null;
 
     @BeforeAll
     static void setUp() {
         target = new ArexThreadLocal<>();
-        snapshotMap = new HashMap<>();
+        callDepth = new ArexThreadLocal<>();
     }
 
     @AfterAll
     static void tearDown() {
         target = null;
-        snapshotMap = null;
+        callDepth = null;
+    }
+
+    @AfterEach
+    void clear() {
+        target.remove();
+        callDepth.remove();
+    }
+
+    @Test
+    void getAndSet() {
+        assertNull(target.get());
+        target.set("mock");
+        assertEquals("mock", target.get());
+        target.set(null);
+        assertNull(target.get());
+        target.set("mock");
+        target.superRemove();
+        assertNull(target.get());
+
+        ArexThreadLocal<String> withInitial = new ArexThreadLocal<String>() {
+            @Override
+            protected String initialValue() {
+                return "initial";
+            }
+        };
+        assertEquals("initial", withInitial.get());
+        withInitial.remove();
     }
 
     @Test
     void capture() {
+        assertNull(ArexThreadLocal.Transmitter.capture());
         target.set("mock");
         assertNotNull(ArexThreadLocal.Transmitter.capture());
+        target.remove();
+        assertNull(ArexThreadLocal.Transmitter.capture());
     }
 
     @Test
     void replay() {
         assertNull(ArexThreadLocal.Transmitter.replay(null));
-        assertDoesNotThrow(() -> ArexThreadLocal.Transmitter.replay(new ArexThreadLocal.Transmitter.Snapshot(snapshotMap)));
+        assertDoesNotThrow(() -> ArexThreadLocal.Transmitter.replay(new ArexThreadLocal.Transmitter.Snapshot(new Object[0])));
     }
 
     @Test
     void restore() {
         assertDoesNotThrow(() -> ArexThreadLocal.Transmitter.restore(null));
         assertDoesNotThrow(() -> ArexThreadLocal.Transmitter.restore(
-                new ArexThreadLocal.Transmitter.Snapshot(snapshotMap)));
+                new ArexThreadLocal.Transmitter.Snapshot(new Object[0])));
+    }
+
+    @Test
+    void transmit() {
+        CallDepth depth = CallDepth.simple();
+        depth.getAndIncrement();
+        target.set("mock");
+        callDepth.set(depth);
+        Object captured = ArexThreadLocal.Transmitter.capture();
+        // the call depth is copied when captured
+        target.set("changed");
+        depth.getAndIncrement();
+
+        String[] replayed = CompletableFuture.supplyAsync(() -> {
+            target.set("worker");
+            Object backup = ArexThreadLocal.Transmitter.replay(captured);
+            String[] values = {target.get(), String.valueOf(callDepth.get().getAndIncrement()), null};
+            ArexThreadLocal.Transmitter.restore(backup);
+            values[2] = target.get();
+            target.remove();
+            return values;
+        }).join();
+        assertEquals("mock", replayed[0]);
+        assertEquals("1", replayed[1]);
+        assertEquals("worker", replayed[2]);
+        assertEquals(2, depth.getAndIncrement());
+
+        // restore an empty backup removes the replayed values
+        target.remove();
+        callDepth.remove();
+        Object backup = ArexThreadLocal.Transmitter.replay(captured);
+        assertEquals("mock", target.get());
+        ArexThreadLocal.Transmitter.restore(backup);
+        assertNull(target.get());
+        assertNull(callDepth.get());
     }
 }
@@ -15,6 +15,11 @@ class CallableWrapperTest {
     void get() throws Exception {
         assertNull(CallableWrapper.get(null));
         TraceContextManager.set("mock");
+        // no active context, not wrapped
+        Callable<String> callable = () -> "mock";
+        assertSame(callable, CallableWrapper.get(callable));
+        TraceContextManager.contextCreated();
+        assertInstanceOf(CallableWrapper.class, CallableWrapper.get(callable));
         Callable<Object> objectCallable = CallableWrapper.get(new CallableTest<>());
         assertNotNull(objectCallable);
         Callable<String> stringCallable = CallableWrapper.get(() -> "mock");
@@ -23,6 +28,9 @@ class CallableWrapperTest {
         assertTrue(stringCallable.hashCode() > 0);
         assertFalse(stringCallable.equals(objectCallable));
         TraceContextManager.remove();
+        // no trace of the thread
+        assertSame(callable, CallableWrapper.get(callable));
+        TraceContextManager.contextCompleted();
     }
 
     static class CallableTest<T> extends ForkJoinTask<T> implements Callable<T> {
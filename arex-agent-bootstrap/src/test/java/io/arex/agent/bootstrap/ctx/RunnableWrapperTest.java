@@ -17,6 +17,10 @@ class RunnableWrapperTest {
     void get() throws Exception {
         assertNull(RunnableWrapper.get(null));
         TraceContextManager.set("mock");
+        // no active context, not wrapped
+        Runnable noContextRunnable = () -> {};
+        assertSame(noContextRunnable, RunnableWrapper.get(noContextRunnable));
+        TraceContextManager.contextCreated();
         Runnable objectRunnable = RunnableWrapper.get(new RunnableTest<>());
         assertNotNull(objectRunnable);
         Runnable emptyRunnable = RunnableWrapper.get(() -> {});
@@ -47,6 +51,7 @@ class RunnableWrapperTest {
         assertFalse(runnable.get(run) instanceof RunnableWrapper);
 
         TraceContextManager.remove();
+        TraceContextManager.contextCompleted();
     }
 
     static class RunnableTest<T> extends ForkJoinTask<T> implements RunnableFuture<T> {
@@ -0,0 +1,84 @@
+package io.arex.agent.bootstrap.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+
+class TrieCacheTest {
+
+    @Test
+    void putAndGet() {
+        Cache<String, String> cache = Cache.trieCacheWithInit("io.arex.inst.");
+        assertNull(cache.get("io.arex.inst."));
+        assertNull(cache.get(null));
+
+        cache.put("io.arex.inst.executors.ThreadInstrumentation", "thread");
+        cache.put("io.arex.inst.executors.ThreadPoolInstrumentation", "pool");
+        cache.put("io.arex.inst.executors", "executors");
+        cache.put("io.arex.inst.dynamic.DynamicClassInstrumentation", "dynamic");
+        cache.put(null, "null");
+        cache.put("", "empty");
+
+        assertEquals("thread", cache.get("io.arex.inst.executors.ThreadInstrumentation"));
+        assertEquals("pool", cache.get("io.arex.inst.executors.ThreadPoolInstrumentation"));
+        assertEquals("executors", cache.get("io.arex.inst.executors"));
+        assertEquals("dynamic", cache.get("io.arex.inst.dynamic.DynamicClassInstrumentation"));
+        assertTrue(cache.contains("io.arex.inst.executors"));
+        // prefixes and extensions of the keys
+        assertNull(cache.get("io.arex.inst.executors.Thread"));
+        assertNull(cache.get("io.arex.inst.executors.ThreadInstrumentation$StartAdvice"));
+        assertNull(cache.get("io.arex.inst.exec"));
+        assertNull(cache.get("io.arex.agent"));
+        assertNull(cache.get(""));
+        assertFalse(cache.contains("io.arex.inst."));
+
+        cache.put("io.arex.inst.executors", "replaced");
+        assertEquals("replaced", cache.get("io.arex.inst.executors"));
+        assertEquals("thread", cache.get("io.arex.inst.executors.ThreadInstrumentation"));
+
+        cache.clear();
+        assertNull(cache.get("io.arex.inst.executors"));
+    }
+
+    @Test
+    void splitEdge() {
+        Cache<String, Integer> cache = Cache.trieCache();
+        cache.put("abcdef", 1);
+        cache.put("abcxyz", 2);
+        cache.put("ab", 3);
+        cache.put("b", 4);
+        cache.put("a", 5);
+        assertEquals(1, cache.get("abcdef"));
+        assertEquals(2, cache.get("abcxyz"));
+        assertEquals(3, cache.get("ab"));
+        assertEquals(4, cache.get("b"));
+        assertEquals(5, cache.get("a"));
+        assertNull(cache.get("abc"));
+        assertNull(cache.get("abd"));
+        assertNull(cache.get("c"));
+    }
+
+    @Test
+    void readWhileWriting() {
+        Cache<String, Integer> cache = Cache.trieCacheWithInit("io.arex.inst.");
+        cache.put("io.arex.inst.Fixed", -1);
+        AtomicBoolean done = new AtomicBoolean();
+        CompletableFuture<Boolean> reader = CompletableFuture.supplyAsync(() -> {
+            boolean found = true;
+            while (!done.get()) {
+                found &= cache.get("io.arex.inst.Fixed") == -1;
+            }
+            return found;
+        });
+        for (int i = 0; i < 10000; i++) {
+            cache.put("io.arex.inst.Class" + i, i);
+        }
+        done.set(true);
+        assertTrue(reader.join());
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(i, cache.get("io.arex.inst.Class" + i));
+        }
+    }
+}
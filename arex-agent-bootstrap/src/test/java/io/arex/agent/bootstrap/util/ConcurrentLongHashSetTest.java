@@ -0,0 +1,58 @@
+package io.arex.agent.bootstrap.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class ConcurrentLongHashSetTest {
+
+    @Test
+    void addAndContains() {
+        ConcurrentLongHashSet set = new ConcurrentLongHashSet(2);
+        assertTrue(set.isEmpty());
+        assertTrue(set.add(0));
+        assertFalse(set.add(0));
+        assertTrue(set.contains(0));
+        for (long i = 1; i <= 1000; i++) {
+            assertTrue(set.add(i * 31));
+        }
+        assertFalse(set.add(31));
+        assertEquals(1001, set.size());
+        for (long i = 1; i <= 1000; i++) {
+            assertTrue(set.contains(i * 31));
+            assertFalse(set.contains(i * 31 + 1));
+        }
+        assertTrue(set.add(Long.MIN_VALUE));
+        assertTrue(set.contains(Long.MIN_VALUE));
+
+        set.clear();
+        assertEquals(0, set.size());
+        assertFalse(set.contains(0));
+        assertFalse(set.contains(31));
+    }
+
+    @Test
+    void concurrentAdd() throws InterruptedException {
+        ConcurrentLongHashSet set = new ConcurrentLongHashSet();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        CountDownLatch latch = new CountDownLatch(4);
+        for (int t = 0; t < 4; t++) {
+            executor.execute(() -> {
+                for (long i = 0; i < 2000; i++) {
+                    set.add(i);
+                }
+                latch.countDown();
+            });
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertEquals(2000, set.size());
+        for (long i = 0; i < 2000; i++) {
+            assertTrue(set.contains(i));
+        }
+    }
+}
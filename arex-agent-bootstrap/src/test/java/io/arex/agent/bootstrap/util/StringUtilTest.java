@@ -179,6 +179,23 @@ class StringUtilTest {
         assertEquals(2737406, actualResult);
     }
 
+    @Test
+    void hash64() {
+        assertEquals(StringUtil.hash64("operation_request"), StringUtil.hash64("operation", "request"));
+        assertEquals(StringUtil.hash64("operation_null"), StringUtil.hash64("operation", null));
+        assertEquals(StringUtil.hash64("a_bcdefgh_"), StringUtil.hash64("a", "bcdefgh", ""));
+        assertNotEquals(StringUtil.hash64("operation", "request"), StringUtil.hash64("operation", "request2"));
+        assertNotEquals(StringUtil.hash64("ab", "c"), StringUtil.hash64("a", "bc"));
+        assertNotEquals(StringUtil.hash64(""), StringUtil.hash64("", ""));
+    }
+
+    @Test
+    void utf8Length() {
+        assertEquals(4, StringUtil.utf8Length("\ud83d\ude00", 0, 2));
+        assertEquals(3, StringUtil.utf8Length("a\u00e9", 0, 2));
+        assertEquals(3, StringUtil.utf8Length("a\u6570b", 1, 2));
+    }
+
     @Test
     void containsIgnoreCase() {
         boolean actualResult = StringUtil.containsIgnoreCase(null, null);
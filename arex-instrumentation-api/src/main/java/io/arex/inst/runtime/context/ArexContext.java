@@ -1,15 +1,18 @@
 package io.arex.inst.runtime.context;
 
+import io.arex.agent.bootstrap.TraceContextManager;
 import io.arex.agent.bootstrap.model.Mocker;
-import io.arex.agent.bootstrap.util.ConcurrentHashSet;
+import io.arex.agent.bootstrap.util.ConcurrentLongHashSet;
 import io.arex.agent.bootstrap.util.StringUtil;
 import io.arex.inst.runtime.model.ArexConstants;
+import io.arex.inst.runtime.util.MergeRecordBuffer;
 import io.arex.inst.runtime.util.MergeRecordUtil;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class ArexContext {
 
@@ -17,19 +20,28 @@ public class ArexContext {
     private final String replayId;
     private final long createTime;
     private volatile int sequence;
-    private Set<Integer> methodSignatureHashList;
-    private Map<Integer, List<Mocker>> cachedReplayResultMap;
+    private ConcurrentLongHashSet methodSignatureHashes;
+    private Map<Long, List<Mocker>> cachedReplayResultMap;
+    private volatile int matchKeyHashVersion = ArexConstants.MATCH_KEY_HASH_VERSION;
+    private volatile CompletableFuture<String> replayMockersFuture;
+    private final ReentrantLock replayMockersLock = new ReentrantLock();
     private Map<String, Set<String>> excludeMockTemplate;
 
     private Map<String, Object> attachments = null;
 
-    private LinkedBlockingQueue<Mocker> mergeRecordQueue;
+    private volatile MergeRecordBuffer mergeRecordBuffer;
 
+    private volatile boolean expired;
+    private volatile int state;
     private boolean isRedirectRequest;
     private boolean isInvalidCase;
 
     private static final AtomicIntegerFieldUpdater<ArexContext> SEQUENCE_UPDATER =
             AtomicIntegerFieldUpdater.newUpdater(ArexContext.class, "sequence");
+    private static final AtomicIntegerFieldUpdater<ArexContext> STATE_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(ArexContext.class, "state");
+    private static final int STATE_ACTIVE = 1;
+    private static final int STATE_COMPLETED = 2;
 
     public static ArexContext of(String caseId) {
         return of(caseId, null);
@@ -69,19 +81,51 @@ public class ArexContext {
         return SEQUENCE_UPDATER.getAndIncrement(this);
     }
 
-    public Set<Integer> getMethodSignatureHashList() {
-        if (methodSignatureHashList == null) {
-            methodSignatureHashList = new ConcurrentHashSet<>();
+    /**
+     * hashes of the recorded dynamic class calls, to filter out the duplicate calls
+     */
+    public ConcurrentLongHashSet getMethodSignatureHashes() {
+        if (methodSignatureHashes == null) {
+            methodSignatureHashes = new ConcurrentLongHashSet();
         }
-        return methodSignatureHashList;
+        return methodSignatureHashes;
     }
 
-    public Map<Integer, List<Mocker>> getCachedReplayResultMap() {
+    public Map<Long, List<Mocker>> getCachedReplayResultMap() {
         if (cachedReplayResultMap == null) {
             cachedReplayResultMap = new ConcurrentHashMap<>();
         }
         return cachedReplayResultMap;
     }
+
+    /**
+     * hash version of the match keys in cachedReplayResultMap, legacy if the case has merge records stored by legacy version
+     */
+    public int getMatchKeyHashVersion() {
+        return matchKeyHashVersion;
+    }
+
+    public void setMatchKeyHashVersion(int matchKeyHashVersion) {
+        this.matchKeyHashVersion = matchKeyHashVersion;
+    }
+
+    /**
+     * @return the pending query of all mockers under the case, null if it has been loaded into cachedReplayResultMap
+     */
+    public CompletableFuture<String> getReplayMockersFuture() {
+        return replayMockersFuture;
+    }
+
+    public void setReplayMockersFuture(CompletableFuture<String> replayMockersFuture) {
+        this.replayMockersFuture = replayMockersFuture;
+    }
+
+    /**
+     * guards loading the replay mockers, not a monitor which pins the carrier of a virtual thread
+     */
+    public ReentrantLock getReplayMockersLock() {
+        return replayMockersLock;
+    }
     public Map<String, Set<String>> getExcludeMockTemplate() {
         return excludeMockTemplate;
     }
@@ -154,30 +198,69 @@ public class ArexContext {
         return isRedirectRequest;
     }
 
-    public LinkedBlockingQueue<Mocker> getMergeRecordQueue() {
-        if (mergeRecordQueue == null) {
-            mergeRecordQueue = new LinkedBlockingQueue<>(2048);
+    public MergeRecordBuffer getMergeRecordBuffer() {
+        MergeRecordBuffer buffer = mergeRecordBuffer;
+        if (buffer == null) {
+            synchronized (this) {
+                buffer = mergeRecordBuffer;
+                if (buffer == null) {
+                    buffer = MergeRecordUtil.createBuffer();
+                    mergeRecordBuffer = buffer;
+                }
+            }
         }
-        return mergeRecordQueue;
+        return buffer;
+    }
+
+    /**
+     * counted as an active context, see {@link TraceContextManager#hasActiveContext()}
+     */
+    void activate() {
+        if (STATE_UPDATER.compareAndSet(this, 0, STATE_ACTIVE)) {
+            TraceContextManager.contextCreated();
+        }
+    }
+
+    /**
+     * expired from the context map, not at the end of the request:
+     * async threads may still submit tasks carrying the trace until then
+     */
+    void complete() {
+        if (STATE_UPDATER.compareAndSet(this, STATE_ACTIVE, STATE_COMPLETED)) {
+            TraceContextManager.contextCompleted();
+        }
+    }
+
+    /**
+     * removed from the context map after the ttl, no longer returned from the traces caching it
+     */
+    void expire() {
+        this.expired = true;
+        clear();
+    }
+
+    boolean isExpired() {
+        return expired;
     }
 
     public void clear() {
-        if (methodSignatureHashList != null) {
-            methodSignatureHashList.clear();
+        if (methodSignatureHashes != null) {
+            methodSignatureHashes.clear();
         }
         if (cachedReplayResultMap != null) {
             cachedReplayResultMap.clear();
         }
+        replayMockersFuture = null;
         if (excludeMockTemplate != null) {
             excludeMockTemplate.clear();
         }
         if (attachments != null) {
             attachments.clear();
         }
-        if (mergeRecordQueue != null) {
+        if (mergeRecordBuffer != null) {
             // async thread merge record (main entry has ended)
             MergeRecordUtil.recordRemain(this);
-            mergeRecordQueue.clear();
+            mergeRecordBuffer.clear();
         }
     }
 }
@@ -1,6 +1,7 @@
 package io.arex.inst.runtime.context;
 
 import io.arex.agent.bootstrap.TraceContextManager;
+import io.arex.agent.bootstrap.ctx.TraceContext;
 import io.arex.agent.bootstrap.util.CollectionUtil;
 import io.arex.agent.bootstrap.util.StringUtil;
 import io.arex.inst.runtime.listener.ContextListener;
@@ -24,19 +25,35 @@ public class ContextManager {
      * agent will call this method
      * record scene: recordId is map key
      * replay scene: replayId is map key
+     * <br/>
+     * the context is carried by the trace thread local, the map is only looked up
+     * when the trace is set by id (e.g. redirect), then the context is cached on the trace.
+     * After the request is completed (trace removed) the async threads look up the map again,
+     * so the context is kept until expired as before
      */
     public static ArexContext currentContext(boolean createIfAbsent, String recordId) {
-        String traceId = TraceContextManager.get(createIfAbsent);
-        if (StringUtil.isEmpty(traceId)) {
+        TraceContext traceContext = TraceContextManager.current(createIfAbsent);
+        if (traceContext == null || StringUtil.isEmpty(traceContext.getTraceId())) {
             return null;
         }
+        String traceId = traceContext.getTraceId();
         if (createIfAbsent) {
             final ArexContext arexContext = createContext(recordId, traceId);
+            arexContext.activate();
             publish(arexContext, true);
             RECORD_MAP.put(traceId, arexContext);
+            traceContext.setContext(arexContext);
             return arexContext;
         }
-        return RECORD_MAP.get(traceId);
+        Object context = traceContext.getContext();
+        if (context instanceof ArexContext && !((ArexContext) context).isExpired()) {
+            return (ArexContext) context;
+        }
+        ArexContext arexContext = RECORD_MAP.get(traceId);
+        if (arexContext != null && !traceContext.isCompleted()) {
+            traceContext.setContext(arexContext);
+        }
+        return arexContext;
     }
 
     /**
@@ -69,6 +86,10 @@ public class ContextManager {
         return currentContext() != null;
     }
 
+    /**
+     * the context stays active (counted) until expired, the async threads still holding the trace
+     * keep wrapping their tasks after the request is completed
+     */
     public static void remove() {
         String caseId = TraceContextManager.remove();
         if (StringUtil.isEmpty(caseId)) {
@@ -2,20 +2,41 @@ package io.arex.inst.runtime.context;
 
 import io.arex.agent.bootstrap.cache.TimeCache;
 
-import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
 
 /**
  * Only used for ContextManager <br/>
  * delayed clean context in asynchronous situations,
  * the purpose is to ensure that the context can also be obtained during recording in async threads
+ * <pre>
+ * Contexts are also appended to an expiry queue in insertion order, so the cleanup on remove only polls
+ * the expired head of the queue instead of scanning the whole map, a context expires a minute after insertion.
+ * </pre>
  */
 final class LatencyContextHashMap extends ConcurrentHashMap<String, ArexContext> {
-    private static final long RECORD_TTL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    static final long RECORD_TTL_MILLIS = TimeUnit.MINUTES.toMillis(1);
     private static final ReentrantLock CLEANUP_LOCK = new ReentrantLock();
 
+    private final transient Queue<ExpiryEntry> expiryQueue = new ConcurrentLinkedQueue<>();
+    private final transient LongSupplier clock;
+
+    LatencyContextHashMap() {
+        this(System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock current time in milliseconds
+     */
+    LatencyContextHashMap(LongSupplier clock) {
+        this.clock = clock;
+    }
+
     @Override
     public ArexContext get(Object key) {
         if (key == null) {
@@ -24,26 +45,55 @@ final class LatencyContextHashMap extends ConcurrentHashMap<String, ArexContext>
         return super.get(key);
     }
 
+    @Override
+    public ArexContext put(String key, ArexContext value) {
+        expiryQueue.offer(new ExpiryEntry(key, value, clock.getAsLong()));
+        return super.put(key, value);
+    }
+
+    @Override
+    public ArexContext putIfAbsent(String key, ArexContext value) {
+        ArexContext previous = super.putIfAbsent(key, value);
+        if (previous == null) {
+            expiryQueue.offer(new ExpiryEntry(key, value, clock.getAsLong()));
+        }
+        return previous;
+    }
+
+    @Override
+    public ArexContext computeIfAbsent(String key, Function<? super String, ? extends ArexContext> mappingFunction) {
+        return super.computeIfAbsent(key, k -> {
+            ArexContext context = mappingFunction.apply(k);
+            if (context != null) {
+                expiryQueue.offer(new ExpiryEntry(k, context, clock.getAsLong()));
+            }
+            return context;
+        });
+    }
+
     @Override
     public ArexContext remove(Object key) {
         if (key == null) {
             return null;
         }
-        overdueCleanUp();
+        overdueCleanUp(clock.getAsLong());
 
         return super.get(key);
     }
 
-    private void overdueCleanUp() {
+    void overdueCleanUp(long now) {
         if (CLEANUP_LOCK.tryLock()) {
             try {
-                long now = System.currentTimeMillis();
-                for (Map.Entry<String, ArexContext> entry: super.entrySet()) {
-                    if (isExpired(entry.getValue().getCreateTime(), now)) {
+                ExpiryEntry entry;
+                while ((entry = expiryQueue.peek()) != null && isExpired(entry.insertTime, now)) {
+                    expiryQueue.poll();
+                    // not removed at the end of the request, or replaced by a new context of the key
+                    entry.context.complete();
+                    // the key may be put again with a new context, only the expired one is removed
+                    if (super.remove(entry.key, entry.context)) {
                         // clear context attachments
-                        entry.getValue().clear();
-                        TimeCache.remove(entry.getKey());
-                        super.remove(entry.getKey());
+                        entry.context.expire();
+                        TimeCache.remove(entry.key);
                     }
                 }
             } finally {
@@ -52,7 +102,19 @@ final class LatencyContextHashMap extends ConcurrentHashMap<String, ArexContext>
         }
     }
 
-    private static boolean isExpired(long createTime, long now) {
-        return now - createTime >= RECORD_TTL_MILLIS;
+    private static boolean isExpired(long insertTime, long now) {
+        return now - insertTime >= RECORD_TTL_MILLIS;
+    }
+
+    private static final class ExpiryEntry {
+        private final String key;
+        private final ArexContext context;
+        private final long insertTime;
+
+        private ExpiryEntry(String key, ArexContext context, long insertTime) {
+            this.key = key;
+            this.context = context;
+            this.insertTime = insertTime;
+        }
     }
 }
@@ -6,9 +6,6 @@ import io.arex.agent.bootstrap.util.StringUtil;
 import io.arex.inst.runtime.model.MatchStrategyEnum;
 import io.arex.inst.runtime.util.MockUtils;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public class AccurateMatchStrategy extends AbstractMatchStrategy{
     /**
      * search by operationName + requestBody
@@ -21,22 +18,22 @@ public class AccurateMatchStrategy extends AbstractMatchStrategy{
     void process(MatchStrategyContext context) {
         context.setMatchStrategy(MatchStrategyEnum.ACCURATE);
         Mocker requestMocker = context.getRequestMocker();
-        List<Mocker> replayList = context.getReplayList();
+        ReplayMockerList replayList = ReplayMockerList.of(context.getReplayList());
         // operationName + requestBody
-        int methodSignatureHash = MockUtils.methodSignatureHash(requestMocker);
-        List<Mocker> matchedList = new ArrayList<>(replayList.size());
-        for (Mocker mocker : replayList) {
-            if (methodSignatureHash == mocker.getAccurateMatchKey()) {
-                matchedList.add(mocker);
-            }
+        long methodSignatureHash = requestMocker.getAccurateMatchKey();
+        if (methodSignatureHash == 0) {
+            methodSignatureHash = MockUtils.methodSignatureHash(requestMocker);
         }
-        int matchedCount = matchedList.size();
+        ReplayMockerList matchedList = replayList.accurateMatch(methodSignatureHash);
+        int matchedCount = matchedList == null ? 0 : matchedList.size();
 
         if (matchedCount == 1) {
-            Mocker matchMocker = matchedList.get(0);
+            Mocker matchMocker = matchedList.claimNext();
             // unmatched or matched but find-last mode (eg: dynamicClass)
-            if (!matchMocker.isMatched() || MockStrategyEnum.FIND_LAST == context.getMockStrategy()) {
-                matchMocker.setMatched(true);
+            if (matchMocker == null && MockStrategyEnum.FIND_LAST == context.getMockStrategy()) {
+                matchMocker = matchedList.last();
+            }
+            if (matchMocker != null) {
                 context.setMatchMocker(matchMocker);
             } else {
                 context.setReason("accurate match one result, but it has already been matched before, so cannot be used");
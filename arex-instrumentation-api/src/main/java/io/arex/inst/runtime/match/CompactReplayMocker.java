@@ -0,0 +1,340 @@
+package io.arex.inst.runtime.match;
+
+import io.arex.agent.bootstrap.model.MockCategoryType;
+import io.arex.agent.bootstrap.model.Mocker;
+import io.arex.agent.bootstrap.util.MapUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Replay mocker kept in a compact form until it is matched.
+ * <pre>
+ * 1. the bodies are kept as UTF-8 bytes, deflated if larger than {@link #COMPRESS_THRESHOLD}
+ * 2. the targets are created on first access, then the bytes are released
+ * 3. the repeated strings (operation name, types, ids) are shared by the mockers of a case
+ * </pre>
+ * The match strategies only read the keys, the matched flag and {@link #requestBody()},
+ * so most mockers of a case are never expanded.
+ */
+public class CompactReplayMocker implements Mocker {
+    private static final long serialVersionUID = 1L;
+    static final int COMPRESS_THRESHOLD = 1024;
+
+    private final MockCategoryType categoryType;
+    private final String operationName;
+    private final String appId;
+    private final String recordVersion;
+    private String id;
+    private String recordId;
+    private String replayId;
+    private long creationTime;
+    private long fuzzyMatchKey;
+    private long accurateMatchKey;
+    private volatile boolean matched;
+
+    /**
+     * released after the target is published, read before the target (see {@link #requestBody()})
+     */
+    private transient volatile CompactTarget compactRequest;
+    private transient volatile CompactTarget compactResponse;
+    private transient volatile Target targetRequest;
+    private transient volatile Target targetResponse;
+
+    private CompactReplayMocker(Mocker mocker, Map<String, String> stringPool) {
+        this.categoryType = mocker.getCategoryType();
+        this.operationName = share(stringPool, mocker.getOperationName());
+        this.appId = share(stringPool, mocker.getAppId());
+        this.recordVersion = share(stringPool, mocker.getRecordVersion());
+        this.id = mocker.getId();
+        this.recordId = share(stringPool, mocker.getRecordId());
+        this.replayId = share(stringPool, mocker.getReplayId());
+        this.creationTime = mocker.getCreationTime();
+        this.fuzzyMatchKey = mocker.getFuzzyMatchKey();
+        this.accurateMatchKey = mocker.getAccurateMatchKey();
+        this.matched = mocker.isMatched();
+        this.compactRequest = CompactTarget.of(mocker.getTargetRequest(), stringPool);
+        this.compactResponse = CompactTarget.of(mocker.getTargetResponse(), stringPool);
+    }
+
+    /**
+     * @param stringPool shared by the mockers of a case to dedupe the repeated strings
+     */
+    public static CompactReplayMocker of(Mocker mocker, Map<String, String> stringPool) {
+        if (mocker instanceof CompactReplayMocker) {
+            return (CompactReplayMocker) mocker;
+        }
+        return new CompactReplayMocker(mocker, stringPool);
+    }
+
+    /**
+     * request body without expanding the request target
+     */
+    public String requestBody() {
+        // the compact form is released only after the target is published, so the target is read after it
+        CompactTarget compact = compactRequest;
+        if (compact != null) {
+            return compact.body();
+        }
+        Target target = targetRequest;
+        return target == null ? null : target.getBody();
+    }
+
+    /**
+     * request attribute without expanding the request target
+     */
+    public Object requestAttribute(String name) {
+        CompactTarget compact = compactRequest;
+        if (compact != null) {
+            return compact.attribute(name);
+        }
+        Target target = targetRequest;
+        return target == null ? null : target.getAttribute(name);
+    }
+
+    @Override
+    public Target getTargetRequest() {
+        Target target = targetRequest;
+        if (target == null) {
+            synchronized (this) {
+                target = targetRequest;
+                if (target == null) {
+                    target = CompactTarget.toTarget(compactRequest);
+                    targetRequest = target;
+                    compactRequest = null;
+                }
+            }
+        }
+        return target;
+    }
+
+    @Override
+    public Target getTargetResponse() {
+        Target target = targetResponse;
+        if (target == null) {
+            synchronized (this) {
+                target = targetResponse;
+                if (target == null) {
+                    target = CompactTarget.toTarget(compactResponse);
+                    targetResponse = target;
+                    compactResponse = null;
+                }
+            }
+        }
+        return target;
+    }
+
+    @Override
+    public String getAppId() {
+        return appId;
+    }
+
+    @Override
+    public String getReplayId() {
+        return replayId;
+    }
+
+    @Override
+    public void setReplayId(String replayId) {
+        this.replayId = replayId;
+    }
+
+    @Override
+    public String getRecordId() {
+        return recordId;
+    }
+
+    @Override
+    public void setRecordId(String recordId) {
+        this.recordId = recordId;
+    }
+
+    @Override
+    public void setRecordEnvironment(int recordEnvironment) {
+        // not used by replay
+    }
+
+    @Override
+    public String getRecordVersion() {
+        return recordVersion;
+    }
+
+    @Override
+    public void setCreationTime(long creationTime) {
+        this.creationTime = creationTime;
+    }
+
+    @Override
+    public long getCreationTime() {
+        return creationTime;
+    }
+
+    @Override
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public MockCategoryType getCategoryType() {
+        return categoryType;
+    }
+
+    @Override
+    public String getOperationName() {
+        return operationName;
+    }
+
+    @Override
+    public boolean isNeedMerge() {
+        return false;
+    }
+
+    @Override
+    public void setNeedMerge(boolean needMerge) {
+        // replay mockers are not recorded
+    }
+
+    @Override
+    public boolean isMatched() {
+        return matched;
+    }
+
+    @Override
+    public void setMatched(boolean matched) {
+        this.matched = matched;
+    }
+
+    @Override
+    public long getAccurateMatchKey() {
+        return accurateMatchKey;
+    }
+
+    @Override
+    public void setAccurateMatchKey(long accurateMatchKey) {
+        this.accurateMatchKey = accurateMatchKey;
+    }
+
+    @Override
+    public long getFuzzyMatchKey() {
+        return fuzzyMatchKey;
+    }
+
+    @Override
+    public void setFuzzyMatchKey(long fuzzyMatchKey) {
+        this.fuzzyMatchKey = fuzzyMatchKey;
+    }
+
+    private static String share(Map<String, String> stringPool, String value) {
+        if (value == null || stringPool == null) {
+            return value;
+        }
+        String shared = stringPool.putIfAbsent(value, value);
+        return shared != null ? shared : value;
+    }
+
+    static final class CompactTarget {
+        /**
+         * UTF-8 bytes of the body, deflated if rawLength >= 0
+         */
+        private final byte[] body;
+        private final int rawLength;
+        private final Map<String, Object> attributes;
+        private final String type;
+
+        private CompactTarget(byte[] body, int rawLength, Map<String, Object> attributes, String type) {
+            this.body = body;
+            this.rawLength = rawLength;
+            this.attributes = attributes;
+            this.type = type;
+        }
+
+        static CompactTarget of(Target target, Map<String, String> stringPool) {
+            if (target == null) {
+                return null;
+            }
+            Map<String, Object> attributes = MapUtils.isEmpty(target.getAttributes()) ? null : target.getAttributes();
+            String type = share(stringPool, target.getType());
+            String body = target.getBody();
+            if (body == null) {
+                return new CompactTarget(null, -1, attributes, type);
+            }
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length >= COMPRESS_THRESHOLD) {
+                byte[] deflated = deflate(bytes);
+                if (deflated.length < bytes.length) {
+                    return new CompactTarget(deflated, bytes.length, attributes, type);
+                }
+            }
+            return new CompactTarget(bytes, -1, attributes, type);
+        }
+
+        String body() {
+            if (body == null) {
+                return null;
+            }
+            byte[] bytes = rawLength >= 0 ? inflate(body, rawLength) : body;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        Object attribute(String name) {
+            return attributes == null ? null : attributes.get(name);
+        }
+
+        static Target toTarget(CompactTarget compact) {
+            Target target = new Target();
+            if (compact != null) {
+                target.setBody(compact.body());
+                target.setAttributes(compact.attributes);
+                target.setType(compact.type);
+            }
+            return target;
+        }
+
+        private static byte[] deflate(byte[] bytes) {
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try {
+                deflater.setInput(bytes);
+                deflater.finish();
+                ByteArrayOutputStream output = new ByteArrayOutputStream(bytes.length >> 2);
+                byte[] buffer = new byte[Math.min(bytes.length, 8192)];
+                while (!deflater.finished()) {
+                    output.write(buffer, 0, deflater.deflate(buffer));
+                }
+                return output.toByteArray();
+            } finally {
+                deflater.end();
+            }
+        }
+
+        private static byte[] inflate(byte[] bytes, int rawLength) {
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(bytes);
+                byte[] result = new byte[rawLength];
+                int length = 0;
+                while (length < rawLength && !inflater.finished()) {
+                    int inflated = inflater.inflate(result, length, rawLength - length);
+                    if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    length += inflated;
+                }
+                return length == rawLength ? result : Arrays.copyOf(result, length);
+            } catch (DataFormatException e) {
+                throw new IllegalStateException("invalid compressed body", e);
+            } finally {
+                inflater.end();
+            }
+        }
+    }
+}
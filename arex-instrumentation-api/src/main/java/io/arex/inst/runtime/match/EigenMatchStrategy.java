@@ -1,14 +1,31 @@
 package io.arex.inst.runtime.match;
 
+import io.arex.agent.bootstrap.model.MockStrategyEnum;
+import io.arex.agent.bootstrap.model.Mocker;
+import io.arex.agent.bootstrap.util.CollectionUtil;
 import io.arex.inst.runtime.model.MatchStrategyEnum;
 
 public class EigenMatchStrategy extends AbstractMatchStrategy{
 
     /**
-     * search by eigen value of request
+     * search by eigen value of request, the SimHash of request body and parameters
+     * priority:
+     * 1. the unmatched one with the least hamming distance, the earlier one if equal
+     * 2. if all matched and find-last mode, the matched one with the least distance
      */
     void process(MatchStrategyContext context) {
         context.setMatchStrategy(MatchStrategyEnum.EIGEN);
-        // to be implemented after database merge replay support
+        ReplayMockerList replayList = ReplayMockerList.of(context.getReplayList());
+        long eigenValue = ReplayMockerList.eigenValue(context.getRequestMocker());
+        Mocker mocker = replayList.claimClosest(eigenValue, MockStrategyEnum.FIND_LAST == context.getMockStrategy());
+        if (mocker == null) {
+            context.setReason("eigen match no result, all has been matched");
+        }
+        context.setMatchMocker(mocker);
+    }
+
+    @Override
+    boolean internalCheck(MatchStrategyContext context) {
+        return CollectionUtil.isNotEmpty(context.getReplayList());
     }
 }
@@ -5,8 +5,6 @@ import io.arex.agent.bootstrap.model.Mocker;
 import io.arex.agent.bootstrap.util.CollectionUtil;
 import io.arex.inst.runtime.model.MatchStrategyEnum;
 
-import java.util.List;
-
 public class FuzzyMatchStrategy extends AbstractMatchStrategy {
     /**
      * search under the same method signature
@@ -15,22 +13,12 @@ public class FuzzyMatchStrategy extends AbstractMatchStrategy {
      */
     void process(MatchStrategyContext context) {
         context.setMatchStrategy(MatchStrategyEnum.FUZZY);
-        List<Mocker> replayList = context.getReplayList();
-        Mocker mocker = null;
-        int size = replayList.size();
-        for (int i = 0; i < size; i++) {
-            Mocker mockerDTO = replayList.get(i);
-            if (!mockerDTO.isMatched()) {
-                mocker = mockerDTO;
-                break;
-            }
-        }
+        ReplayMockerList replayList = ReplayMockerList.of(context.getReplayList());
+        Mocker mocker = replayList.claimNext();
         if (mocker == null && MockStrategyEnum.FIND_LAST == context.getMockStrategy()) {
-            mocker = replayList.get(size - 1);
+            mocker = replayList.last();
         }
-        if (mocker != null) {
-            mocker.setMatched(true);
-        } else {
+        if (mocker == null) {
             context.setReason("fuzzy match no result, all has been matched");
         }
 
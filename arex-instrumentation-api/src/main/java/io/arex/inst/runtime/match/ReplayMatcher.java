@@ -5,10 +5,12 @@ import io.arex.agent.bootstrap.model.Mocker;
 import io.arex.agent.bootstrap.util.CollectionUtil;
 import io.arex.agent.bootstrap.util.StringUtil;
 import io.arex.inst.runtime.config.Config;
+import io.arex.inst.runtime.context.ArexContext;
 import io.arex.inst.runtime.context.ContextManager;
 import io.arex.inst.runtime.log.LogManager;
 import io.arex.inst.runtime.serializer.Serializer;
 import io.arex.inst.runtime.util.MockUtils;
+import io.arex.inst.runtime.util.ReplayUtil;
 
 import java.util.*;
 
@@ -25,17 +27,50 @@ public class ReplayMatcher {
      * 3. fuzzy match/eigen match
      */
     public static Mocker match(Mocker requestMocker, MockStrategyEnum mockStrategy) {
-        Map<Integer, List<Mocker>> cachedReplayResultMap = ContextManager.currentContext().getCachedReplayResultMap();
         // first match methodRequestTypeHash: category + operationName + requestType, ensure the same method
-        List<Mocker> replayList = cachedReplayResultMap.get(MockUtils.methodRequestTypeHash(requestMocker));
+        List<Mocker> replayList = cachedReplayList(requestMocker);
         if (CollectionUtil.isEmpty(replayList)) {
             LogManager.warn(MATCH_TITLE, StringUtil.format("match no result, not exist this method signature, " +
                             "check if it has been recorded, categoryType: %s, operationName: %s, requestBody: %s",
                     requestMocker.getCategoryType().getName(), requestMocker.getOperationName(), requestMocker.getTargetRequest().getBody()));
             return null;
         }
+        return match(requestMocker, replayList, mockStrategy);
+    }
+
+    /**
+     * match the mockers queried when the context was created, null without warning if the method was not queried
+     * or the category has no local match strategy (left to the remote query)
+     */
+    public static Mocker matchCached(Mocker requestMocker, MockStrategyEnum mockStrategy) {
+        if (CollectionUtil.isEmpty(MatchStrategyRegister.getMatchStrategies(requestMocker.getCategoryType()))) {
+            return null;
+        }
+        List<Mocker> replayList = cachedReplayList(requestMocker);
+        if (CollectionUtil.isEmpty(replayList)) {
+            return null;
+        }
+        return match(requestMocker, replayList, mockStrategy);
+    }
+
+    private static List<Mocker> cachedReplayList(Mocker requestMocker) {
+        ArexContext arexContext = ContextManager.currentContext();
+        if (arexContext == null) {
+            return null;
+        }
+        Map<Long, List<Mocker>> cachedReplayResult = ReplayUtil.cachedReplayResult(arexContext);
+        // the keys of request are hashed by the same version as the cached replay result
+        int hashVersion = arexContext.getMatchKeyHashVersion();
+        requestMocker.setFuzzyMatchKey(MockUtils.methodRequestTypeHash(requestMocker, hashVersion));
+        requestMocker.setAccurateMatchKey(MockUtils.methodSignatureHash(requestMocker, hashVersion));
+        return cachedReplayResult.get(requestMocker.getFuzzyMatchKey());
+    }
 
+    private static Mocker match(Mocker requestMocker, List<Mocker> replayList, MockStrategyEnum mockStrategy) {
         List<AbstractMatchStrategy> matchStrategyList = MatchStrategyRegister.getMatchStrategies(requestMocker.getCategoryType());
+        if (CollectionUtil.isEmpty(matchStrategyList)) {
+            return null;
+        }
         MatchStrategyContext context = new MatchStrategyContext(requestMocker, replayList, mockStrategy);
         for (AbstractMatchStrategy matchStrategy : matchStrategyList) {
             matchStrategy.match(context);
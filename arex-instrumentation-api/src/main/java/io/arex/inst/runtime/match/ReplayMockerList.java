@@ -0,0 +1,170 @@
+package io.arex.inst.runtime.match;
+
+import io.arex.agent.bootstrap.model.Mocker;
+import io.arex.inst.runtime.model.ArexConstants;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replay mockers of one method signature (fuzzy match key) in ascending order by creationTime.
+ * <pre>
+ * 1. the mockers are indexed by accurate match key on first lookup, each group keeps the creationTime order
+ * 2. {@link #claimNext()} returns the first unmatched mocker, the cursor skips the matched ones,
+ *    so a request claims the mockers in amortized O(1) instead of scanning the list
+ * 3. the eigen values ({@link SimHash}) are computed once on first eigen match,
+ *    {@link #claimClosest(long, boolean)} compares them by hamming distance
+ * </pre>
+ * The list must not be modified after it is matched.
+ */
+public class ReplayMockerList extends ArrayList<Mocker> {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * shared with the accurate groups, a mocker is claimed once through either list
+     */
+    private final transient Object claimLock;
+    private transient volatile Map<Long, ReplayMockerList> accurateIndex;
+    private transient int cursor;
+    private transient long[] eigenValues;
+
+    public ReplayMockerList() {
+        super();
+        this.claimLock = new Object();
+    }
+
+    public ReplayMockerList(Collection<? extends Mocker> mockers) {
+        super(mockers);
+        this.claimLock = new Object();
+    }
+
+    private ReplayMockerList(Object claimLock) {
+        super();
+        this.claimLock = claimLock;
+    }
+
+    /**
+     * @return the list itself if it is indexed already, otherwise an indexed copy
+     */
+    public static ReplayMockerList of(List<Mocker> replayList) {
+        if (replayList instanceof ReplayMockerList) {
+            return (ReplayMockerList) replayList;
+        }
+        return new ReplayMockerList(replayList);
+    }
+
+    /**
+     * @return mockers with the accurate match key in creationTime order, null if none
+     */
+    public ReplayMockerList accurateMatch(long accurateMatchKey) {
+        Map<Long, ReplayMockerList> index = accurateIndex;
+        if (index == null) {
+            index = buildAccurateIndex();
+        }
+        return index.get(accurateMatchKey);
+    }
+
+    private synchronized Map<Long, ReplayMockerList> buildAccurateIndex() {
+        if (accurateIndex == null) {
+            Map<Long, ReplayMockerList> index = new HashMap<>();
+            for (Mocker mocker : this) {
+                index.computeIfAbsent(mocker.getAccurateMatchKey(), k -> new ReplayMockerList(claimLock)).add(mocker);
+            }
+            accurateIndex = index;
+        }
+        return accurateIndex;
+    }
+
+    /**
+     * mark the first unmatched mocker matched
+     * @return null if all have been matched
+     */
+    public Mocker claimNext() {
+        synchronized (claimLock) {
+            int size = size();
+            while (cursor < size) {
+                Mocker mocker = get(cursor++);
+                if (!mocker.isMatched()) {
+                    mocker.setMatched(true);
+                    return mocker;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * mark the unmatched mocker with the least distance to the eigen value matched, the earlier one if equal
+     * @param findLast if all have been matched, return the matched one with the least distance
+     * @return null if all have been matched and not find last
+     */
+    public Mocker claimClosest(long eigenValue, boolean findLast) {
+        synchronized (claimLock) {
+            long[] values = eigenValues();
+            int size = size();
+            while (cursor < size && get(cursor).isMatched()) {
+                cursor++;
+            }
+            int closest = -1;
+            int closestDistance = Integer.MAX_VALUE;
+            for (int i = cursor; i < size && closestDistance > 0; i++) {
+                int distance = SimHash.distance(eigenValue, values[i]);
+                if (distance < closestDistance && !get(i).isMatched()) {
+                    closest = i;
+                    closestDistance = distance;
+                }
+            }
+            if (closest < 0 && findLast) {
+                for (int i = 0; i < size && closestDistance > 0; i++) {
+                    int distance = SimHash.distance(eigenValue, values[i]);
+                    if (distance < closestDistance) {
+                        closest = i;
+                        closestDistance = distance;
+                    }
+                }
+            }
+            if (closest < 0) {
+                return null;
+            }
+            Mocker mocker = get(closest);
+            mocker.setMatched(true);
+            return mocker;
+        }
+    }
+
+    private long[] eigenValues() {
+        if (eigenValues == null || eigenValues.length != size()) {
+            long[] values = new long[size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = eigenValue(get(i));
+            }
+            eigenValues = values;
+        }
+        return eigenValues;
+    }
+
+    /**
+     * request body and the parameters of database
+     */
+    static long eigenValue(Mocker mocker) {
+        if (mocker instanceof CompactReplayMocker) {
+            // not expand the replay mockers which are not matched
+            CompactReplayMocker compactMocker = (CompactReplayMocker) mocker;
+            Object parameters = compactMocker.requestAttribute(ArexConstants.DB_PARAMETERS);
+            return SimHash.of(compactMocker.requestBody(), parameters == null ? null : String.valueOf(parameters));
+        }
+        Mocker.Target request = mocker.getTargetRequest();
+        if (request == null) {
+            return 0;
+        }
+        Object parameters = request.getAttribute(ArexConstants.DB_PARAMETERS);
+        return SimHash.of(request.getBody(), parameters == null ? null : String.valueOf(parameters));
+    }
+
+    public Mocker last() {
+        return isEmpty() ? null : get(size() - 1);
+    }
+}
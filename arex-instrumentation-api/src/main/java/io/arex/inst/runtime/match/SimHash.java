@@ -0,0 +1,68 @@
+package io.arex.inst.runtime.match;
+
+/**
+ * 64 bit SimHash of the tokens of a request, similar requests (e.g. the same sql with different parameters)
+ * have a small hamming distance. Tokens are the runs of letters, digits and underscores, ignoring case.
+ */
+final class SimHash {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private SimHash() {
+    }
+
+    static long of(CharSequence... texts) {
+        int[] weights = new int[Long.SIZE];
+        for (CharSequence text : texts) {
+            if (text != null) {
+                addTokens(text, weights);
+            }
+        }
+        long simHash = 0;
+        for (int i = 0; i < Long.SIZE; i++) {
+            if (weights[i] > 0) {
+                simHash |= 1L << i;
+            }
+        }
+        return simHash;
+    }
+
+    static int distance(long left, long right) {
+        return Long.bitCount(left ^ right);
+    }
+
+    private static void addTokens(CharSequence text, int[] weights) {
+        long hash = FNV_OFFSET_BASIS;
+        boolean inToken = false;
+        int length = text.length();
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c) || c == '_') {
+                hash = (hash ^ Character.toLowerCase(c)) * FNV_PRIME;
+                inToken = true;
+            } else if (inToken) {
+                addToken(mix(hash), weights);
+                hash = FNV_OFFSET_BASIS;
+                inToken = false;
+            }
+        }
+    }
+
+    private static void addToken(long tokenHash, int[] weights) {
+        for (int i = 0; i < Long.SIZE; i++) {
+            weights[i] += (tokenHash >>> i & 1L) == 0 ? -1 : 1;
+        }
+    }
+
+    /**
+     * spread the bits, FNV alone leaves the high bits of short tokens correlated
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -56,6 +56,11 @@ public class ArexConstants {
     public static final String MERGE_RECORD_THRESHOLD = "arex.merge.record.threshold";
     public static final String DISABLE_MERGE_RECORD = "arex.disable.merge.record";
     public static final int MERGE_RECORD_THRESHOLD_DEFAULT = 10;
+    /**
+     * version of the match key hash, 0: Base64 + String.hashCode, 1: {@link io.arex.agent.bootstrap.util.StringUtil#hash64}
+     */
+    public static final int MATCH_KEY_HASH_VERSION = 1;
+    public static final int LEGACY_MATCH_KEY_HASH_VERSION = 0;
     public static final String MERGE_TYPE = "java.util.ArrayList-io.arex.inst.runtime.model.MergeDTO";
     public static final String MERGE_SPLIT_COUNT = "arex.merge.split.count";
     public static final long MEMORY_SIZE_1MB = 1024L * 1024L;
@@ -4,19 +4,24 @@ import java.util.Map;
 
 public class MergeDTO {
     private String category;
-    private int methodSignatureHash;
+    private long methodSignatureHash;
     private String operationName;
     private String request;
     private String recordId;
     private Map<String, Object> requestAttributes;
     private Map<String, Object> responseAttributes;
-    private int methodRequestTypeHash;
+    private long methodRequestTypeHash;
+    /**
+     * absent (0, legacy) in the records stored before the match keys are 64 bit,
+     * deserialized records are legacy unless the version is stored
+     */
+    private int hashVersion;
     private long creationTime;
     private boolean matched;
     private String response;
     private String responseType;
     public MergeDTO() {}
-    private MergeDTO(String category, int methodSignatureHash, String operationName, String request, String response, String responseType,
+    private MergeDTO(String category, long methodSignatureHash, String operationName, String request, String response, String responseType,
                      Map<String, Object> requestAttributes, Map<String, Object> responseAttributes, String recordId) {
         this.category = category;
         this.methodSignatureHash = methodSignatureHash;
@@ -27,9 +32,10 @@ public class MergeDTO {
         this.requestAttributes = requestAttributes;
         this.responseAttributes = responseAttributes;
         this.recordId = recordId;
+        this.hashVersion = ArexConstants.MATCH_KEY_HASH_VERSION;
     }
 
-    public static MergeDTO of(String category, int methodSignatureHash, String operationName, String request, String response, String responseType,
+    public static MergeDTO of(String category, long methodSignatureHash, String operationName, String request, String response, String responseType,
                               Map<String, Object> requestAttributes, Map<String, Object> responseAttributes, String recordId) {
         return new MergeDTO(category, methodSignatureHash, operationName, request, response, responseType, requestAttributes, responseAttributes, recordId);
     }
@@ -40,10 +46,10 @@ public class MergeDTO {
     public void setCategory(String category) {
         this.category = category;
     }
-    public int getMethodSignatureHash() {
+    public long getMethodSignatureHash() {
         return methodSignatureHash;
     }
-    public void setMethodSignatureHash(int methodSignatureHash) {
+    public void setMethodSignatureHash(long methodSignatureHash) {
         this.methodSignatureHash = methodSignatureHash;
     }
     public String getOperationName() {
@@ -77,14 +83,22 @@ public class MergeDTO {
         this.responseAttributes = responseAttributes;
     }
 
-    public int getMethodRequestTypeHash() {
+    public long getMethodRequestTypeHash() {
         return methodRequestTypeHash;
     }
 
-    public void setMethodRequestTypeHash(int methodRequestTypeHash) {
+    public void setMethodRequestTypeHash(long methodRequestTypeHash) {
         this.methodRequestTypeHash = methodRequestTypeHash;
     }
 
+    public int getHashVersion() {
+        return hashVersion;
+    }
+
+    public void setHashVersion(int hashVersion) {
+        this.hashVersion = hashVersion;
+    }
+
     public long getCreationTime() {
         return creationTime;
     }
@@ -129,7 +143,7 @@ public class MergeDTO {
 
     @Override
     public int hashCode() {
-        return methodSignatureHash;
+        return Long.hashCode(methodSignatureHash);
     }
 
     @Override
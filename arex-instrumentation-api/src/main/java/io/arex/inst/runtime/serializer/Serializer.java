@@ -12,6 +12,7 @@ import io.arex.inst.runtime.util.TypeUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Writer;
 import java.lang.reflect.Type;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -106,6 +107,55 @@ public class Serializer {
         return INSTANCE.getSerializer(serializer).serialize(object);
     }
 
+    /**
+     * serialize and abort as soon as the serialized chars exceed the size limit,
+     * so the size check and the serialization are done in one pass
+     *
+     * @throws SizeLimitExceededException if the size limit is exceeded
+     */
+    public static String serializeWithSizeLimit(Object object, String serializer, long sizeLimit) throws Throwable {
+        if (object == null || INSTANCE == null) {
+            return null;
+        }
+        SizeLimitedWriter writer = new SizeLimitedWriter(sizeLimit);
+        try {
+            serializeTo(object, serializer, writer);
+        } catch (Throwable ex) {
+            if (writer.isExceeded()) {
+                throw new SizeLimitExceededException(sizeLimit);
+            }
+            throw ex;
+        }
+        return writer.toString();
+    }
+
+    private static void serializeTo(Object object, String serializer, Writer writer) throws Throwable {
+        if (object instanceof Throwable) {
+            INSTANCE.getSerializer(ArexConstants.GSON_SERIALIZER).serialize(object, writer);
+            return;
+        }
+
+        Collection<Collection<?>> nestedCollection = TypeUtil.toNestedCollection(object);
+        if (nestedCollection == null) {
+            INSTANCE.getSerializer(serializer).serialize(object, writer);
+            return;
+        }
+        Iterator<Collection<?>> collectionIterator = nestedCollection.iterator();
+        while (collectionIterator.hasNext()) {
+            Collection<?> collection = collectionIterator.next();
+            if (collection == null) {
+                writer.write(NULL_STRING);
+            } else if (collection.isEmpty()) {
+                writer.write(EMPTY_LIST_JSON);
+            } else {
+                serializeTo(collection, serializer, writer);
+            }
+            if (collectionIterator.hasNext()) {
+                writer.write(SERIALIZE_SEPARATOR);
+            }
+        }
+    }
+
     private static String serializeNestedCollection(String serializer, Collection<Collection<?>> nestedCollection) throws Throwable {
         StringBuilder jsonBuilder = new StringBuilder();
         Iterator<Collection<?>> collectionIterator = nestedCollection.iterator();
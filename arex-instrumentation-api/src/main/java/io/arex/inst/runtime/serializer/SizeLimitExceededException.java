@@ -0,0 +1,21 @@
+package io.arex.inst.runtime.serializer;
+
+import java.io.IOException;
+
+/**
+ * Thrown when the serialized chars exceed the size limit, the serialization is aborted
+ */
+public class SizeLimitExceededException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final long sizeLimit;
+
+    public SizeLimitExceededException(long sizeLimit) {
+        super("serialized size exceeds the limit: " + sizeLimit);
+        this.sizeLimit = sizeLimit;
+    }
+
+    public long getSizeLimit() {
+        return sizeLimit;
+    }
+}
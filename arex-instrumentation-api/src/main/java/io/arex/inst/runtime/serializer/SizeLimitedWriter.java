@@ -0,0 +1,87 @@
+package io.arex.inst.runtime.serializer;
+
+import java.io.Writer;
+
+/**
+ * Writer into a string builder that aborts the serialization once the written chars exceed the size limit,
+ * the serializer may wrap the exception, so check {@link #isExceeded()} after a failure.
+ */
+public class SizeLimitedWriter extends Writer {
+    private final StringBuilder builder = new StringBuilder();
+    private final long sizeLimit;
+    private boolean exceeded;
+
+    public SizeLimitedWriter(long sizeLimit) {
+        this.sizeLimit = sizeLimit;
+    }
+
+    @Override
+    public void write(int c) throws SizeLimitExceededException {
+        ensureCapacity(1);
+        builder.append((char) c);
+    }
+
+    @Override
+    public void write(char[] buffer, int offset, int length) throws SizeLimitExceededException {
+        ensureCapacity(length);
+        builder.append(buffer, offset, length);
+    }
+
+    @Override
+    public void write(String str, int offset, int length) throws SizeLimitExceededException {
+        ensureCapacity(length);
+        builder.append(str, offset, offset + length);
+    }
+
+    @Override
+    public Writer append(CharSequence csq) throws SizeLimitExceededException {
+        CharSequence value = csq == null ? "null" : csq;
+        ensureCapacity(value.length());
+        builder.append(value);
+        return this;
+    }
+
+    @Override
+    public Writer append(CharSequence csq, int start, int end) throws SizeLimitExceededException {
+        CharSequence value = csq == null ? "null" : csq;
+        ensureCapacity(end - start);
+        builder.append(value, start, end);
+        return this;
+    }
+
+    @Override
+    public Writer append(char c) throws SizeLimitExceededException {
+        write(c);
+        return this;
+    }
+
+    private void ensureCapacity(int length) throws SizeLimitExceededException {
+        if (exceeded || builder.length() + (long) length > sizeLimit) {
+            exceeded = true;
+            throw new SizeLimitExceededException(sizeLimit);
+        }
+    }
+
+    public boolean isExceeded() {
+        return exceeded;
+    }
+
+    public int length() {
+        return builder.length();
+    }
+
+    @Override
+    public void flush() {
+        // nothing buffered
+    }
+
+    @Override
+    public void close() {
+        // the content is still readable after closed, e.g. jackson closes the target
+    }
+
+    @Override
+    public String toString() {
+        return builder.toString();
+    }
+}
@@ -1,5 +1,6 @@
 package io.arex.inst.runtime.serializer;
 
+import java.io.Writer;
 import java.lang.reflect.Type;
 import java.util.Arrays;
 import java.util.Collections;
@@ -40,6 +41,19 @@ public interface StringSerializable {
      */
     String serialize(Object object) throws Throwable;
 
+    /**
+     * Serialize into the writer, the serializers writing by stream can abort as soon as the writer fails,
+     * e.g. {@link SizeLimitedWriter}
+     *
+     * @param object object to be serialized, not null
+     */
+    default void serialize(Object object, Writer writer) throws Throwable {
+        String json = serialize(object);
+        if (json != null) {
+            writer.write(json);
+        }
+    }
+
     /**
      * Deserialize by Class
      *
@@ -4,6 +4,7 @@ import io.arex.agent.bootstrap.model.MockStrategyEnum;
 import io.arex.agent.bootstrap.model.Mocker;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface DataCollector {
     void start();
@@ -14,6 +15,14 @@ public interface DataCollector {
 
     String query(String postData, MockStrategyEnum mockStrategy);
     String queryAll(String postData);
+
+    /**
+     * Query all mockers without blocking the caller, default implementation queries synchronously
+     */
+    default CompletableFuture<String> queryAllAsync(String postData) {
+        return CompletableFuture.completedFuture(queryAll(postData));
+    }
+
     /**
      * The higher the value, the higher the priority
      * If you want to overwrite the default DataService, greater than this value
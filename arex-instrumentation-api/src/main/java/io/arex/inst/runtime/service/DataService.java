@@ -5,6 +5,7 @@ import io.arex.agent.bootstrap.model.Mocker;
 import io.arex.agent.bootstrap.util.CollectionUtil;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class DataService {
 
@@ -32,6 +33,10 @@ public class DataService {
         return saver.queryAll(data);
     }
 
+    public CompletableFuture<String> queryAllAsync(String data) {
+        return saver.queryAllAsync(data);
+    }
+
     public static void setDataCollector(List<DataCollector> collectors) {
         if (CollectionUtil.isEmpty(collectors)) {
             return;
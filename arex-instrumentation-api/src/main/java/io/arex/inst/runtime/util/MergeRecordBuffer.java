@@ -0,0 +1,141 @@
+package io.arex.inst.runtime.util;
+
+import io.arex.agent.bootstrap.model.Mocker;
+import io.arex.agent.bootstrap.util.StringUtil;
+import io.arex.inst.runtime.log.LogManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append buffer of the mockers to be merged under one context.
+ * <pre>
+ * The serialized size of each mocker is estimated from the UTF-8 lengths of its strings when it is appended,
+ * a batch is taken out when it reaches the count threshold, or before it would exceed the bytes threshold,
+ * so a batch is never walked again to check its size.
+ * </pre>
+ * Mockers are appended from the threads of the same request, the methods are synchronized.
+ */
+public class MergeRecordBuffer {
+    /**
+     * the json of the fields except strings: categoryType, ids, creationTime...
+     */
+    static final int MOCKER_OVERHEAD_BYTES = 256;
+    private static final int ATTRIBUTE_OVERHEAD_BYTES = 8;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int countThreshold;
+    private final long bytesThreshold;
+    private Mocker[] mockers;
+    private int count;
+    private long bytes;
+
+    /**
+     * @param countThreshold mockers of a batch
+     * @param bytesThreshold estimated serialized bytes of a batch
+     */
+    public MergeRecordBuffer(int countThreshold, long bytesThreshold) {
+        this.countThreshold = Math.max(countThreshold, 1);
+        this.bytesThreshold = bytesThreshold;
+        this.mockers = new Mocker[Math.min(this.countThreshold, INITIAL_CAPACITY)];
+    }
+
+    /**
+     * @return the batches reaching the thresholds, empty if not reached
+     */
+    public synchronized List<List<Mocker>> append(Mocker mocker) {
+        long size = estimateSize(mocker);
+        if (size > bytesThreshold) {
+            // still recorded alone, the storage service may reject it
+            LogManager.warn("merge.record.size.too.large",
+                    StringUtil.format("please check following record data, if is dynamic class, suggest replace it, " +
+                            "category: %s, operationName: %s",
+                            mocker.getCategoryType() != null ? mocker.getCategoryType().getName() : null,
+                            mocker.getOperationName()));
+        }
+        List<List<Mocker>> batches = Collections.emptyList();
+        if (count > 0 && bytes + size > bytesThreshold) {
+            batches = new ArrayList<>(2);
+            batches.add(drain());
+        }
+        if (count == mockers.length) {
+            mockers = Arrays.copyOf(mockers, Math.min(count << 1, countThreshold));
+        }
+        mockers[count++] = mocker;
+        bytes += size;
+        if (count >= countThreshold || bytes >= bytesThreshold) {
+            if (batches.isEmpty()) {
+                batches = new ArrayList<>(1);
+            }
+            batches.add(drain());
+        }
+        return batches;
+    }
+
+    /**
+     * @return the remaining mockers, empty if none
+     */
+    public synchronized List<Mocker> drain() {
+        if (count == 0) {
+            return Collections.emptyList();
+        }
+        List<Mocker> batch = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            batch.add(mockers[i]);
+            mockers[i] = null;
+        }
+        count = 0;
+        bytes = 0;
+        return batch;
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    public synchronized boolean isEmpty() {
+        return count == 0;
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(mockers, 0, count, null);
+        count = 0;
+        bytes = 0;
+    }
+
+    /**
+     * sum of the UTF-8 lengths of the strings, the non string attributes are counted as a small constant
+     */
+    static long estimateSize(Mocker mocker) {
+        if (mocker == null) {
+            return 0;
+        }
+        long size = MOCKER_OVERHEAD_BYTES + length(mocker.getOperationName());
+        size += estimateSize(mocker.getTargetRequest());
+        size += estimateSize(mocker.getTargetResponse());
+        return size;
+    }
+
+    private static long estimateSize(Mocker.Target target) {
+        if (target == null) {
+            return 0;
+        }
+        long size = length(target.getBody()) + length(target.getType());
+        Map<String, Object> attributes = target.getAttributes();
+        if (attributes != null) {
+            for (Map.Entry<String, Object> entry : attributes.entrySet()) {
+                Object value = entry.getValue();
+                size += ATTRIBUTE_OVERHEAD_BYTES + length(entry.getKey())
+                        + (value instanceof String ? length((String) value) : ATTRIBUTE_OVERHEAD_BYTES);
+            }
+        }
+        return size;
+    }
+
+    private static long length(String value) {
+        return value == null ? 0 : StringUtil.utf8Length(value, 0, value.length());
+    }
+}
@@ -20,6 +20,7 @@ import io.arex.inst.runtime.util.sizeof.AgentSizeOf;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public final class MockUtils {
 
@@ -143,6 +144,14 @@ public final class MockUtils {
     }
 
     public static Mocker executeReplay(Mocker requestMocker, MockStrategyEnum mockStrategy) {
+        // served from the mockers queried when the context was created, remote query only on a miss
+        if (!requestMocker.isNeedMerge()) {
+            Mocker matchMocker = ReplayMatcher.matchCached(requestMocker, mockStrategy);
+            if (matchMocker != null) {
+                return matchMocker;
+            }
+        }
+
         String postJson = Serializer.serialize(requestMocker);
 
         String data = DataService.INSTANCE.query(postJson, mockStrategy);
@@ -216,38 +225,77 @@ public final class MockUtils {
         return true;
     }
 
-    public static int methodSignatureHash(Mocker requestMocker) {
-        return StringUtil.encodeAndHash(String.format("%s_%s",
-                requestMocker.getOperationName(),
-                requestMocker.getTargetRequest().getBody()));
+    /**
+     * accurate match key: operationName + requestBody
+     */
+    public static long methodSignatureHash(Mocker requestMocker) {
+        return methodSignatureHash(requestMocker, ArexConstants.MATCH_KEY_HASH_VERSION);
     }
 
-    public static int methodRequestTypeHash(Mocker requestMocker) {
-        return StringUtil.encodeAndHash(String.format("%s_%s_%s",
-                requestMocker.getCategoryType().getName(),
-                requestMocker.getOperationName(),
-                requestMocker.getTargetRequest().getType()));
+    /**
+     * fuzzy match key: categoryType + operationName + requestType
+     */
+    public static long methodRequestTypeHash(Mocker requestMocker) {
+        return methodRequestTypeHash(requestMocker, ArexConstants.MATCH_KEY_HASH_VERSION);
+    }
+
+    /**
+     * @param hashVersion the legacy version is compatible with the keys of merge records stored before
+     */
+    public static long methodSignatureHash(Mocker requestMocker, int hashVersion) {
+        if (hashVersion == ArexConstants.LEGACY_MATCH_KEY_HASH_VERSION) {
+            return StringUtil.encodeAndHash(String.format("%s_%s",
+                    requestMocker.getOperationName(),
+                    requestMocker.getTargetRequest().getBody()));
+        }
+        return StringUtil.hash64(requestMocker.getOperationName(), requestMocker.getTargetRequest().getBody());
+    }
+
+    public static long methodRequestTypeHash(Mocker requestMocker, int hashVersion) {
+        if (hashVersion == ArexConstants.LEGACY_MATCH_KEY_HASH_VERSION) {
+            return StringUtil.encodeAndHash(String.format("%s_%s_%s",
+                    requestMocker.getCategoryType().getName(),
+                    requestMocker.getOperationName(),
+                    requestMocker.getTargetRequest().getType()));
+        }
+        return StringUtil.hash64(requestMocker.getCategoryType().getName(), requestMocker.getOperationName(),
+                requestMocker.getTargetRequest().getType());
     }
 
     /**
      * get all mockers under current one case
      */
     public static List<Mocker> queryMockers(QueryAllMockerDTO requestMocker) {
+        return toMockers(queryMockersAsync(requestMocker).join());
+    }
+
+    /**
+     * query all mockers under current one case without blocking,
+     * the response data is deserialized later by {@link #toMockers(String)} on the caller thread
+     */
+    public static CompletableFuture<String> queryMockersAsync(QueryAllMockerDTO requestMocker) {
         String postJson = Serializer.serialize(requestMocker);
         long startTime = System.currentTimeMillis();
-        String data = DataService.INSTANCE.queryAll(postJson);
-        String cost = String.valueOf(System.currentTimeMillis() - startTime);
-        if (StringUtil.isEmpty(data) || EMPTY_JSON.equals(data)) {
-            LogManager.warn(requestMocker.replayLogTitle(),
-                    StringUtil.format("cost: %s ms%nrequest: %s%nresponse is null.", cost, postJson));
+        return DataService.INSTANCE.queryAllAsync(postJson).thenApply(data -> {
+            String cost = String.valueOf(System.currentTimeMillis() - startTime);
+            if (StringUtil.isEmpty(data) || EMPTY_JSON.equals(data)) {
+                LogManager.warn(requestMocker.replayLogTitle(),
+                        StringUtil.format("cost: %s ms%nrequest: %s%nresponse is null.", cost, postJson));
+                return null;
+            }
+            String message = StringUtil.format("cost: %s ms%nrequest: %s", cost, postJson);
+            if (Config.get().isEnableDebug()) {
+                message = StringUtil.format(message + "%nresponse: %s", data);
+            }
+            LogManager.info(requestMocker.replayLogTitle(), message);
+            return data;
+        });
+    }
+
+    public static List<Mocker> toMockers(String data) {
+        if (StringUtil.isEmpty(data)) {
             return null;
         }
-        String message = StringUtil.format("cost: %s ms%nrequest: %s", cost, postJson);
-        if (Config.get().isEnableDebug()) {
-            message = StringUtil.format(message + "%nresponse: %s", data);
-        }
-        LogManager.info(requestMocker.replayLogTitle(), message);
-
         return Serializer.deserialize(data, ArexConstants.MERGE_MOCKER_TYPE);
     }
 
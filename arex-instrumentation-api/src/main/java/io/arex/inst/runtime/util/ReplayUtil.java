@@ -4,16 +4,22 @@ import io.arex.agent.bootstrap.model.ArexMocker;
 import io.arex.agent.bootstrap.model.MockCategoryType;
 import io.arex.agent.bootstrap.model.Mocker;
 import io.arex.agent.bootstrap.util.CollectionUtil;
+import io.arex.inst.runtime.context.ArexContext;
 import io.arex.inst.runtime.context.ContextManager;
 import io.arex.inst.runtime.log.LogManager;
+import io.arex.inst.runtime.match.CompactReplayMocker;
+import io.arex.inst.runtime.match.ReplayMockerList;
 import io.arex.inst.runtime.model.ArexConstants;
 import io.arex.inst.runtime.model.MergeDTO;
 import io.arex.inst.runtime.model.QueryAllMockerDTO;
 import io.arex.inst.runtime.serializer.Serializer;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Predicate;
 
 /**
@@ -30,37 +36,83 @@ public class ReplayUtil {
             && !MockCategoryType.REDIS.getName().equals(mergeDTO.getCategory());
 
     /**
-     * init replay all mocker under case and cached replay result
+     * start querying all mockers under case, not wait for the response,
+     * it is loaded into cached replay result when the first mocker is replayed
      */
     public static void queryMockers() {
         if (!ContextManager.needReplay()) {
             return;
         }
         try {
+            ArexContext context = ContextManager.currentContext();
             QueryAllMockerDTO requestMocker = new QueryAllMockerDTO();
-            requestMocker.setRecordId(ContextManager.currentContext().getCaseId());
-            requestMocker.setReplayId(ContextManager.currentContext().getReplayId());
-            List<Mocker> allMockerList = MockUtils.queryMockers(requestMocker);
-            if (CollectionUtil.isEmpty(allMockerList)) {
-                return;
-            }
-
-            filterMergeMocker(allMockerList);
+            requestMocker.setRecordId(context.getCaseId());
+            requestMocker.setReplayId(context.getReplayId());
+            context.getCachedReplayResultMap().clear();
+            context.setMatchKeyHashVersion(ArexConstants.MATCH_KEY_HASH_VERSION);
+            context.setReplayMockersFuture(MockUtils.queryMockersAsync(requestMocker));
+        } catch (Exception e) {
+            LogManager.warn("replay.all.mocker", e);
+        }
+    }
 
-            Map<Integer, List<Mocker>> cachedReplayResultMap = ContextManager.currentContext().getCachedReplayResultMap();
-            cachedReplayResultMap.clear();
-            buildReplayResultMap(allMockerList, cachedReplayResultMap);
+    /**
+     * wait for the query started by {@link #queryMockers()} if it is still pending, then return the cached replay result
+     */
+    public static Map<Long, List<Mocker>> cachedReplayResult(ArexContext context) {
+        CompletableFuture<String> future = context.getReplayMockersFuture();
+        if (future == null) {
+            return context.getCachedReplayResultMap();
+        }
+        // wait without holding any lock, then one thread of the request loads the result
+        String data = null;
+        try {
+            data = future.join();
+        } catch (Exception e) {
+            LogManager.warn("replay.all.mocker", e);
+        }
+        ReentrantLock lock = context.getReplayMockersLock();
+        lock.lock();
+        try {
+            // not loaded by another thread of the same request
+            if (context.getReplayMockersFuture() == future) {
+                loadReplayResult(context, data);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return context.getCachedReplayResultMap();
+    }
 
-            ascendingSortByCreationTime(cachedReplayResultMap);
+    private static void loadReplayResult(ArexContext context, String data) {
+        try {
+            if (data != null) {
+                loadReplayResult(context, MockUtils.toMockers(data));
+            }
         } catch (Exception e) {
             LogManager.warn("replay.all.mocker", e);
+        } finally {
+            context.setReplayMockersFuture(null);
+        }
+    }
+
+    private static void loadReplayResult(ArexContext context, List<Mocker> allMockerList) {
+        if (CollectionUtil.isEmpty(allMockerList)) {
+            return;
         }
+
+        filterMergeMocker(context, allMockerList);
+
+        Map<Long, List<Mocker>> cachedReplayResultMap = context.getCachedReplayResultMap();
+        buildReplayResultMap(allMockerList, cachedReplayResultMap, context.getMatchKeyHashVersion());
+
+        ascendingSortByCreationTime(cachedReplayResultMap);
     }
 
     /**
      * compatible with merge record, after batchSave published can be removed
      */
-    private static void filterMergeMocker(List<Mocker> allMockerList) {
+    private static void filterMergeMocker(ArexContext context, List<Mocker> allMockerList) {
         List<Mocker> splitMockerList = new ArrayList<>();
         for (Mocker mergeMocker : allMockerList) {
             if (!FILTER_MERGE_RECORD.test(mergeMocker)) {
@@ -70,7 +122,7 @@ public class ReplayUtil {
             if (CollectionUtil.isEmpty(mergeReplayList)) {
                 continue;
             }
-            splitMockerList.addAll(convertMergeMocker(mergeReplayList));
+            splitMockerList.addAll(convertMergeMocker(context, mergeReplayList));
         }
         if (CollectionUtil.isEmpty(splitMockerList)) {
             return;
@@ -79,13 +131,20 @@ public class ReplayUtil {
         allMockerList.addAll(splitMockerList);
     }
 
-    private static List<Mocker> convertMergeMocker(List<MergeDTO> mergeReplayList) {
+    private static List<Mocker> convertMergeMocker(ArexContext context, List<MergeDTO> mergeReplayList) {
         List<Mocker> convertMockerList = new ArrayList<>();
         for (MergeDTO mergeDTO : mergeReplayList) {
             if (mergeDTO == null || FILTER_MERGE_TYPE.test(mergeDTO)) {
                 continue;
             }
+            if (mergeDTO.getHashVersion() < ArexConstants.MATCH_KEY_HASH_VERSION) {
+                // the stored keys can not be computed again without the request type, match the case by legacy keys
+                context.setMatchKeyHashVersion(ArexConstants.LEGACY_MATCH_KEY_HASH_VERSION);
+            }
             ArexMocker mocker = MockUtils.create(MockCategoryType.of(mergeDTO.getCategory()), mergeDTO.getOperationName());
+            // may be loaded on a thread without the context
+            mocker.setRecordId(context.getCaseId());
+            mocker.setReplayId(context.getReplayId());
             mocker.setFuzzyMatchKey(mergeDTO.getMethodRequestTypeHash());
             mocker.setAccurateMatchKey(mergeDTO.getMethodSignatureHash());
             mocker.setCreationTime(mergeDTO.getCreationTime());
@@ -99,23 +158,29 @@ public class ReplayUtil {
         return convertMockerList;
     }
 
-    private static void buildReplayResultMap(List<Mocker> replayMockers, Map<Integer, List<Mocker>> cachedReplayResultMap) {
+    /**
+     * the mockers are cached in compact form until matched, see {@link CompactReplayMocker}
+     */
+    private static void buildReplayResultMap(List<Mocker> replayMockers, Map<Long, List<Mocker>> cachedReplayResultMap,
+                                             int hashVersion) {
+        Map<String, String> stringPool = new HashMap<>();
         for (Mocker replayMocker : replayMockers) {
             if (replayMocker == null) {
                 continue;
             }
             // replay match need methodRequestTypeHash and methodSignatureHash
             if (replayMocker.getFuzzyMatchKey() == 0) {
-                replayMocker.setFuzzyMatchKey(MockUtils.methodRequestTypeHash(replayMocker));
+                replayMocker.setFuzzyMatchKey(MockUtils.methodRequestTypeHash(replayMocker, hashVersion));
             }
             if (replayMocker.getAccurateMatchKey() == 0) {
-                replayMocker.setAccurateMatchKey(MockUtils.methodSignatureHash(replayMocker));
+                replayMocker.setAccurateMatchKey(MockUtils.methodSignatureHash(replayMocker, hashVersion));
             }
-            cachedReplayResultMap.computeIfAbsent(replayMocker.getFuzzyMatchKey(), k -> new ArrayList<>()).add(replayMocker);
+            cachedReplayResultMap.computeIfAbsent(replayMocker.getFuzzyMatchKey(), k -> new ReplayMockerList())
+                    .add(CompactReplayMocker.of(replayMocker, stringPool));
         }
     }
 
-    private static void ascendingSortByCreationTime(Map<Integer, List<Mocker>> cachedReplayResultMap) {
+    private static void ascendingSortByCreationTime(Map<Long, List<Mocker>> cachedReplayResultMap) {
         for (List<Mocker> mergeReplayList : cachedReplayResultMap.values()) {
             if (mergeReplayList.size() == 1) {
                 continue;
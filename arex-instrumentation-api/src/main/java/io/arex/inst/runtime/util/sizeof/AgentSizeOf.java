@@ -51,6 +51,11 @@ public class AgentSizeOf {
         public long visit(Object object) {
             return sizeOf(object);
         }
+
+        @Override
+        public boolean isFixedInstanceSize() {
+            return true;
+        }
     }
 
     public long sizeOf(Object obj) {
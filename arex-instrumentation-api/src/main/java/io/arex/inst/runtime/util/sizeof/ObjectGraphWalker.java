@@ -3,7 +3,6 @@ package io.arex.inst.runtime.util.sizeof;
 import io.arex.agent.bootstrap.internal.WeakCache;
 
 import java.lang.ref.SoftReference;
-import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.util.ArrayDeque;
@@ -11,13 +10,26 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Deque;
 import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.Set;
 
 import static java.util.Collections.newSetFromMap;
 
+/**
+ * Walk the object graph by the shape of each class.
+ * <pre>
+ * The shape (whether to walk, how to reach the references, the fixed visit size) is computed once per class,
+ * so each object costs one cache lookup instead of resolving the fields and the filter again:
+ * 1. primitive arrays and classes without reference fields are leaves
+ * 2. object arrays are read directly instead of by reflection
+ * 3. other classes are walked by the accessible reference fields, including the backing storage of the JDK collections
+ * 4. only if those fields are not accessible (JDK 16+ without add-opens), collections and maps of java.util
+ *    are walked by their elements. Concurrent collections (iterating takes their locks) and WeakHashMap
+ *    (iterating expunges the entries) are not, they are left as before
+ * </pre>
+ */
 public class ObjectGraphWalker {
-    private final WeakCache<Class<?>, SoftReference<Collection<Field>>> fieldCache = new WeakCache<>();
-    private final WeakCache<Class<?>, Boolean> classCache = new WeakCache<>();
+    private final WeakCache<Class<?>, SoftReference<ClassShape>> shapeCache = new WeakCache<>();
     private final SizeOfFilter sizeOfFilter;
     private final Visitor visitor;
 
@@ -52,6 +64,14 @@ public class ObjectGraphWalker {
          * @return a long for you to do things with...
          */
         long visit(Object object);
+
+        /**
+         * @return true if the visited value of the instances of a non-array class is the same,
+         * then only the first instance of each class is visited and the value is reused
+         */
+        default boolean isFixedInstanceSize() {
+            return false;
+        }
     }
 
     /**
@@ -69,15 +89,26 @@ public class ObjectGraphWalker {
 
         nullSafeAddArray(toVisit, root);
 
+        Class<?> lastClass = null;
+        ClassShape shape = null;
         while (!toVisit.isEmpty()) {
             Object ref = toVisit.pop();
-            if (!visited.add(ref) || !shouldWalkClass(ref.getClass())) {
+            if (!visited.add(ref)) {
+                continue;
+            }
+            Class<?> refClass = ref.getClass();
+            // siblings are mostly of the same class, e.g. elements of a list
+            if (refClass != lastClass) {
+                shape = getShape(refClass);
+                lastClass = refClass;
+            }
+            if (!shape.walk) {
                 continue;
             }
 
-            walkField(ref, toVisit);
+            shape.pushReferences(ref, toVisit);
 
-            final long visitSize = visitor.visit(ref);
+            final long visitSize = visit(shape, ref);
             if (visitorListener != null) {
                 visitorListener.visited(ref, visitSize);
             }
@@ -90,49 +121,71 @@ public class ObjectGraphWalker {
         return result;
     }
 
-    private void walkField(Object ref, Deque<Object> toVisit) {
-        Class<?> refClass = ref.getClass();
-        if (refClass.isArray() && !refClass.getComponentType().isPrimitive()) {
-            for (int i = 0; i < Array.getLength(ref); i++) {
-                nullSafeAdd(toVisit, Array.get(ref, i));
-            }
-            return;
+    private long visit(ClassShape shape, Object ref) {
+        if (shape.instanceSize >= 0) {
+            return shape.instanceSize;
         }
-        for (Field field : getFilteredFields(refClass)) {
-            try {
-                nullSafeAdd(toVisit, field.get(ref));
-            } catch (IllegalAccessException ex) {
-                throw new RuntimeException(ex);
+        long size = visitor.visit(ref);
+        if (shape.kind != Kind.ARRAY && shape.kind != Kind.LEAF_ARRAY && visitor.isFixedInstanceSize()) {
+            shape.instanceSize = size;
+        }
+        return size;
+    }
+
+    ClassShape getShape(Class<?> refClass) {
+        SoftReference<ClassShape> ref = shapeCache.get(refClass);
+        ClassShape shape = ref != null ? ref.get() : null;
+        if (shape == null) {
+            shape = createShape(refClass);
+            shapeCache.put(refClass, new SoftReference<>(shape));
+        }
+        return shape;
+    }
+
+    private ClassShape createShape(Class<?> refClass) {
+        if (!sizeOfFilter.filterClass(refClass)) {
+            return ClassShape.SKIPPED;
+        }
+        if (refClass.isArray()) {
+            return new ClassShape(refClass.getComponentType().isPrimitive() ? Kind.LEAF_ARRAY : Kind.ARRAY, null);
+        }
+        Collection<Field> allFields = new ArrayList<>();
+        if (!collectFields(refClass, allFields)) {
+            ClassShape elementShape = elementShape(refClass);
+            if (elementShape != null) {
+                return elementShape;
             }
         }
+        Collection<Field> fields = sizeOfFilter.filterFields(refClass, allFields);
+        if (fields == null || fields.isEmpty()) {
+            return new ClassShape(Kind.LEAF, null);
+        }
+        return new ClassShape(Kind.FIELDS, fields.toArray(new Field[0]));
     }
 
     /**
-     * Returns the filtered fields for a particular type
-     *
-     * @param refClass the type
-     * @return A collection of fields to be visited
+     * @return the shape walking the elements if the fields of the class are not accessible, null if not walkable so
      */
-    private Collection<Field> getFilteredFields(Class<?> refClass) {
-        SoftReference<Collection<Field>> ref = fieldCache.get(refClass);
-        Collection<Field> fieldList = ref != null ? ref.get() : null;
-        if (fieldList != null) {
-            return fieldList;
-        } else {
-            Collection<Field> result;
-            result = sizeOfFilter.filterFields(refClass, getAllFields(refClass));
-            fieldCache.put(refClass, new SoftReference<>(result));
-            return result;
+    static ClassShape elementShape(Class<?> refClass) {
+        if (!isElementWalkable(refClass)) {
+            return null;
         }
+        if (Map.class.isAssignableFrom(refClass)) {
+            return new ClassShape(Kind.MAP, null);
+        }
+        if (Collection.class.isAssignableFrom(refClass)) {
+            return new ClassShape(Kind.COLLECTION, null);
+        }
+        return null;
     }
 
-    private boolean shouldWalkClass(Class<?> refClass) {
-        Boolean cached = classCache.get(refClass);
-        if (cached == null) {
-            cached = sizeOfFilter.filterClass(refClass);
-            classCache.put(refClass, cached);
+    private static boolean isElementWalkable(Class<?> refClass) {
+        if (refClass.getClassLoader() != null) {
+            return false;
         }
-        return cached;
+        String name = refClass.getName();
+        return name.startsWith("java.util.") && !name.startsWith("java.util.concurrent.")
+                && !name.startsWith("java.util.WeakHashMap");
     }
 
     private static void nullSafeAddArray(final Deque<Object> toVisit, final Object... root) {
@@ -150,25 +203,104 @@ public class ObjectGraphWalker {
     }
 
     /**
-     * Returns all non-primitive fields for the entire class hierarchy of a type
+     * Collects the accessible non-primitive fields for the entire class hierarchy of a type
      *
      * @param refClass the type
-     * @return all fields for that type
+     * @param fields   the accessible fields for that type
+     * @return false if some of the fields are not accessible
      */
-    private static Collection<Field> getAllFields(Class<?> refClass) {
-        Collection<Field> fields = new ArrayList<>();
+    private static boolean collectFields(Class<?> refClass, Collection<Field> fields) {
+        boolean accessible = true;
         for (Class<?> klazz = refClass; klazz != null; klazz = klazz.getSuperclass()) {
             for (Field field : klazz.getDeclaredFields()) {
                 if (!Modifier.isStatic(field.getModifiers()) && !field.getType().isPrimitive()) {
                     try {
                         field.setAccessible(true);
                     } catch (RuntimeException e) {
+                        accessible = false;
                         continue;
                     }
                     fields.add(field);
                 }
             }
         }
-        return fields;
+        return accessible;
+    }
+
+    enum Kind {
+        SKIPPED, LEAF, LEAF_ARRAY, ARRAY, COLLECTION, MAP, FIELDS
+    }
+
+    static final class ClassShape {
+        private static final ClassShape SKIPPED = new ClassShape(Kind.SKIPPED, null);
+
+        final Kind kind;
+        final boolean walk;
+        private final Field[] referenceFields;
+        /**
+         * the visited size of each instance if it is fixed, otherwise -1
+         */
+        volatile long instanceSize = -1;
+
+        private ClassShape(Kind kind, Field[] referenceFields) {
+            this.kind = kind;
+            this.walk = kind != Kind.SKIPPED;
+            this.referenceFields = referenceFields;
+        }
+
+        void pushReferences(Object ref, Deque<Object> toVisit) {
+            switch (kind) {
+                case ARRAY:
+                    for (Object element : (Object[]) ref) {
+                        nullSafeAdd(toVisit, element);
+                    }
+                    return;
+                case COLLECTION:
+                    pushElements((Collection<?>) ref, toVisit);
+                    return;
+                case MAP:
+                    pushEntries((Map<?, ?>) ref, toVisit);
+                    return;
+                case FIELDS:
+                    pushFields(ref, toVisit);
+                    return;
+                default:
+                    // leaves
+            }
+        }
+
+        private void pushFields(Object ref, Deque<Object> toVisit) {
+            for (Field field : referenceFields) {
+                try {
+                    nullSafeAdd(toVisit, field.get(ref));
+                } catch (IllegalAccessException ex) {
+                    throw new RuntimeException(ex);
+                }
+            }
+        }
+
+        /**
+         * the result may be modified by other threads, stop walking the collection if so
+         */
+        private static void pushElements(Collection<?> collection, Deque<Object> toVisit) {
+            try {
+                for (Object element : collection) {
+                    nullSafeAdd(toVisit, element);
+                }
+            } catch (RuntimeException ignored) {
+                // ConcurrentModificationException, NoSuchElementException
+            }
+        }
+
+        private static void pushEntries(Map<?, ?> map, Deque<Object> toVisit) {
+            try {
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    nullSafeAdd(toVisit, entry.getKey());
+                    nullSafeAdd(toVisit, entry.getValue());
+                }
+            } catch (RuntimeException ignored) {
+                // ConcurrentModificationException, NoSuchElementException
+            }
+        }
     }
 }
@@ -1,6 +1,9 @@
 package io.arex.inst.runtime.context;
 
 import io.arex.agent.bootstrap.TraceContextManager;
+import io.arex.agent.bootstrap.ctx.ArexThreadLocal;
+import io.arex.agent.bootstrap.ctx.CallableWrapper;
+import io.arex.agent.bootstrap.ctx.TraceContext;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -13,6 +16,14 @@ import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
@@ -44,10 +55,10 @@ class ContextManagerTest {
     static Stream<Arguments> currentContextCase() {
         Runnable emptyMocker = () -> {};
         Runnable mocker1 = () -> {
-            Mockito.when(TraceContextManager.get(any(Boolean.class))).thenReturn("mock");
+            Mockito.when(TraceContextManager.current(any(Boolean.class))).thenReturn(new TraceContext("mock"));
         };
         Runnable mocker2 = () -> {
-            Mockito.when(TraceContextManager.get(any(Boolean.class))).thenReturn("mock2");
+            Mockito.when(TraceContextManager.current(any(Boolean.class))).thenReturn(new TraceContext("mock2"));
         };
         Predicate<ArexContext> predicate1 = Objects::isNull;
         Predicate<ArexContext> predicate2 = Objects::nonNull;
@@ -63,10 +74,116 @@ class ContextManagerTest {
     @Test
     void setAttachment() {
         try (MockedStatic<TraceContextManager> traceContextManager = Mockito.mockStatic(TraceContextManager.class)) {
-            Mockito.when(TraceContextManager.get(any(Boolean.class))).thenReturn("record-id");
+            Mockito.when(TraceContextManager.current(any(Boolean.class))).thenReturn(new TraceContext("record-id"));
             ContextManager.currentContext(true, null);
             ContextManager.setAttachment("attachment-key", "attachment-value");
             assertEquals("attachment-value", ContextManager.currentContext().getAttachment("attachment-key"));
         }
     }
+
+    @Test
+    void contextCarriedByTrace() {
+        TraceContext traceContext = new TraceContext("trace-id");
+        try (MockedStatic<TraceContextManager> traceContextManager = Mockito.mockStatic(TraceContextManager.class)) {
+            Mockito.when(TraceContextManager.current(any(Boolean.class))).thenReturn(traceContext);
+            ArexContext context = ContextManager.currentContext(true, null);
+            assertSame(context, traceContext.getContext());
+            assertSame(context, ContextManager.currentContext());
+
+            // trace set by id, the context is resolved from the map once
+            TraceContext redirect = new TraceContext("trace-id");
+            Mockito.when(TraceContextManager.current(any(Boolean.class))).thenReturn(redirect);
+            assertSame(context, ContextManager.currentContext());
+            assertSame(context, redirect.getContext());
+
+            Mockito.when(TraceContextManager.current(any(Boolean.class))).thenReturn(new TraceContext("unknown-id"));
+            assertNull(ContextManager.currentContext());
+        }
+    }
+
+    @Test
+    void asyncTraceAfterRemove() throws Exception {
+        TraceContextManager.init("127.0.0.1");
+        ArexContext context = ContextManager.currentContext(true, null);
+        Object captured = ArexThreadLocal.Transmitter.capture();
+        ContextManager.remove();
+        assertNull(ContextManager.currentContext());
+
+        CompletableFuture.runAsync(() -> {
+            Object backup = ArexThreadLocal.Transmitter.replay(captured);
+            try {
+                // the async task sharing the trace no longer carries the context
+                TraceContext holder = TraceContextManager.current(false);
+                assertTrue(holder.isCompleted());
+                assertNull(holder.getContext());
+                // resolved by id until expired
+                assertSame(context, ContextManager.currentContext());
+                assertNull(holder.getContext());
+            } finally {
+                ArexThreadLocal.Transmitter.restore(backup);
+            }
+        }).get();
+    }
+
+    @Test
+    void expiredContextOnTrace() {
+        ArexContext context = ArexContext.of("expired-id");
+        TraceContext traceContext = new TraceContext("expired-id");
+        traceContext.setContext(context);
+        try (MockedStatic<TraceContextManager> traceContextManager = Mockito.mockStatic(TraceContextManager.class)) {
+            Mockito.when(TraceContextManager.current(any(Boolean.class))).thenReturn(traceContext);
+            assertSame(context, ContextManager.currentContext());
+            context.expire();
+            assertNull(ContextManager.currentContext());
+        }
+    }
+
+    @Test
+    void activeContextCounted() {
+        TraceContext traceContext = new TraceContext("counted-id");
+        try (MockedStatic<TraceContextManager> traceContextManager = Mockito.mockStatic(TraceContextManager.class)) {
+            Mockito.when(TraceContextManager.current(any(Boolean.class))).thenReturn(traceContext);
+            Mockito.when(TraceContextManager.remove()).thenReturn("counted-id");
+            ArexContext context = ContextManager.currentContext(true, null);
+            traceContextManager.verify(TraceContextManager::contextCreated, Mockito.times(1));
+
+            // still counted after the request, until expired
+            ContextManager.remove();
+            traceContextManager.verify(TraceContextManager::contextCompleted, Mockito.never());
+            context.complete();
+            traceContextManager.verify(TraceContextManager::contextCompleted, Mockito.times(1));
+            // completed once
+            context.complete();
+            traceContextManager.verify(TraceContextManager::contextCompleted, Mockito.times(1));
+            // not created by the manager, not counted
+            ArexContext.of("not-counted").complete();
+            traceContextManager.verify(TraceContextManager::contextCompleted, Mockito.times(1));
+        }
+    }
+
+    @Test
+    void wrapTaskSubmittedAfterRemove() throws Exception {
+        TraceContextManager.init("127.0.0.1");
+        ArexContext context = ContextManager.currentContext(true, null);
+        assertNotNull(context);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch removed = new CountDownLatch(1);
+        try {
+            Future<ArexContext> future = executor.submit(CallableWrapper.get(() -> {
+                removed.await();
+                // submitted by the worker after the entry request returned
+                Callable<ArexContext> nested = CallableWrapper.get(ContextManager::currentContext);
+                assertTrue(nested instanceof CallableWrapper);
+                FutureTask<ArexContext> task = new FutureTask<>(nested);
+                new Thread(task).start();
+                return task.get();
+            }));
+            ContextManager.remove();
+            removed.countDown();
+            assertSame(context, future.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+            context.complete();
+        }
+    }
 }
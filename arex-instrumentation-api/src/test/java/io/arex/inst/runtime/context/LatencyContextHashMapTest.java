@@ -1,6 +1,7 @@
 package io.arex.inst.runtime.context;
 
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -37,4 +38,35 @@ class LatencyContextHashMapTest {
         context = RECORD_MAP.get(key2);
         assertEquals(key2, context.getCaseId());
     }
+
+    @Test
+    void overdueCleanUp() {
+        AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+        LatencyContextHashMap map = new LatencyContextHashMap(clock::get);
+        long insertTime = clock.get();
+        ArexContext expired = ArexContext.of("arex-test-expired");
+        map.put("arex-test-expired", expired);
+        expired.setAttachment("key", "value");
+        map.computeIfAbsent("arex-test-replaced", ArexContext::of);
+
+        // the key is put again with a new context later
+        clock.incrementAndGet();
+        ArexContext replaced = ArexContext.of("arex-test-replaced");
+        map.put("arex-test-replaced", replaced);
+        map.putIfAbsent("arex-test-replaced", ArexContext.of("ignored"));
+
+        long now = insertTime + LatencyContextHashMap.RECORD_TTL_MILLIS;
+        map.overdueCleanUp(now - 1);
+        assertEquals(2, map.size());
+
+        clock.set(now);
+        map.remove("arex-test-replaced");
+        assertNull(map.get("arex-test-expired"));
+        assertNull(expired.getAttachment("key"));
+        assertTrue(expired.isExpired());
+        assertSame(replaced, map.get("arex-test-replaced"));
+
+        map.overdueCleanUp(now + 1);
+        assertTrue(map.isEmpty());
+    }
 }
@@ -0,0 +1,96 @@
+package io.arex.inst.runtime.match;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.arex.agent.bootstrap.model.ArexMocker;
+import io.arex.agent.bootstrap.model.MockCategoryType;
+import io.arex.agent.bootstrap.model.Mocker;
+import io.arex.inst.runtime.model.ArexConstants;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class CompactReplayMockerTest {
+
+    @Test
+    void of() {
+        ArexMocker mocker = new ArexMocker(MockCategoryType.DATABASE);
+        mocker.setOperationName("query");
+        mocker.setRecordId("recordId");
+        mocker.setReplayId("replayId");
+        mocker.setCreationTime(1L);
+        mocker.setFuzzyMatchKey(2L);
+        mocker.setAccurateMatchKey(3L);
+        StringBuilder largeBody = new StringBuilder();
+        for (int i = 0; i < CompactReplayMocker.COMPRESS_THRESHOLD; i++) {
+            largeBody.append("{\"名称\":").append(i).append('}');
+        }
+        mocker.setTargetRequest(new Mocker.Target());
+        mocker.setTargetResponse(new Mocker.Target());
+        mocker.getTargetRequest().setBody("select 1");
+        mocker.getTargetRequest().setAttribute(ArexConstants.DB_PARAMETERS, "[1]");
+        mocker.getTargetResponse().setBody(largeBody.toString());
+        mocker.getTargetResponse().setType("java.util.List");
+
+        Map<String, String> stringPool = new HashMap<>();
+        CompactReplayMocker compactMocker = CompactReplayMocker.of(mocker, stringPool);
+        assertSame(compactMocker, CompactReplayMocker.of(compactMocker, stringPool));
+        assertEquals(MockCategoryType.DATABASE, compactMocker.getCategoryType());
+        assertEquals("query", compactMocker.getOperationName());
+        assertEquals("recordId", compactMocker.getRecordId());
+        assertEquals("replayId", compactMocker.getReplayId());
+        assertEquals(1L, compactMocker.getCreationTime());
+        assertEquals(2L, compactMocker.getFuzzyMatchKey());
+        assertEquals(3L, compactMocker.getAccurateMatchKey());
+        assertFalse(compactMocker.isMatched());
+        assertFalse(compactMocker.isNeedMerge());
+
+        // read the request without expanding
+        assertEquals("select 1", compactMocker.requestBody());
+        assertEquals("[1]", compactMocker.requestAttribute(ArexConstants.DB_PARAMETERS));
+        assertEquals(ReplayMockerList.eigenValue(mocker), ReplayMockerList.eigenValue(compactMocker));
+
+        Mocker.Target response = compactMocker.getTargetResponse();
+        assertEquals(largeBody.toString(), response.getBody());
+        assertEquals("java.util.List", response.getType());
+        assertSame(response, compactMocker.getTargetResponse());
+        assertEquals("select 1", compactMocker.getTargetRequest().getBody());
+        assertEquals("select 1", compactMocker.requestBody());
+
+        // strings are shared by the mockers of a case
+        ArexMocker other = new ArexMocker(MockCategoryType.DATABASE);
+        other.setOperationName(new String("query"));
+        assertSame(compactMocker.getOperationName(), CompactReplayMocker.of(other, stringPool).getOperationName());
+    }
+
+    @Test
+    void nullTarget() {
+        ArexMocker mocker = new ArexMocker(MockCategoryType.DYNAMIC_CLASS);
+        CompactReplayMocker compactMocker = CompactReplayMocker.of(mocker, null);
+        assertNull(compactMocker.requestBody());
+        assertNull(compactMocker.requestAttribute("key"));
+        assertNull(compactMocker.getTargetRequest().getBody());
+        assertNull(compactMocker.getTargetResponse().getBody());
+        compactMocker.setMatched(true);
+        assertTrue(compactMocker.isMatched());
+    }
+
+    @Test
+    void requestBodyWhileExpanding() throws Exception {
+        for (int i = 0; i < 200; i++) {
+            ArexMocker mocker = new ArexMocker(MockCategoryType.DATABASE);
+            Mocker.Target request = new Mocker.Target();
+            request.setBody("select " + i);
+            request.setAttribute("key", "value");
+            mocker.setTargetRequest(request);
+            CompactReplayMocker compactMocker = CompactReplayMocker.of(mocker, null);
+            Thread expander = new Thread(compactMocker::getTargetRequest);
+            expander.start();
+            // the body is read from the compact form or the published target, never lost in between
+            assertEquals("select " + i, compactMocker.requestBody());
+            assertEquals("value", compactMocker.requestAttribute("key"));
+            expander.join();
+            assertEquals("select " + i, compactMocker.requestBody());
+        }
+    }
+}
@@ -1,9 +1,18 @@
 package io.arex.inst.runtime.match;
 
+import io.arex.agent.bootstrap.model.ArexMocker;
+import io.arex.agent.bootstrap.model.MockCategoryType;
+import io.arex.agent.bootstrap.model.MockStrategyEnum;
+import io.arex.agent.bootstrap.model.Mocker;
+import io.arex.inst.runtime.model.ArexConstants;
+import io.arex.inst.runtime.model.MatchStrategyEnum;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class EigenMatchStrategyTest {
@@ -18,4 +27,52 @@ class EigenMatchStrategyTest {
     static void tearDown() {
         eigenMatchStrategy = null;
     }
-}
\ No newline at end of file
+
+    @Test
+    void process() {
+        List<Mocker> replayList = new ArrayList<>();
+        replayList.add(mocker("select id, name from user where id = ?", "[1]"));
+        replayList.add(mocker("select id, amount from orders where user_id = ? and status = ?", "[1, \"paid\"]"));
+        replayList.add(mocker("select id, name from user where id = ?", "[2]"));
+        ReplayMockerList indexed = ReplayMockerList.of(replayList);
+
+        Mocker request = mocker("select id, amount from orders where user_id = ? and status = ?", "[1, \"paid\"]");
+        MatchStrategyContext context = new MatchStrategyContext(request, indexed, MockStrategyEnum.OVER_BREAK);
+        eigenMatchStrategy.process(context);
+        assertEquals(MatchStrategyEnum.EIGEN, context.getMatchStrategy());
+        assertSame(indexed.get(1), context.getMatchMocker());
+
+        // the closest one has been matched, the next closest unmatched one
+        request = mocker("select id, name from user where id = ?", "[2]");
+        context = new MatchStrategyContext(request, indexed, MockStrategyEnum.OVER_BREAK);
+        eigenMatchStrategy.process(context);
+        assertSame(indexed.get(2), context.getMatchMocker());
+        context = new MatchStrategyContext(request, indexed, MockStrategyEnum.OVER_BREAK);
+        eigenMatchStrategy.process(context);
+        assertSame(indexed.get(0), context.getMatchMocker());
+
+        // all matched
+        context = new MatchStrategyContext(request, indexed, MockStrategyEnum.OVER_BREAK);
+        eigenMatchStrategy.process(context);
+        assertNull(context.getMatchMocker());
+        assertNotNull(context.getReason());
+
+        context = new MatchStrategyContext(request, indexed, MockStrategyEnum.FIND_LAST);
+        eigenMatchStrategy.process(context);
+        assertSame(indexed.get(2), context.getMatchMocker());
+    }
+
+    @Test
+    void internalCheck() {
+        MatchStrategyContext context = new MatchStrategyContext(new ArexMocker(), new ArrayList<>(), MockStrategyEnum.FIND_LAST);
+        assertFalse(eigenMatchStrategy.internalCheck(context));
+    }
+
+    private static Mocker mocker(String sql, String parameters) {
+        ArexMocker mocker = new ArexMocker(MockCategoryType.DATABASE);
+        mocker.setTargetRequest(new Mocker.Target());
+        mocker.getTargetRequest().setBody(sql);
+        mocker.getTargetRequest().setAttribute(ArexConstants.DB_PARAMETERS, parameters);
+        return mocker;
+    }
+}
@@ -11,6 +11,7 @@ import io.arex.inst.runtime.util.MockUtils;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 
 import java.util.*;
@@ -26,7 +27,6 @@ class ReplayMatcherTest {
         Mockito.mockStatic(ContextManager.class);
         Mockito.mockStatic(Config.class);
         Mockito.when(Config.get()).thenReturn(Mockito.mock(Config.class));
-        Mockito.mockStatic(MatchStrategyRegister.class);
     }
 
     @AfterAll
@@ -36,25 +36,79 @@ class ReplayMatcherTest {
 
     @Test
     void match() {
+        try (MockedStatic<MatchStrategyRegister> ignored = Mockito.mockStatic(MatchStrategyRegister.class)) {
+            matchWithMockedStrategies();
+        }
+    }
+
+    private void matchWithMockedStrategies() {
         ArexMocker requestMocker = new ArexMocker(MockCategoryType.DYNAMIC_CLASS);
         requestMocker.setOperationName("mock");
         requestMocker.setTargetRequest(new Mocker.Target());
         requestMocker.setTargetResponse(new Mocker.Target());
         ArexContext context = Mockito.mock(ArexContext.class);
         Mockito.when(ContextManager.currentContext()).thenReturn(context);
-        Map<Integer, List<Mocker>> cachedReplayResultMap = new HashMap<>();
+        Map<Long, List<Mocker>> cachedReplayResultMap = new HashMap<>();
         Mockito.when(context.getCachedReplayResultMap()).thenReturn(cachedReplayResultMap);
         assertNull(ReplayMatcher.match(requestMocker, MockStrategyEnum.FIND_LAST));
 
-        Mockito.when(MockUtils.methodRequestTypeHash(requestMocker)).thenReturn(1);
+        Mockito.when(MockUtils.methodRequestTypeHash(Mockito.eq(requestMocker), Mockito.anyInt())).thenReturn(1L);
         List<Mocker> mergeReplayList = new ArrayList<>();
         mergeReplayList.add(new ArexMocker());
-        cachedReplayResultMap.put(1, mergeReplayList);
+        cachedReplayResultMap.put(1L, mergeReplayList);
         Mockito.when(MatchStrategyRegister.getMatchStrategies(any())).thenReturn(Collections.singletonList(new AccurateMatchStrategy()));
         Mockito.when(Config.get().isEnableDebug()).thenReturn(true);
         assertNull(ReplayMatcher.match(requestMocker, MockStrategyEnum.FIND_LAST));
         // match no result, not exist this method signature
-        Mockito.when(MockUtils.methodRequestTypeHash(requestMocker)).thenReturn(2);
+        Mockito.when(MockUtils.methodRequestTypeHash(Mockito.eq(requestMocker), Mockito.anyInt())).thenReturn(2L);
         assertNull(ReplayMatcher.match(requestMocker, MockStrategyEnum.FIND_LAST));
     }
+
+    @Test
+    void matchCached() {
+        try (MockedStatic<MatchStrategyRegister> ignored = Mockito.mockStatic(MatchStrategyRegister.class)) {
+            Mockito.when(MatchStrategyRegister.getMatchStrategies(any())).thenReturn(Collections.singletonList(new FuzzyMatchStrategy()));
+            matchCachedWithMockedStrategies();
+        }
+    }
+
+    private void matchCachedWithMockedStrategies() {
+        ArexMocker requestMocker = new ArexMocker(MockCategoryType.DYNAMIC_CLASS);
+        requestMocker.setOperationName("mock");
+        requestMocker.setTargetRequest(new Mocker.Target());
+        requestMocker.setTargetResponse(new Mocker.Target());
+        // no context
+        Mockito.when(ContextManager.currentContext()).thenReturn(null);
+        assertNull(ReplayMatcher.matchCached(requestMocker, MockStrategyEnum.OVER_BREAK));
+
+        ArexContext context = ArexContext.of("mock", "mock");
+        Mockito.when(ContextManager.currentContext()).thenReturn(context);
+        Mockito.when(MockUtils.methodRequestTypeHash(Mockito.eq(requestMocker), Mockito.anyInt())).thenReturn(3L);
+        assertNull(ReplayMatcher.matchCached(requestMocker, MockStrategyEnum.OVER_BREAK));
+
+        ArexMocker recordMocker = new ArexMocker(MockCategoryType.DYNAMIC_CLASS);
+        recordMocker.setTargetRequest(new Mocker.Target());
+        recordMocker.setTargetResponse(new Mocker.Target());
+        context.getCachedReplayResultMap().put(3L, new ArrayList<>(Collections.singletonList(recordMocker)));
+        assertSame(recordMocker, ReplayMatcher.matchCached(requestMocker, MockStrategyEnum.OVER_BREAK));
+    }
+
+    @Test
+    void matchCachedWithoutRegisteredStrategies() {
+        // categories without local strategies are cached too, they must fall back to the remote query
+        ArexMocker requestMocker = new ArexMocker(MockCategoryType.HTTP_CLIENT);
+        requestMocker.setOperationName("mock");
+        requestMocker.setTargetRequest(new Mocker.Target());
+        requestMocker.setTargetResponse(new Mocker.Target());
+        ArexContext context = ArexContext.of("mock", "mock");
+        Mockito.when(ContextManager.currentContext()).thenReturn(context);
+        Mockito.when(MockUtils.methodRequestTypeHash(Mockito.eq(requestMocker), Mockito.anyInt())).thenReturn(4L);
+        ArexMocker recordMocker = new ArexMocker(MockCategoryType.HTTP_CLIENT);
+        recordMocker.setTargetRequest(new Mocker.Target());
+        recordMocker.setTargetResponse(new Mocker.Target());
+        context.getCachedReplayResultMap().put(4L, new ArrayList<>(Collections.singletonList(recordMocker)));
+
+        assertNull(ReplayMatcher.matchCached(requestMocker, MockStrategyEnum.OVER_BREAK));
+        assertNull(ReplayMatcher.match(requestMocker, MockStrategyEnum.OVER_BREAK));
+    }
 }
@@ -0,0 +1,51 @@
+package io.arex.inst.runtime.match;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.arex.agent.bootstrap.model.ArexMocker;
+import io.arex.agent.bootstrap.model.Mocker;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ReplayMockerListTest {
+
+    @Test
+    void of() {
+        ReplayMockerList replayList = new ReplayMockerList();
+        assertSame(replayList, ReplayMockerList.of(replayList));
+        List<Mocker> list = new ArrayList<>();
+        list.add(new ArexMocker());
+        assertEquals(list, ReplayMockerList.of(list));
+    }
+
+    @Test
+    void accurateMatchAndClaim() {
+        ReplayMockerList replayList = new ReplayMockerList();
+        replayList.add(mocker(1));
+        replayList.add(mocker(2));
+        replayList.add(mocker(1));
+        replayList.add(mocker(2));
+
+        assertNull(replayList.accurateMatch(3));
+        ReplayMockerList group = replayList.accurateMatch(2);
+        assertEquals(2, group.size());
+        assertSame(replayList.get(1), group.get(0));
+        assertSame(replayList.get(3), group.last());
+
+        // claimed through the group is skipped by the whole list
+        assertSame(replayList.get(1), group.claimNext());
+        assertSame(replayList.get(0), replayList.claimNext());
+        assertSame(replayList.get(2), replayList.claimNext());
+        assertSame(replayList.get(3), replayList.claimNext());
+        assertNull(replayList.claimNext());
+        assertNull(group.claimNext());
+        assertTrue(replayList.get(3).isMatched());
+    }
+
+    private static Mocker mocker(int accurateMatchKey) {
+        ArexMocker mocker = new ArexMocker();
+        mocker.setAccurateMatchKey(accurateMatchKey);
+        return mocker;
+    }
+}
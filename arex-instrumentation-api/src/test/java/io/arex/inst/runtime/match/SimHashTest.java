@@ -0,0 +1,21 @@
+package io.arex.inst.runtime.match;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class SimHashTest {
+
+    @Test
+    void of() {
+        assertEquals(0, SimHash.of());
+        assertEquals(0, SimHash.of((CharSequence) null));
+        assertEquals(SimHash.of("SELECT * FROM user"), SimHash.of("select *  from USER"));
+
+        long sql = SimHash.of("select id, name, age from user where id = ? and status = ?", "[1, 2]");
+        long similar = SimHash.of("select id, name, age from user where id = ? and status = ?", "[1, 3]");
+        long different = SimHash.of("update orders set amount = ? where order_id = ?", "[100, 7]");
+        assertTrue(SimHash.distance(sql, similar) < SimHash.distance(sql, different));
+        assertEquals(0, SimHash.distance(sql, sql));
+    }
+}
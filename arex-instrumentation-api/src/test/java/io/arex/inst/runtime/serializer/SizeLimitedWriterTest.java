@@ -0,0 +1,35 @@
+package io.arex.inst.runtime.serializer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class SizeLimitedWriterTest {
+
+    @Test
+    void write() throws Exception {
+        SizeLimitedWriter writer = new SizeLimitedWriter(6);
+        writer.write('a');
+        writer.write("bcx", 0, 2);
+        writer.write(new char[]{'d', 'e'}, 0, 2);
+        writer.append('f');
+        assertEquals("abcdef", writer.toString());
+        assertEquals(6, writer.length());
+        assertFalse(writer.isExceeded());
+
+        assertThrows(SizeLimitExceededException.class, () -> writer.append("g"));
+        assertTrue(writer.isExceeded());
+        // aborted, the following writes fail fast
+        assertThrows(SizeLimitExceededException.class, () -> writer.write(""));
+        assertEquals("abcdef", writer.toString());
+    }
+
+    @Test
+    void appendNull() throws Exception {
+        SizeLimitedWriter writer = new SizeLimitedWriter(8);
+        writer.append(null);
+        writer.append(null, 0, 2);
+        writer.close();
+        assertEquals("nullnu", writer.toString());
+    }
+}
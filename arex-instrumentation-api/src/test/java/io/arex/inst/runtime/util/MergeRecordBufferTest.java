@@ -0,0 +1,97 @@
+package io.arex.inst.runtime.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.arex.agent.bootstrap.model.ArexMocker;
+import io.arex.agent.bootstrap.model.MockCategoryType;
+import io.arex.agent.bootstrap.model.Mocker;
+import io.arex.inst.runtime.log.LogManager;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+
+class MergeRecordBufferTest {
+
+    @Test
+    void flushByCount() {
+        MergeRecordBuffer buffer = new MergeRecordBuffer(20, Long.MAX_VALUE);
+        for (int i = 1; i < 20; i++) {
+            assertTrue(buffer.append(mocker("request", "response")).isEmpty());
+            assertEquals(i, buffer.size());
+        }
+        List<List<Mocker>> batches = buffer.append(mocker("request", "response"));
+        assertEquals(1, batches.size());
+        assertEquals(20, batches.get(0).size());
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    void flushBySize() {
+        Mocker small = mocker("request", "response");
+        long smallSize = MergeRecordBuffer.estimateSize(small);
+        MergeRecordBuffer buffer = new MergeRecordBuffer(10, smallSize * 2 + 1);
+        assertTrue(buffer.append(small).isEmpty());
+        assertTrue(buffer.append(small).isEmpty());
+
+        // flush the buffered ones before exceeding the size
+        List<List<Mocker>> batches = buffer.append(small);
+        assertEquals(1, batches.size());
+        assertEquals(2, batches.get(0).size());
+        assertEquals(1, buffer.size());
+
+        // larger than the threshold alone, flushed as a single batch
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < smallSize * 2; i++) {
+            body.append('a');
+        }
+        try (MockedStatic<LogManager> logManager = Mockito.mockStatic(LogManager.class)) {
+            batches = buffer.append(mocker(body.toString(), null));
+            logManager.verify(() -> LogManager.warn(Mockito.eq("merge.record.size.too.large"), Mockito.anyString()));
+        }
+        assertEquals(2, batches.size());
+        assertEquals(1, batches.get(0).size());
+        assertEquals(1, batches.get(1).size());
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    void drainAndClear() {
+        MergeRecordBuffer buffer = new MergeRecordBuffer(0, Long.MAX_VALUE);
+        assertTrue(buffer.drain().isEmpty());
+        // threshold at least one
+        assertEquals(1, buffer.append(new ArexMocker()).size());
+
+        buffer = new MergeRecordBuffer(10, Long.MAX_VALUE);
+        buffer.append(mocker("request", "response"));
+        buffer.append(mocker("request", "response"));
+        assertEquals(2, buffer.drain().size());
+        buffer.append(mocker("request", "response"));
+        buffer.clear();
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    void estimateSize() {
+        assertEquals(0, MergeRecordBuffer.estimateSize(null));
+        assertEquals(MergeRecordBuffer.MOCKER_OVERHEAD_BYTES, MergeRecordBuffer.estimateSize(new ArexMocker()));
+        Mocker mocker = mocker("request", "response");
+        mocker.getTargetRequest().setAttribute("key", "value");
+        mocker.getTargetRequest().setAttribute("number", 1);
+        assertEquals(MergeRecordBuffer.MOCKER_OVERHEAD_BYTES + 4 + 7 + 8 + 8 + 3 + 5 + 8 + 6 + 8,
+                MergeRecordBuffer.estimateSize(mocker));
+        // UTF-8 bytes, not chars
+        assertEquals(MergeRecordBuffer.MOCKER_OVERHEAD_BYTES + 4 + 6 + 4,
+                MergeRecordBuffer.estimateSize(mocker("\u6570\u636e", "\ud83d\ude00")));
+    }
+
+    private static Mocker mocker(String request, String response) {
+        ArexMocker mocker = new ArexMocker(MockCategoryType.DYNAMIC_CLASS);
+        mocker.setOperationName("mock");
+        mocker.setTargetRequest(new Mocker.Target());
+        mocker.setTargetResponse(new Mocker.Target());
+        mocker.getTargetRequest().setBody(request);
+        mocker.getTargetResponse().setBody(response);
+        return mocker;
+    }
+}
@@ -8,11 +8,9 @@ import io.arex.inst.runtime.config.Config;
 import io.arex.inst.runtime.context.ArexContext;
 import io.arex.inst.runtime.context.ContextManager;
 import io.arex.inst.runtime.model.ArexConstants;
-import io.arex.inst.runtime.model.MergeDTO;
-import io.arex.inst.runtime.serializer.Serializer;
-import io.arex.inst.runtime.util.sizeof.AgentSizeOf;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
@@ -22,7 +20,6 @@ import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.*;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
@@ -30,21 +27,16 @@ import java.util.stream.Stream;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.params.provider.Arguments.arguments;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.times;
 
 @ExtendWith(MockitoExtension.class)
 class MergeRecordUtilTest {
     static MockedStatic<MockUtils> mockUtils;
-    static AgentSizeOf agentSizeOf;
     static ArexMocker requestMocker;
 
     @BeforeAll
     static void setUp() {
-        agentSizeOf = Mockito.mock(AgentSizeOf.class);
-        Mockito.mockStatic(AgentSizeOf.class);
-        Mockito.when(AgentSizeOf.newInstance()).thenReturn(agentSizeOf);
         mockUtils = Mockito.mockStatic(MockUtils.class);
         Mockito.mockStatic(ContextManager.class);
         Mockito.mockStatic(Config.class);
@@ -54,13 +46,11 @@ class MergeRecordUtilTest {
         requestMocker.setTargetRequest(new Mocker.Target());
         requestMocker.setTargetResponse(new Mocker.Target());
         Mockito.when(MockUtils.create(any(), any())).thenReturn(requestMocker);
-        Mockito.mockStatic(Serializer.class);
     }
 
     @AfterAll
     static void tearDown() {
         mockUtils = null;
-        agentSizeOf = null;
         requestMocker = null;
         Mockito.clearAllCaches();
     }
@@ -76,32 +66,12 @@ class MergeRecordUtilTest {
     static Stream<Arguments> mergeRecordCase() {
         Runnable emptyMocker = () -> {};
         ArexContext context = Mockito.mock(ArexContext.class);
-        LinkedBlockingQueue<Mocker> mergeRecordQueue = new LinkedBlockingQueue<>(1);
+        MergeRecordBuffer mergeRecordBuffer = new MergeRecordBuffer(2, ArexConstants.MEMORY_SIZE_5MB);
         Runnable mocker1 = () -> {
-            mergeRecordQueue.offer(new ArexMocker());
-            Mockito.when(context.getMergeRecordQueue()).thenReturn(mergeRecordQueue);
+            Mockito.when(context.getMergeRecordBuffer()).thenReturn(mergeRecordBuffer);
             Mockito.when(ContextManager.currentContext()).thenReturn(context);
         };
-        Runnable mocker2 = () -> {
-            mergeRecordQueue.poll();
-            Mockito.when(Config.get().getInt(ArexConstants.MERGE_RECORD_THRESHOLD, ArexConstants.MERGE_RECORD_THRESHOLD_DEFAULT))
-                    .thenReturn(ArexConstants.MERGE_RECORD_THRESHOLD_DEFAULT);
-        };
-        Runnable mocker3 = () -> {
-            mergeRecordQueue.poll();
-            Mockito.when(Config.get().getInt(ArexConstants.MERGE_RECORD_THRESHOLD, ArexConstants.MERGE_RECORD_THRESHOLD_DEFAULT))
-                    .thenReturn(0);
-        };
-        Runnable mocker4 = () -> {
-            mergeRecordQueue.poll();
-            Mockito.when(Config.get().getInt(ArexConstants.MERGE_RECORD_THRESHOLD, ArexConstants.MERGE_RECORD_THRESHOLD_DEFAULT))
-                    .thenReturn(1);
-            Mockito.when(agentSizeOf.checkMemorySizeLimit(any(), any(long.class))).thenReturn(true);
-        };
-        Runnable mocker5 = () -> {
-            mergeRecordQueue.poll();
-            Mockito.when(agentSizeOf.checkMemorySizeLimit(any(), any(long.class))).thenReturn(false);
-        };
+        Runnable mocker2 = () -> {};
         Assert asserts1 = () -> {
             mockUtils.verify(() -> MockUtils.executeRecord(any()), times(0));
         };
@@ -111,13 +81,20 @@ class MergeRecordUtilTest {
         return Stream.of(
                 arguments(emptyMocker, requestMocker, asserts1),
                 arguments(mocker1, requestMocker, asserts1),
-                arguments(mocker2, requestMocker, asserts1),
-                arguments(mocker3, requestMocker, asserts1),
-                arguments(mocker4, requestMocker, asserts2),
-                arguments(mocker5, requestMocker, asserts2)
+                arguments(mocker2, requestMocker, asserts2)
         );
     }
 
+    @Test
+    void createBuffer() {
+        Mockito.when(Config.get().getInt(ArexConstants.MERGE_RECORD_THRESHOLD, ArexConstants.MERGE_RECORD_THRESHOLD_DEFAULT))
+                .thenReturn(3);
+        MergeRecordBuffer buffer = MergeRecordUtil.createBuffer();
+        assertTrue(buffer.append(new ArexMocker()).isEmpty());
+        assertTrue(buffer.append(new ArexMocker()).isEmpty());
+        assertEquals(3, buffer.append(new ArexMocker()).get(0).size());
+    }
+
     @ParameterizedTest
     @MethodSource("recordRemainCase")
     void recordRemain(ArexContext context, Predicate<ArexContext> asserts) {
@@ -129,7 +106,7 @@ class MergeRecordUtilTest {
         Supplier<ArexContext> contextSupplier1 = () -> ArexContext.of("mock");
         Supplier<ArexContext> contextSupplier2 = () -> {
             ArexContext arexContext = contextSupplier1.get();
-            arexContext.getMergeRecordQueue().offer(new ArexMocker());
+            arexContext.getMergeRecordBuffer().append(new ArexMocker());
             return arexContext;
         };
 
@@ -14,6 +14,7 @@ import io.arex.inst.runtime.context.ContextManager;
 import io.arex.inst.runtime.listener.EventProcessorTest.TestGsonSerializer;
 import io.arex.inst.runtime.listener.EventProcessorTest.TestJacksonSerializable;
 import io.arex.inst.runtime.match.ReplayMatcher;
+import io.arex.agent.bootstrap.util.StringUtil;
 import io.arex.inst.runtime.model.ArexConstants;
 import io.arex.inst.runtime.model.QueryAllMockerDTO;
 import io.arex.inst.runtime.serializer.Serializer;
@@ -23,6 +24,7 @@ import io.arex.inst.runtime.service.DataService;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
@@ -115,6 +117,14 @@ class MockUtilsTest {
         ArexMocker configFile = MockUtils.createConfigFile("test");
         assertNotNull(MockUtils.replayBody(configFile));
 
+        // served from the cached replay result
+        Mockito.when(CaseManager.isInvalidCase("mock-replay-id")).thenReturn(false);
+        Mockito.when(ContextManager.currentContext()).thenReturn(ArexContext.of("mock-trace-id", "mock-replay-id"));
+        ArexMocker cachedMocker = MockUtils.createDynamicClass("test", "test");
+        Mockito.when(ReplayMatcher.matchCached(any(), any())).thenReturn(cachedMocker);
+        assertSame(cachedMocker, MockUtils.replayMocker(MockUtils.createDynamicClass("test", "test")));
+        Mockito.when(ReplayMatcher.matchCached(any(), any())).thenReturn(null);
+
         // merge case
         configFile.setNeedMerge(true);
         Mockito.when(ReplayMatcher.match(any(), any())).thenReturn(configFile);
@@ -194,7 +204,11 @@ class MockUtilsTest {
         ArexMocker mocker = new ArexMocker();
         mocker.setTargetRequest(new Mocker.Target());
         mocker.getTargetRequest().setBody("mock");
-        assertTrue(MockUtils.methodSignatureHash(mocker) > 0);
+        assertNotEquals(0, MockUtils.methodSignatureHash(mocker));
+        assertEquals(StringUtil.hash64(null, "mock"), MockUtils.methodSignatureHash(mocker));
+        // compatible with the keys stored by legacy version
+        assertEquals(StringUtil.encodeAndHash("null_mock"),
+                MockUtils.methodSignatureHash(mocker, ArexConstants.LEGACY_MATCH_KEY_HASH_VERSION));
     }
 
     @Test
@@ -202,7 +216,9 @@ class MockUtilsTest {
         ArexMocker mocker = new ArexMocker(MockCategoryType.DYNAMIC_CLASS);
         mocker.setTargetRequest(new Mocker.Target());
         mocker.getTargetRequest().setBody("mock");
-        assertTrue(MockUtils.methodRequestTypeHash(mocker) > 0);
+        assertNotEquals(0, MockUtils.methodRequestTypeHash(mocker));
+        assertEquals(StringUtil.encodeAndHash("DynamicClass_null_null"),
+                MockUtils.methodRequestTypeHash(mocker, ArexConstants.LEGACY_MATCH_KEY_HASH_VERSION));
     }
 
     @Test
@@ -210,11 +226,20 @@ class MockUtilsTest {
         QueryAllMockerDTO requestMocker = new QueryAllMockerDTO();
         requestMocker.setRecordId("mock");
         requestMocker.setReplayId("mock");
-        MockUtils.queryMockers(requestMocker);
+        Mockito.when(dataCollector.queryAllAsync(any())).thenReturn(CompletableFuture.completedFuture(null));
+        assertNull(MockUtils.queryMockers(requestMocker));
+
+        // not wait for the response
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        Mockito.when(dataCollector.queryAllAsync(any())).thenReturn(pending);
+        CompletableFuture<String> future = MockUtils.queryMockersAsync(requestMocker);
+        assertFalse(future.isDone());
 
         String responseJson = "{\"categoryType\":{\"name\":\"DynamicClass\"},\"recordId\":\"mock\"," +
                 "\"operationName\":\"java.lang.System.currentTimeMillis\"}";
-        Mockito.when(dataCollector.queryAll(any())).thenReturn(responseJson);
-        MockUtils.queryMockers(requestMocker);
+        pending.complete("[" + responseJson + "]");
+        List<Mocker> mockers = MockUtils.toMockers(future.join());
+        assertEquals(1, mockers.size());
+        assertEquals("java.lang.System.currentTimeMillis", mockers.get(0).getOperationName());
     }
 }
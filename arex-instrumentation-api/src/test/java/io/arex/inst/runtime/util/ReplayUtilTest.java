@@ -4,20 +4,25 @@ import io.arex.agent.bootstrap.model.ArexMocker;
 import io.arex.agent.bootstrap.model.MockCategoryType;
 import io.arex.agent.bootstrap.model.Mocker;
 import io.arex.agent.bootstrap.util.CollectionUtil;
+import io.arex.agent.bootstrap.util.StringUtil;
 import io.arex.inst.runtime.config.Config;
 import io.arex.inst.runtime.context.ArexContext;
 import io.arex.inst.runtime.context.ContextManager;
 import io.arex.inst.runtime.model.ArexConstants;
 import io.arex.inst.runtime.model.MergeDTO;
 import io.arex.inst.runtime.serializer.Serializer;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.Mockito;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -53,6 +58,95 @@ class ReplayUtilTest {
     void replayAllMocker(Runnable mocker) {
         mocker.run();
         assertDoesNotThrow(ReplayUtil::queryMockers);
+        ArexContext context = ContextManager.currentContext();
+        if (context != null) {
+            assertDoesNotThrow(() -> ReplayUtil.cachedReplayResult(context));
+            assertNull(context.getReplayMockersFuture());
+        }
+    }
+
+    @Test
+    void cachedReplayResult() {
+        ArexContext context = ArexContext.of("mock", "mock");
+        // not queried
+        assertTrue(ReplayUtil.cachedReplayResult(context).isEmpty());
+
+        ArexMocker recordMocker = new ArexMocker(MockCategoryType.DYNAMIC_CLASS);
+        recordMocker.setOperationName("mock");
+        recordMocker.setFuzzyMatchKey(1);
+        recordMocker.setAccurateMatchKey(2);
+        CompletableFuture<String> future = new CompletableFuture<>();
+        context.setReplayMockersFuture(future);
+        Mockito.when(MockUtils.toMockers("data")).thenReturn(CollectionUtil.newArrayList(recordMocker));
+        future.complete("data");
+        assertEquals(1, ReplayUtil.cachedReplayResult(context).get(1L).size());
+        assertNull(context.getReplayMockersFuture());
+
+        // query failed
+        future = new CompletableFuture<>();
+        future.completeExceptionally(new RuntimeException("mock exception"));
+        context.setReplayMockersFuture(future);
+        assertEquals(1, ReplayUtil.cachedReplayResult(context).size());
+        assertNull(context.getReplayMockersFuture());
+    }
+
+    @Test
+    void waitWithoutLock() throws Exception {
+        ArexContext context = ArexContext.of("concurrent", "concurrent");
+        CompletableFuture<String> future = new CompletableFuture<>();
+        context.setReplayMockersFuture(future);
+
+        // the threads of the request wait for the query without holding the lock
+        List<CompletableFuture<Map<Long, List<Mocker>>>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            results.add(CompletableFuture.supplyAsync(() -> ReplayUtil.cachedReplayResult(context)));
+        }
+        Thread.sleep(50);
+        assertFalse(context.getReplayMockersLock().isLocked());
+        assertSame(future, context.getReplayMockersFuture());
+        future.complete(null);
+        for (CompletableFuture<Map<Long, List<Mocker>>> result : results) {
+            assertNotNull(result.get());
+        }
+        assertNull(context.getReplayMockersFuture());
+    }
+
+    @Test
+    void legacyMergeRecord() throws Exception {
+        String category = MockCategoryType.DYNAMIC_CLASS.getName();
+        long legacyRequestTypeHash = StringUtil.encodeAndHash(String.format("%s_%s_%s", category, "legacy", null));
+        long legacySignatureHash = StringUtil.encodeAndHash(String.format("%s_%s", "legacy", "request"));
+        // stored before the match keys are 64 bit, no hashVersion
+        String json = "[{\"category\":\"" + category + "\",\"operationName\":\"legacy\",\"request\":\"request\","
+                + "\"recordId\":\"legacy\",\"methodSignatureHash\":" + legacySignatureHash
+                + ",\"methodRequestTypeHash\":" + legacyRequestTypeHash + ",\"creationTime\":1,\"response\":\"response\"}]";
+        List<MergeDTO> mergeDTOList = new ObjectMapper().readValue(json, new TypeReference<ArrayList<MergeDTO>>() {});
+        assertEquals(ArexConstants.LEGACY_MATCH_KEY_HASH_VERSION, mergeDTOList.get(0).getHashVersion());
+
+        ArexMocker mergeMocker = new ArexMocker(MockCategoryType.DYNAMIC_CLASS);
+        mergeMocker.setOperationName(ArexConstants.MERGE_RECORD_NAME);
+        mergeMocker.setTargetRequest(new Mocker.Target());
+        mergeMocker.setTargetResponse(new Mocker.Target());
+        mergeMocker.getTargetResponse().setBody(json);
+        Mockito.when(Serializer.deserialize(json, ArexConstants.MERGE_TYPE)).thenReturn(mergeDTOList);
+        Mockito.when(MockUtils.toMockers("legacy")).thenReturn(CollectionUtil.newArrayList(mergeMocker));
+        ArexContext context = ArexContext.of("legacy", "legacy");
+        context.setReplayMockersFuture(CompletableFuture.completedFuture("legacy"));
+
+        Map<Long, List<Mocker>> cachedReplayResult = ReplayUtil.cachedReplayResult(context);
+        assertEquals(ArexConstants.LEGACY_MATCH_KEY_HASH_VERSION, context.getMatchKeyHashVersion());
+
+        // the request of the replayed call is hashed by the version of the case
+        ArexMocker request = new ArexMocker(MockCategoryType.DYNAMIC_CLASS);
+        request.setOperationName("legacy");
+        request.setTargetRequest(new Mocker.Target());
+        request.getTargetRequest().setBody("request");
+        Mockito.when(MockUtils.methodRequestTypeHash(any(), Mockito.anyInt())).thenCallRealMethod();
+        Mockito.when(MockUtils.methodSignatureHash(any(), Mockito.anyInt())).thenCallRealMethod();
+        int hashVersion = context.getMatchKeyHashVersion();
+        List<Mocker> replayList = cachedReplayResult.get(MockUtils.methodRequestTypeHash(request, hashVersion));
+        assertEquals(1, replayList.size());
+        assertEquals(MockUtils.methodSignatureHash(request, hashVersion), replayList.get(0).getAccurateMatchKey());
     }
 
     static Stream<Arguments> replayAllMockerCase() {
@@ -78,11 +172,9 @@ class ReplayUtilTest {
         Runnable emptyMocker = () -> {};
         Runnable mocker1 = () -> {
             Mockito.when(ContextManager.needReplay()).thenReturn(true);
-            ArexContext context = Mockito.mock(ArexContext.class);
-            Mockito.when(ContextManager.currentContext()).thenReturn(context);
-            Map<Integer, List<Mocker>> cachedReplayResultMap = new HashMap<>();
-            Mockito.when(context.getCachedReplayResultMap()).thenReturn(cachedReplayResultMap);
-            Mockito.when(MockUtils.queryMockers(any())).thenReturn(CollectionUtil.newArrayList(recordMocker1, recordMocker2));
+            Mockito.when(ContextManager.currentContext()).thenReturn(ArexContext.of("mock", "mock"));
+            Mockito.when(MockUtils.queryMockersAsync(any())).thenReturn(CompletableFuture.completedFuture("mock"));
+            Mockito.when(MockUtils.toMockers("mock")).thenReturn(CollectionUtil.newArrayList(recordMocker1, recordMocker2));
             Mockito.when(Serializer.deserialize("mock", ArexConstants.MERGE_TYPE))
                     .thenReturn(CollectionUtil.newArrayList(mergeDTO));
         };
@@ -5,9 +5,18 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import java.lang.reflect.Field;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 
 class ObjectGraphWalkerTest {
@@ -45,7 +54,77 @@ class ObjectGraphWalkerTest {
         caller.walk(visitorListener, 1,  new Object[]{new TestWalker[]{new TestWalker()}});
     }
 
+    @Test
+    void walkByShape() {
+        ObjectGraphWalker walker = new ObjectGraphWalker(object -> 1, ThrowableFilter.INSTANCE);
+        List<Object> list = new ArrayList<>();
+        list.add(new TestWalker("a"));
+        list.add(new int[2]);
+        list.add(new RuntimeException());
+        Map<String, Object> map = new HashMap<>();
+        map.put("key", new Object[]{list, null});
+        // map, key, Object[], list, TestWalker, name, int[], the exception and the strings' internals are excluded
+        long size = walker.walk(null, 0, map);
+        assertTrue(size >= 7);
+        assertEquals(size, walker.walk(null, 0, map, list));
+
+        assertEquals(ObjectGraphWalker.Kind.ARRAY, walker.getShape(Object[].class).kind);
+        assertEquals(ObjectGraphWalker.Kind.LEAF_ARRAY, walker.getShape(int[].class).kind);
+        assertEquals(ObjectGraphWalker.Kind.LEAF, walker.getShape(Integer.class).kind);
+        assertEquals(ObjectGraphWalker.Kind.FIELDS, walker.getShape(TestWalker.class).kind);
+        assertFalse(walker.getShape(RuntimeException.class).walk);
+        assertSame(walker.getShape(TestWalker.class), walker.getShape(TestWalker.class));
+    }
+
+    @Test
+    void elementShape() {
+        // the fallback if the fields are not accessible, independent of the jdk version and add-opens
+        assertEquals(ObjectGraphWalker.Kind.MAP, ObjectGraphWalker.elementShape(HashMap.class).kind);
+        assertEquals(ObjectGraphWalker.Kind.COLLECTION, ObjectGraphWalker.elementShape(ArrayList.class).kind);
+        // iterating takes the locks or expunges the entries
+        assertNull(ObjectGraphWalker.elementShape(ArrayBlockingQueue.class));
+        assertNull(ObjectGraphWalker.elementShape(WeakHashMap.class));
+        assertNull(ObjectGraphWalker.elementShape(TestWalker.class));
+        assertNull(ObjectGraphWalker.elementShape(Integer.class));
+
+        Map<String, Object> map = new HashMap<>();
+        map.put("key", "value");
+        Deque<Object> toVisit = new ArrayDeque<>();
+        ObjectGraphWalker.elementShape(HashMap.class).pushReferences(map, toVisit);
+        assertEquals(2, toVisit.size());
+        assertTrue(toVisit.contains("key") && toVisit.contains("value"));
+    }
+
+    @Test
+    void fixedInstanceSize() {
+        AtomicInteger visits = new AtomicInteger();
+        ObjectGraphWalker walker = new ObjectGraphWalker(new ObjectGraphWalker.Visitor() {
+            @Override
+            public long visit(Object object) {
+                visits.incrementAndGet();
+                return object instanceof Object[] ? ((Object[]) object).length : 10;
+            }
+
+            @Override
+            public boolean isFixedInstanceSize() {
+                return true;
+            }
+        }, ThrowableFilter.INSTANCE);
+        Object[] array = new Object[]{new TestWalker(null), new TestWalker(null), new TestWalker(null)};
+        assertEquals(33, walker.walk(null, 0, (Object) array));
+        // the array and the first TestWalker
+        assertEquals(2, visits.get());
+        assertEquals(3, walker.walk(null, 0, (Object) new Object[3]));
+    }
+
     static class TestWalker {
         String name;
+
+        TestWalker() {
+        }
+
+        TestWalker(String name) {
+            this.name = name;
+        }
     }
 }
\ No newline at end of file
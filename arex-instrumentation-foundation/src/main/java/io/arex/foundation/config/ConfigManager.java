@@ -64,6 +64,22 @@ public class ConfigManager {
     private List<ConfigListener> listeners = new ArrayList<>();
     private Map<String, String> extendField;
     private int bufferSize;
+    private boolean asyncSerialize;
+    private int serializeWorkerSize;
+    private int batchSaveSize;
+    private long batchSaveBytes;
+    private long batchSaveLingerMs;
+    private boolean zstdDictionaryEnable;
+    private String healthController;
+    private boolean spoolEnable;
+    private String spoolPath;
+    private long spoolMaxBytes;
+    private String localStoragePath;
+    private long localStorageMaxBytes;
+    private int httpClientMaxTotal;
+    private int httpClientMaxPerRoute;
+    private int httpClientConnectTimeout;
+    private int httpClientSocketTimeout;
 
     private ConfigManager() {
         init();
@@ -118,11 +134,18 @@ public class ConfigManager {
         System.setProperty(STORAGE_SERVICE_HOST, storageServiceHost);
     }
 
+    /**
+     * falls back to the first host of storage service, the storage hosts may be a comma separated list
+     */
     public String getConfigServiceHost() {
         if (StringUtil.isNotEmpty(configServiceHost)) {
             return configServiceHost;
         }
-        return storageServiceHost;
+        if (storageServiceHost == null) {
+            return null;
+        }
+        int index = storageServiceHost.indexOf(',');
+        return index < 0 ? storageServiceHost : storageServiceHost.substring(0, index).trim();
     }
 
     public void setConfigServiceHost(String configServiceHost) {
@@ -272,6 +295,22 @@ public class ConfigManager {
         setExcludeServiceOperations(System.getProperty(EXCLUDE_SERVICE_OPERATION));
         setDubboStreamReplayThreshold(System.getProperty(DUBBO_STREAM_REPLAY_THRESHOLD, "100"));
         setBufferSize(System.getProperty(BUFFER_SIZE, "1024"));
+        setAsyncSerialize(System.getProperty(ASYNC_SERIALIZE));
+        setSerializeWorkerSize(System.getProperty(SERIALIZE_WORKER_SIZE, "2"));
+        setBatchSaveSize(System.getProperty(BATCH_SAVE_SIZE, "32"));
+        setBatchSaveBytes(System.getProperty(BATCH_SAVE_BYTES, String.valueOf(2 * 1024 * 1024)));
+        setBatchSaveLingerMs(System.getProperty(BATCH_SAVE_LINGER_MS, "50"));
+        setZstdDictionaryEnable(System.getProperty(ZSTD_DICTIONARY_ENABLE));
+        setHealthController(System.getProperty(HEALTH_CONTROLLER));
+        setSpoolEnable(System.getProperty(SPOOL_ENABLE));
+        setSpoolPath(System.getProperty(SPOOL_PATH));
+        setSpoolMaxBytes(System.getProperty(SPOOL_MAX_BYTES, String.valueOf(256 * 1024 * 1024)));
+        setLocalStoragePath(System.getProperty(LOCAL_STORAGE_PATH));
+        setLocalStorageMaxBytes(System.getProperty(LOCAL_STORAGE_MAX_BYTES, String.valueOf(1024 * 1024 * 1024)));
+        setHttpClientMaxTotal(System.getProperty(HTTP_CLIENT_MAX_TOTAL, "2000"));
+        setHttpClientMaxPerRoute(System.getProperty(HTTP_CLIENT_MAX_PER_ROUTE, "200"));
+        setHttpClientConnectTimeout(System.getProperty(HTTP_CLIENT_CONNECT_TIMEOUT, "5000"));
+        setHttpClientSocketTimeout(System.getProperty(HTTP_CLIENT_SOCKET_TIMEOUT, "5000"));
     }
 
     @VisibleForTesting
@@ -297,6 +336,22 @@ public class ConfigManager {
         System.setProperty(DISABLE_REPLAY, StringUtil.defaultString(configMap.get(DISABLE_REPLAY)));
         System.setProperty(DISABLE_RECORD, StringUtil.defaultString(configMap.get(DISABLE_RECORD)));
         setBufferSize(configMap.get(BUFFER_SIZE));
+        setAsyncSerialize(configMap.get(ASYNC_SERIALIZE));
+        setSerializeWorkerSize(configMap.get(SERIALIZE_WORKER_SIZE));
+        setBatchSaveSize(configMap.get(BATCH_SAVE_SIZE));
+        setBatchSaveBytes(configMap.get(BATCH_SAVE_BYTES));
+        setBatchSaveLingerMs(configMap.get(BATCH_SAVE_LINGER_MS));
+        setZstdDictionaryEnable(configMap.get(ZSTD_DICTIONARY_ENABLE));
+        setHealthController(configMap.get(HEALTH_CONTROLLER));
+        setSpoolEnable(configMap.get(SPOOL_ENABLE));
+        setSpoolPath(configMap.get(SPOOL_PATH));
+        setSpoolMaxBytes(configMap.get(SPOOL_MAX_BYTES));
+        setLocalStoragePath(configMap.get(LOCAL_STORAGE_PATH));
+        setLocalStorageMaxBytes(configMap.get(LOCAL_STORAGE_MAX_BYTES));
+        setHttpClientMaxTotal(configMap.get(HTTP_CLIENT_MAX_TOTAL));
+        setHttpClientMaxPerRoute(configMap.get(HTTP_CLIENT_MAX_PER_ROUTE));
+        setHttpClientConnectTimeout(configMap.get(HTTP_CLIENT_CONNECT_TIMEOUT));
+        setHttpClientSocketTimeout(configMap.get(HTTP_CLIENT_SOCKET_TIMEOUT));
     }
 
     private static Map<String, String> parseConfigFile(String configPath) {
@@ -630,6 +685,198 @@ public class ConfigManager {
         System.setProperty(BUFFER_SIZE, bufferSize);
     }
 
+    public boolean isAsyncSerialize() {
+        return asyncSerialize;
+    }
+
+    public void setAsyncSerialize(String asyncSerialize) {
+        if (StringUtil.isEmpty(asyncSerialize)) {
+            return;
+        }
+        this.asyncSerialize = Boolean.parseBoolean(asyncSerialize);
+        System.setProperty(ASYNC_SERIALIZE, asyncSerialize);
+    }
+
+    public int getSerializeWorkerSize() {
+        return serializeWorkerSize;
+    }
+
+    public void setSerializeWorkerSize(String serializeWorkerSize) {
+        if (StringUtil.isEmpty(serializeWorkerSize)) {
+            return;
+        }
+        this.serializeWorkerSize = Math.max(Integer.parseInt(serializeWorkerSize), 1);
+        System.setProperty(SERIALIZE_WORKER_SIZE, serializeWorkerSize);
+    }
+
+    public int getBatchSaveSize() {
+        return batchSaveSize;
+    }
+
+    public void setBatchSaveSize(String batchSaveSize) {
+        if (StringUtil.isEmpty(batchSaveSize)) {
+            return;
+        }
+        this.batchSaveSize = Math.max(Integer.parseInt(batchSaveSize), 1);
+        System.setProperty(BATCH_SAVE_SIZE, batchSaveSize);
+    }
+
+    public long getBatchSaveBytes() {
+        return batchSaveBytes;
+    }
+
+    public void setBatchSaveBytes(String batchSaveBytes) {
+        if (StringUtil.isEmpty(batchSaveBytes)) {
+            return;
+        }
+        this.batchSaveBytes = Long.parseLong(batchSaveBytes);
+        System.setProperty(BATCH_SAVE_BYTES, batchSaveBytes);
+    }
+
+    public long getBatchSaveLingerMs() {
+        return batchSaveLingerMs;
+    }
+
+    public void setBatchSaveLingerMs(String batchSaveLingerMs) {
+        if (StringUtil.isEmpty(batchSaveLingerMs)) {
+            return;
+        }
+        this.batchSaveLingerMs = Math.max(Long.parseLong(batchSaveLingerMs), 0);
+        System.setProperty(BATCH_SAVE_LINGER_MS, batchSaveLingerMs);
+    }
+
+    public boolean isZstdDictionaryEnable() {
+        return zstdDictionaryEnable;
+    }
+
+    public void setZstdDictionaryEnable(String zstdDictionaryEnable) {
+        if (StringUtil.isEmpty(zstdDictionaryEnable)) {
+            return;
+        }
+        this.zstdDictionaryEnable = Boolean.parseBoolean(zstdDictionaryEnable);
+        System.setProperty(ZSTD_DICTIONARY_ENABLE, zstdDictionaryEnable);
+    }
+
+    public String getHealthController() {
+        return healthController;
+    }
+
+    public void setHealthController(String healthController) {
+        if (StringUtil.isEmpty(healthController)) {
+            return;
+        }
+        this.healthController = healthController;
+        System.setProperty(HEALTH_CONTROLLER, healthController);
+    }
+
+    public boolean isSpoolEnable() {
+        return spoolEnable;
+    }
+
+    public void setSpoolEnable(String spoolEnable) {
+        if (StringUtil.isEmpty(spoolEnable)) {
+            return;
+        }
+        this.spoolEnable = Boolean.parseBoolean(spoolEnable);
+        System.setProperty(SPOOL_ENABLE, spoolEnable);
+    }
+
+    public String getSpoolPath() {
+        return spoolPath;
+    }
+
+    public void setSpoolPath(String spoolPath) {
+        if (StringUtil.isEmpty(spoolPath)) {
+            return;
+        }
+        this.spoolPath = spoolPath;
+        System.setProperty(SPOOL_PATH, spoolPath);
+    }
+
+    public long getSpoolMaxBytes() {
+        return spoolMaxBytes;
+    }
+
+    public void setSpoolMaxBytes(String spoolMaxBytes) {
+        if (StringUtil.isEmpty(spoolMaxBytes)) {
+            return;
+        }
+        this.spoolMaxBytes = Long.parseLong(spoolMaxBytes);
+        System.setProperty(SPOOL_MAX_BYTES, spoolMaxBytes);
+    }
+
+    public String getLocalStoragePath() {
+        return localStoragePath;
+    }
+
+    public void setLocalStoragePath(String localStoragePath) {
+        if (StringUtil.isEmpty(localStoragePath)) {
+            return;
+        }
+        this.localStoragePath = localStoragePath;
+        System.setProperty(LOCAL_STORAGE_PATH, localStoragePath);
+    }
+
+    public long getLocalStorageMaxBytes() {
+        return localStorageMaxBytes;
+    }
+
+    public void setLocalStorageMaxBytes(String localStorageMaxBytes) {
+        if (StringUtil.isEmpty(localStorageMaxBytes)) {
+            return;
+        }
+        this.localStorageMaxBytes = Long.parseLong(localStorageMaxBytes);
+        System.setProperty(LOCAL_STORAGE_MAX_BYTES, localStorageMaxBytes);
+    }
+
+    public int getHttpClientMaxTotal() {
+        return httpClientMaxTotal;
+    }
+
+    public void setHttpClientMaxTotal(String httpClientMaxTotal) {
+        if (StringUtil.isEmpty(httpClientMaxTotal)) {
+            return;
+        }
+        this.httpClientMaxTotal = Integer.parseInt(httpClientMaxTotal);
+        System.setProperty(HTTP_CLIENT_MAX_TOTAL, httpClientMaxTotal);
+    }
+
+    public int getHttpClientMaxPerRoute() {
+        return httpClientMaxPerRoute;
+    }
+
+    public void setHttpClientMaxPerRoute(String httpClientMaxPerRoute) {
+        if (StringUtil.isEmpty(httpClientMaxPerRoute)) {
+            return;
+        }
+        this.httpClientMaxPerRoute = Integer.parseInt(httpClientMaxPerRoute);
+        System.setProperty(HTTP_CLIENT_MAX_PER_ROUTE, httpClientMaxPerRoute);
+    }
+
+    public int getHttpClientConnectTimeout() {
+        return httpClientConnectTimeout;
+    }
+
+    public void setHttpClientConnectTimeout(String httpClientConnectTimeout) {
+        if (StringUtil.isEmpty(httpClientConnectTimeout)) {
+            return;
+        }
+        this.httpClientConnectTimeout = Integer.parseInt(httpClientConnectTimeout);
+        System.setProperty(HTTP_CLIENT_CONNECT_TIMEOUT, httpClientConnectTimeout);
+    }
+
+    public int getHttpClientSocketTimeout() {
+        return httpClientSocketTimeout;
+    }
+
+    public void setHttpClientSocketTimeout(String httpClientSocketTimeout) {
+        if (StringUtil.isEmpty(httpClientSocketTimeout)) {
+            return;
+        }
+        this.httpClientSocketTimeout = Integer.parseInt(httpClientSocketTimeout);
+        System.setProperty(HTTP_CLIENT_SOCKET_TIMEOUT, httpClientSocketTimeout);
+    }
+
     @Override
     public String toString() {
         return "ConfigManager{" +
@@ -0,0 +1,25 @@
+package io.arex.foundation.healthy;
+
+/**
+ * Additive increase, multiplicative decrease:
+ * cut the rate by 30% as soon as any signal is over its threshold, recover 5% per period once all signals calm down.
+ * Between the recover and overload pressure the rate is held, so the rate does not oscillate around the threshold.
+ * The rate is also held while the host cpu is saturated, see {@link HealthSignals#isCpuSaturated()}.
+ */
+public class AimdRateController implements RateController {
+    static final double INCREASE_STEP = 0.05D;
+    static final double DECREASE_FACTOR = 0.7D;
+    static final double RECOVER_PRESSURE = 0.8D;
+
+    @Override
+    public double adjust(double factor, HealthSignals signals) {
+        double pressure = signals.pressure();
+        if (pressure >= 1D) {
+            return factor * DECREASE_FACTOR;
+        }
+        if (pressure < RECOVER_PRESSURE && !signals.isCpuSaturated()) {
+            return factor + INCREASE_STEP;
+        }
+        return factor;
+    }
+}
@@ -3,18 +3,14 @@ package io.arex.foundation.healthy;
 import io.arex.agent.bootstrap.constants.ConfigConstants;
 import io.arex.agent.bootstrap.util.StringUtil;
 import io.arex.foundation.config.ConfigManager;
-import io.arex.agent.bootstrap.internal.Pair;
 import io.arex.foundation.model.DecelerateReasonEnum;
 import io.arex.foundation.services.TimerService;
 import io.arex.inst.runtime.log.LogManager;
 
-import com.google.common.util.concurrent.RateLimiter;
-
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleSupplier;
 
 import static io.arex.foundation.healthy.HealthManager.RecordRateManager.RECORD_RATE_MANAGER;
 import static java.util.concurrent.TimeUnit.MINUTES;
@@ -33,6 +29,13 @@ import static java.util.concurrent.TimeUnit.SECONDS;
  * statistic data during this period,
  * if not recover, decrease to minimum record rate(about 3 case in 100 min), check state again after 60 minutes.
  * if recover, switch to normal state, end check and record rate will be recovered in next request(acquire)
+ *
+ * 3. adaptive rate control (if {@link ConfigManager#getHealthController()} is aimd or pid):
+ * the above rules are replaced, never switch to reject state, instead every 5 seconds the {@link RateController}
+ * adjusts the rate factor from buffer occupancy, storage service latency, rejections and gc (host cpu only holds it),
+ * the rate limiter of each operation is updated in place to the config rate multiplied by the factor.
+ * The factor is global: the signals are shared by all operations (one buffer, one storage service)
+ * and can not be attributed to one of them, as the config rate is
  * </pre>
  */
 public class HealthManager {
@@ -62,14 +65,63 @@ public class HealthManager {
             new RecordRateChecker(TimeUnit.MILLISECONDS.toNanos(3000));
     private static ScheduledFuture<?> scheduledFuture = null;
 
+    static final long RATE_CONTROL_PERIOD_SECONDS = 5;
+    static final double MIN_RATE_FACTOR = 0.01D;
+    private static final HealthSignalCollector SIGNAL_COLLECTOR = new HealthSignalCollector();
+    private static volatile RateController rateController = null;
+    private static ScheduledFuture<?> rateControlFuture = null;
+
+    static {
+        enableRateControl(createRateController(ConfigManager.INSTANCE.getHealthController()));
+    }
+
+    static RateController createRateController(String name) {
+        if ("aimd".equalsIgnoreCase(name)) {
+            return new AimdRateController();
+        }
+        if ("pid".equalsIgnoreCase(name)) {
+            return new PidRateController();
+        }
+        return null;
+    }
+
+    /**
+     * @param controller null to switch back to the fixed health check rule
+     */
+    static synchronized void enableRateControl(RateController controller) {
+        if (rateControlFuture != null) {
+            rateControlFuture.cancel(false);
+            rateControlFuture = null;
+        }
+        rateController = controller;
+        RECORD_RATE_MANAGER.setRateFactor(1D);
+        if (controller != null) {
+            LogManager.info("healthManager.rateControl",
+                    StringUtil.format("adaptive rate control: %s", controller.getClass().getSimpleName()));
+            rateControlFuture = TimerService.scheduleAtFixedRate(new RateControlTask(),
+                    RATE_CONTROL_PERIOD_SECONDS, RATE_CONTROL_PERIOD_SECONDS, SECONDS);
+        }
+    }
+
+    /**
+     * Register the occupancy ([0, 1]) of the record buffer as a rate control signal
+     */
+    public static void registerBufferOccupancy(DoubleSupplier bufferOccupancy) {
+        SIGNAL_COLLECTOR.setBufferOccupancy(bufferOccupancy);
+    }
+
     /**
      * Record rate acquire
      */
     public static boolean acquire(String uri) {
-        return RECORD_RATE_MANAGER.acquire(uri, ConfigManager.INSTANCE.getRecordRate());
+        return RECORD_RATE_MANAGER.acquire(uri, RECORD_RATE_MANAGER.effectiveRate(ConfigManager.INSTANCE.getRecordRate()));
     }
 
     public static void onEnqueueRejection() {
+        if (rateController != null) {
+            SIGNAL_COLLECTOR.onReject();
+            return;
+        }
         if (STATE.compareAndSet(NORMAL, FAST_REJECT)) {
             LogManager.warn("healthManager.enqueueRejection", "queue overflow! switch to reject state");
             // Check state after 30 seconds
@@ -82,6 +134,10 @@ public class HealthManager {
     }
 
     public static void onDataServiceRejection() {
+        if (rateController != null) {
+            SIGNAL_COLLECTOR.onReject();
+            return;
+        }
         if (STATE.compareAndSet(NORMAL, FAST_REJECT) || STATE.compareAndSet(QUEUE_OVERFLOW, FAST_REJECT)) {
             LogManager.warn("healthManager.dataServiceRejection", "data service error! switch to reject state");
             if (scheduledFuture != null) {
@@ -101,11 +157,42 @@ public class HealthManager {
     }
 
     /**
-     * Report time consuming
+     * Stages of the record pipeline before the storage service
+     */
+    public enum Stage {
+        /**
+         * waiting in the record buffer
+         */
+        BUFFER,
+        /**
+         * waiting for a serializer worker and serialization
+         */
+        SERIALIZE
+    }
+
+    /**
+     * Report the time of one stage, only a metric (see {@link HealthSignals#getStageLatencyP99(Stage)}),
+     * the health decision takes the queued time of each entity once by {@link #reportUsedTime(long, boolean)}
+     */
+    public static void reportStageTime(Stage stage, long time) {
+        if (time >= 0) {
+            SIGNAL_COLLECTOR.recordStageLatency(stage, time);
+        }
+    }
+
+    /**
+     * Report time consuming, once per entity
      * @param time -1,Reject;
      * @param isQueuedTime isQueuedTime
      */
     public static void reportUsedTime(long time, boolean isQueuedTime) {
+        if (rateController != null) {
+            // rejections are counted by onDataServiceRejection
+            if (!isQueuedTime && time >= 0) {
+                SIGNAL_COLLECTOR.recordStorageLatency(time);
+            }
+            return;
+        }
         if (STATE.get() <= FAST_REJECT) {
             return;
         }
@@ -150,6 +237,30 @@ public class HealthManager {
         }
     }
 
+    static class RateControlTask implements Runnable {
+        @Override
+        public void run() {
+            RateController controller = rateController;
+            if (controller == null) {
+                return;
+            }
+            try {
+                HealthSignals signals = SIGNAL_COLLECTOR.snapshot();
+                double factor = RECORD_RATE_MANAGER.getRateFactor();
+                double targetFactor = Math.max(MIN_RATE_FACTOR, Math.min(1D, controller.adjust(factor, signals)));
+                if (targetFactor == factor) {
+                    return;
+                }
+                RECORD_RATE_MANAGER.setRateFactor(targetFactor);
+                RECORD_RATE_MANAGER.adjustRate(RECORD_RATE_MANAGER.effectiveRate(ConfigManager.INSTANCE.getRecordRate()));
+                LogManager.info("healthManager.rateControl", StringUtil.format("rate factor change to: %s, %s",
+                        String.format("%.2f", targetFactor), signals.toString()));
+            } catch (Throwable e) {
+                LogManager.warn("healthManager.rateControl", e);
+            }
+        }
+    }
+
     static class RecordRateChecker {
         AtomicInteger total = new AtomicInteger(0);
         AtomicInteger success = new AtomicInteger(0);
@@ -193,11 +304,14 @@ public class HealthManager {
 
     static class RecordRateManager {
         static final RecordRateManager RECORD_RATE_MANAGER = new RecordRateManager();
-        // Pari.first = last balance rate
-        static final Map<String, Pair<Double, RateLimiter>> RATE_LIMITER_MAP = new ConcurrentHashMap<>();
         static final double MIN_RATE = 0.03D;
-        // send a permit in 60 seconds at least
-        static final long BASE = MINUTES.toSeconds(1);
+        private final RecordRateLimiter rateLimiter = new RecordRateLimiter();
+        /**
+         * Rate applied to the limiter, negative before the first acquire
+         */
+        private volatile double rate = -1D;
+        private volatile double rateFactor = 1D;
+
         /**
          * Record rate acquires
          */
@@ -205,14 +319,14 @@ public class HealthManager {
             if (configRate <= 0) {
                 return false;
             }
-            Pair<Double, RateLimiter> rateLimiterPair = RATE_LIMITER_MAP.computeIfAbsent(methodName, key -> {
-                double targetRate = getCurrentRate(configRate);
-                return Pair.of(targetRate, RateLimiter.create(targetRate / BASE));
-            });
-
-            updateRate(configRate, rateLimiterPair.getFirst());
-            rateLimiterPair = RATE_LIMITER_MAP.get(methodName);
-            return rateLimiterPair != null && rateLimiterPair.getSecond().tryAcquire();
+            double currentRate = rate;
+            if (currentRate < 0) {
+                currentRate = getCurrentRate(configRate);
+                applyRate(currentRate, true);
+            }
+
+            updateRate(configRate, currentRate);
+            return rateLimiter.tryAcquire(methodName);
         }
 
         /**
@@ -222,9 +336,7 @@ public class HealthManager {
          */
         void updateRate(double configRate, double currentRate) {
             if ((configRate > currentRate && STATE.get() == NORMAL) || configRate < currentRate) {
-                for (Map.Entry<String, Pair<Double, RateLimiter>> entry : RATE_LIMITER_MAP.entrySet()) {
-                    RATE_LIMITER_MAP.put(entry.getKey(), Pair.of(configRate, RateLimiter.create(configRate / BASE)));
-                }
+                applyRate(configRate, true);
                 System.setProperty(ConfigConstants.CURRENT_RATE, String.format("%.2f", configRate));
                 System.setProperty(ConfigConstants.DECELERATE_CODE, DecelerateReasonEnum.NORMAL.getCodeStr());
                 LogManager.info("healthManager.updateRate",
@@ -232,6 +344,19 @@ public class HealthManager {
             }
         }
 
+        /**
+         * The rate of all operations is changed in O(1)
+         * @param reset true to start over like new limiters, false to keep the permits already taken
+         */
+        private void applyRate(double targetRate, boolean reset) {
+            rate = targetRate;
+            rateLimiter.setRate(targetRate, reset);
+        }
+
+        double getRate() {
+            return rate;
+        }
+
         double getCurrentRate(double rate) {
             if (STATE.get() == NORMAL) {
                 return rate;
@@ -244,6 +369,39 @@ public class HealthManager {
             return rate;
         }
 
+        double getRateFactor() {
+            return rateFactor;
+        }
+
+        void setRateFactor(double rateFactor) {
+            this.rateFactor = rateFactor;
+        }
+
+        /**
+         * Config rate scaled by the adaptive rate factor, not lower than {@link #MIN_RATE}
+         */
+        double effectiveRate(double configRate) {
+            double factor = rateFactor;
+            if (factor >= 1D || configRate <= 0) {
+                return configRate;
+            }
+            return Math.max(configRate * factor, Math.min(configRate, MIN_RATE));
+        }
+
+        /**
+         * Adaptive rate control, the permits already taken are kept so the record rate moves smoothly,
+         * the acquire of the following requests sees the same rate and keeps it
+         */
+        void adjustRate(double targetRate) {
+            if (targetRate <= 0) {
+                return;
+            }
+            applyRate(targetRate, false);
+            System.setProperty(ConfigConstants.CURRENT_RATE, String.format("%.2f", targetRate));
+            System.setProperty(ConfigConstants.DECELERATE_CODE, rateFactor < 1D ?
+                    DecelerateReasonEnum.BACKPRESSURE.getCodeStr() : DecelerateReasonEnum.NORMAL.getCodeStr());
+        }
+
         boolean validate() {
             return ConfigManager.INSTANCE.getRecordRate() > 0;
         }
@@ -257,9 +415,9 @@ public class HealthManager {
                 return;
             }
             double targetRate = ConfigManager.INSTANCE.getRecordRate();
-            for (Map.Entry<String, Pair<Double, RateLimiter>> entry : RATE_LIMITER_MAP.entrySet()) {
+            if (rate >= 0) {
                 targetRate = MIN_RATE;
-                RATE_LIMITER_MAP.put(entry.getKey(), Pair.of(targetRate, RateLimiter.create(targetRate / BASE)));
+                applyRate(targetRate, true);
             }
             System.setProperty(ConfigConstants.CURRENT_RATE, String.format("%.2f", targetRate));
             System.setProperty(ConfigConstants.DECELERATE_CODE, DecelerateReasonEnum.SERVICE_EXCEPTION.getCodeStr());
@@ -277,10 +435,9 @@ public class HealthManager {
                 return;
             }
             double targetRate = ConfigManager.INSTANCE.getRecordRate();
-            for (Map.Entry<String, Pair<Double, RateLimiter>> entry : RATE_LIMITER_MAP.entrySet()) {
-                Pair<Double, RateLimiter> limiterPair = entry.getValue();
-                targetRate = Math.max(limiterPair.getFirst() * 0.8, MIN_RATE);
-                RATE_LIMITER_MAP.put(entry.getKey(), Pair.of(targetRate, RateLimiter.create(targetRate / BASE)));
+            if (rate >= 0) {
+                targetRate = Math.max(rate * 0.8, MIN_RATE);
+                applyRate(targetRate, true);
             }
             System.setProperty(ConfigConstants.CURRENT_RATE, String.format("%.2f", targetRate));
             System.setProperty(ConfigConstants.DECELERATE_CODE, DecelerateReasonEnum.QUEUE_OVERFLOW.getCodeStr());
@@ -290,4 +447,4 @@ public class HealthManager {
         }
 
     }
-}
\ No newline at end of file
+}
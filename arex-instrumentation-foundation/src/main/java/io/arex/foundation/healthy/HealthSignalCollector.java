@@ -0,0 +1,120 @@
+package io.arex.foundation.healthy;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Collect the health signals between two control periods.
+ * Recording is lock free and called from the save loop and http callback threads,
+ * {@link #snapshot()} is only called from the timer thread.
+ */
+class HealthSignalCollector {
+    /**
+     * Bucket 0 holds latency under 1ms, bucket i holds latency in [2^(i-1), 2^i) ms, the last bucket is unbounded
+     */
+    static final int LATENCY_BUCKETS = 24;
+
+    private final AtomicLongArray latencyBuckets = new AtomicLongArray(LATENCY_BUCKETS);
+    private final AtomicLongArray stageLatencyBuckets =
+            new AtomicLongArray(HealthManager.Stage.values().length * LATENCY_BUCKETS);
+    private final AtomicInteger rejectCount = new AtomicInteger();
+    private final OperatingSystemMXBean osBean = ManagementFactory.getOperatingSystemMXBean();
+    private volatile DoubleSupplier bufferOccupancy;
+    private long lastGcTime = -1;
+    private long lastSampleTime;
+
+    void recordStorageLatency(long nanos) {
+        latencyBuckets.incrementAndGet(bucketOf(TimeUnit.NANOSECONDS.toMillis(nanos)));
+    }
+
+    void recordStageLatency(HealthManager.Stage stage, long nanos) {
+        stageLatencyBuckets.incrementAndGet(stage.ordinal() * LATENCY_BUCKETS + bucketOf(TimeUnit.NANOSECONDS.toMillis(nanos)));
+    }
+
+    void onReject() {
+        rejectCount.incrementAndGet();
+    }
+
+    void setBufferOccupancy(DoubleSupplier bufferOccupancy) {
+        this.bufferOccupancy = bufferOccupancy;
+    }
+
+    HealthSignals snapshot() {
+        long[] counts = new long[LATENCY_BUCKETS];
+        long total = 0;
+        for (int i = 0; i < LATENCY_BUCKETS; i++) {
+            counts[i] = latencyBuckets.getAndSet(i, 0);
+            total += counts[i];
+        }
+        HealthManager.Stage[] stages = HealthManager.Stage.values();
+        long[] stageLatencyP99 = new long[stages.length];
+        for (HealthManager.Stage stage : stages) {
+            long[] stageCounts = new long[LATENCY_BUCKETS];
+            long stageTotal = 0;
+            for (int i = 0; i < LATENCY_BUCKETS; i++) {
+                stageCounts[i] = stageLatencyBuckets.getAndSet(stage.ordinal() * LATENCY_BUCKETS + i, 0);
+                stageTotal += stageCounts[i];
+            }
+            stageLatencyP99[stage.ordinal()] = percentile(stageCounts, stageTotal, 0.99D);
+        }
+        DoubleSupplier occupancy = bufferOccupancy;
+        return new HealthSignals(occupancy != null ? occupancy.getAsDouble() : 0D,
+                percentile(counts, total, 0.5D), percentile(counts, total, 0.99D), total,
+                rejectCount.getAndSet(0), cpuLoad(), gcTimeRatio(), stageLatencyP99);
+    }
+
+    static int bucketOf(long millis) {
+        if (millis <= 0) {
+            return 0;
+        }
+        return Math.min(Long.SIZE - Long.numberOfLeadingZeros(millis), LATENCY_BUCKETS - 1);
+    }
+
+    /**
+     * @return upper bound of the bucket in nanos, 0 if no sample
+     */
+    static long percentile(long[] counts, long total, double percentile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return TimeUnit.MILLISECONDS.toNanos(1L << i);
+            }
+        }
+        return TimeUnit.MILLISECONDS.toNanos(1L << (counts.length - 1));
+    }
+
+    private double cpuLoad() {
+        double load = -1;
+        if (osBean instanceof com.sun.management.OperatingSystemMXBean) {
+            load = ((com.sun.management.OperatingSystemMXBean) osBean).getProcessCpuLoad();
+        } else if (osBean.getSystemLoadAverage() >= 0) {
+            load = osBean.getSystemLoadAverage() / osBean.getAvailableProcessors();
+        }
+        return load < 0 ? 0D : Math.min(load, 1D);
+    }
+
+    private double gcTimeRatio() {
+        long gcTime = 0;
+        for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcTime += Math.max(gcBean.getCollectionTime(), 0);
+        }
+        long now = System.currentTimeMillis();
+        double ratio = 0D;
+        if (lastGcTime >= 0 && now > lastSampleTime) {
+            ratio = (double) (gcTime - lastGcTime) / (now - lastSampleTime);
+        }
+        lastGcTime = gcTime;
+        lastSampleTime = now;
+        return Math.max(ratio, 0D);
+    }
+}
@@ -0,0 +1,123 @@
+package io.arex.foundation.healthy;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Health signals of one control period, {@link #pressure()} normalizes them so that 1 means the overload threshold.
+ * The host cpu is not part of the pressure: recording is a small share of the business cpu, lowering the rate
+ * can not bring it down, so a busy host would pin the rate at its minimum. It only holds the rate, see {@link #isCpuSaturated()}.
+ */
+public class HealthSignals {
+    static final double OCCUPANCY_THRESHOLD = 0.5D;
+    static final long LATENCY_THRESHOLD_NANOS = TimeUnit.MILLISECONDS.toNanos(3000);
+    static final double CPU_THRESHOLD = 0.9D;
+    static final double GC_THRESHOLD = 0.1D;
+    /**
+     * Any rejection (queue overflow or storage service error) is a hard overload
+     */
+    static final double REJECT_PRESSURE = 2D;
+
+    private final double bufferOccupancy;
+    private final long storageLatencyP50;
+    private final long storageLatencyP99;
+    private final long storageRequestCount;
+    private final int rejectCount;
+    private final double cpuLoad;
+    private final double gcTimeRatio;
+    /**
+     * indexed by {@link HealthManager.Stage#ordinal()}, not part of the pressure
+     */
+    private final long[] stageLatencyP99;
+
+    public HealthSignals(double bufferOccupancy, long storageLatencyP50, long storageLatencyP99,
+                         long storageRequestCount, int rejectCount, double cpuLoad, double gcTimeRatio) {
+        this(bufferOccupancy, storageLatencyP50, storageLatencyP99, storageRequestCount, rejectCount, cpuLoad,
+                gcTimeRatio, new long[HealthManager.Stage.values().length]);
+    }
+
+    public HealthSignals(double bufferOccupancy, long storageLatencyP50, long storageLatencyP99,
+                         long storageRequestCount, int rejectCount, double cpuLoad, double gcTimeRatio,
+                         long[] stageLatencyP99) {
+        this.bufferOccupancy = bufferOccupancy;
+        this.storageLatencyP50 = storageLatencyP50;
+        this.storageLatencyP99 = storageLatencyP99;
+        this.storageRequestCount = storageRequestCount;
+        this.rejectCount = rejectCount;
+        this.cpuLoad = cpuLoad;
+        this.gcTimeRatio = gcTimeRatio;
+        this.stageLatencyP99 = stageLatencyP99;
+    }
+
+    public double pressure() {
+        double pressure = bufferOccupancy / OCCUPANCY_THRESHOLD;
+        pressure = Math.max(pressure, (double) storageLatencyP99 / LATENCY_THRESHOLD_NANOS);
+        pressure = Math.max(pressure, gcTimeRatio / GC_THRESHOLD);
+        if (rejectCount > 0) {
+            pressure = Math.max(pressure, REJECT_PRESSURE);
+        }
+        return pressure;
+    }
+
+    /**
+     * @return true if the rate should not be increased in this period
+     */
+    public boolean isCpuSaturated() {
+        return cpuLoad >= CPU_THRESHOLD;
+    }
+
+    public double getBufferOccupancy() {
+        return bufferOccupancy;
+    }
+
+    public long getStorageLatencyP50() {
+        return storageLatencyP50;
+    }
+
+    public long getStorageLatencyP99() {
+        return storageLatencyP99;
+    }
+
+    public long getStorageRequestCount() {
+        return storageRequestCount;
+    }
+
+    public int getRejectCount() {
+        return rejectCount;
+    }
+
+    /**
+     * @return process cpu load in [0, 1], 0 if not available
+     */
+    public double getCpuLoad() {
+        return cpuLoad;
+    }
+
+    /**
+     * @return fraction of the period spent in gc
+     */
+    public double getGcTimeRatio() {
+        return gcTimeRatio;
+    }
+
+    /**
+     * @return p99 latency of the record pipeline stage in nanos, 0 if no sample
+     */
+    public long getStageLatencyP99(HealthManager.Stage stage) {
+        return stageLatencyP99[stage.ordinal()];
+    }
+
+    @Override
+    public String toString() {
+        return "HealthSignals{" +
+            "bufferOccupancy=" + String.format("%.2f", bufferOccupancy) +
+            ", storageLatencyP50=" + TimeUnit.NANOSECONDS.toMillis(storageLatencyP50) + "ms" +
+            ", storageLatencyP99=" + TimeUnit.NANOSECONDS.toMillis(storageLatencyP99) + "ms" +
+            ", storageRequestCount=" + storageRequestCount +
+            ", rejectCount=" + rejectCount +
+            ", cpuLoad=" + String.format("%.2f", cpuLoad) +
+            ", gcTimeRatio=" + String.format("%.2f", gcTimeRatio) +
+            ", bufferStageP99=" + TimeUnit.NANOSECONDS.toMillis(getStageLatencyP99(HealthManager.Stage.BUFFER)) + "ms" +
+            ", serializeStageP99=" + TimeUnit.NANOSECONDS.toMillis(getStageLatencyP99(HealthManager.Stage.SERIALIZE)) + "ms" +
+            '}';
+    }
+}
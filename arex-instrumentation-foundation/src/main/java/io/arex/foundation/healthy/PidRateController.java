@@ -0,0 +1,45 @@
+package io.arex.foundation.healthy;
+
+/**
+ * Keep the pressure around {@link #SETPOINT}, velocity form of PID: the rate factor moves by the change of the output
+ * <pre>
+ * factor += KP * (e - e1) + KI * e + KD * (e - 2 * e1 + e2)
+ * </pre>
+ * the integral is the factor itself, so it does not wind up while the factor is clamped at its minimum or maximum.
+ * The factor is not increased while the host cpu is saturated, see {@link HealthSignals#isCpuSaturated()}.
+ */
+public class PidRateController implements RateController {
+    static final double SETPOINT = 0.7D;
+    static final double KP = 0.5D;
+    static final double KI = 0.1D;
+    /**
+     * Lower than {@link #KI}, the second period of a step error must not move the factor back
+     */
+    static final double KD = 0.05D;
+    /**
+     * A rejected request reports a large pressure, limit it so one bad period does not dominate the output
+     */
+    static final double MAX_PRESSURE = 3D;
+
+    private boolean started;
+    private double lastError;
+    private double previousError;
+
+    @Override
+    public synchronized double adjust(double factor, HealthSignals signals) {
+        double error = SETPOINT - Math.min(signals.pressure(), MAX_PRESSURE);
+        if (!started) {
+            // no kick from the initial state
+            started = true;
+            lastError = error;
+            previousError = error;
+        }
+        double delta = KP * (error - lastError) + KI * error + KD * (error - 2 * lastError + previousError);
+        previousError = lastError;
+        lastError = error;
+        if (delta > 0 && signals.isCpuSaturated()) {
+            return factor;
+        }
+        return factor + delta;
+    }
+}
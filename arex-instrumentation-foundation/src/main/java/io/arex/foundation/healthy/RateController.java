@@ -0,0 +1,15 @@
+package io.arex.foundation.healthy;
+
+/**
+ * Adjust the record rate factor from the health signals of the last period,
+ * the record rate of each operation is the configured rate multiplied by the factor.
+ */
+public interface RateController {
+
+    /**
+     * @param factor current rate factor, in [{@link HealthManager#MIN_RATE_FACTOR}, 1]
+     * @param signals health signals collected since the last adjustment
+     * @return the new rate factor, clamped by the caller
+     */
+    double adjust(double factor, HealthSignals signals);
+}
@@ -0,0 +1,144 @@
+package io.arex.foundation.healthy;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock free rate limiter with one token bucket per key, all keys share the same rate.
+ * <pre>
+ * 1. each bucket is a single atomic long: rate epoch (16 bits) and the time in micros
+ * at which the next permit is available (GCRA, 48 bits),
+ * permits of up to one second are stored (same as guava SmoothBursty), acquire is one CAS without monitor
+ * 2. the rate is an immutable snapshot, change it is O(1):
+ * reset (config change or health check) bumps the epoch, a bucket of an old epoch starts over like a new limiter,
+ * otherwise (adaptive rate control) the taken permits are kept and the wait is capped by the new interval
+ * 3. keys not acquired for 10 minutes are evicted, once {@link #MAX_KEYS} is reached new keys
+ * share one overflow bucket, so path-parameter uris can not grow the map unbounded
+ * </pre>
+ */
+class RecordRateLimiter {
+    static final int MAX_KEYS = 4096;
+    static final long IDLE_TIMEOUT_NANOS = TimeUnit.MINUTES.toNanos(10);
+    static final long SWEEP_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final long PERMITS_PERIOD_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final long MAX_BURST_MICROS = TimeUnit.SECONDS.toMicros(1);
+    private static final long MAX_INTERVAL_MICROS = TimeUnit.DAYS.toMicros(1);
+    private static final int TIME_BITS = 48;
+    private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+    private static final int EPOCH_MASK = 0xFFFF;
+    /**
+     * Refresh the access time at most once a second, avoid writing the shared bucket on every acquire
+     */
+    private static final long TOUCH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final long startNanos = System.nanoTime();
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final Bucket overflowBucket = new Bucket(Rate.ZERO, 0, startNanos);
+    private final AtomicLong nextSweepTime = new AtomicLong(startNanos + SWEEP_INTERVAL_NANOS);
+    private volatile Rate rate = Rate.ZERO;
+
+    /**
+     * @param permitsPerMinute 0 to reject all
+     * @param reset true to discard the permits taken under the previous rate
+     */
+    synchronized void setRate(double permitsPerMinute, boolean reset) {
+        int epoch = reset ? (rate.epoch + 1) & EPOCH_MASK : rate.epoch;
+        if (permitsPerMinute <= 0) {
+            rate = new Rate(epoch, 0, 0);
+            return;
+        }
+        long interval = (long) Math.min(PERMITS_PERIOD_MICROS / permitsPerMinute, MAX_INTERVAL_MICROS);
+        interval = Math.max(interval, 1L);
+        rate = new Rate(epoch, interval, Math.max(MAX_BURST_MICROS - interval, 0L));
+    }
+
+    boolean tryAcquire(String key) {
+        return tryAcquire(key, System.nanoTime());
+    }
+
+    boolean tryAcquire(String key, long now) {
+        Rate current = rate;
+        if (current.intervalMicros <= 0) {
+            return false;
+        }
+        sweepIfNecessary(now);
+        long nowMicros = TimeUnit.NANOSECONDS.toMicros(now - startNanos);
+        return bucket(key, current, nowMicros, now).tryAcquire(nowMicros, current);
+    }
+
+    int size() {
+        return buckets.size();
+    }
+
+    private Bucket bucket(String key, Rate current, long nowMicros, long now) {
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = buckets.size() < MAX_KEYS ?
+                    buckets.computeIfAbsent(key, k -> new Bucket(current, nowMicros, now)) : overflowBucket;
+        }
+        if (now - bucket.lastAccessTime > TOUCH_INTERVAL_NANOS) {
+            bucket.lastAccessTime = now;
+        }
+        return bucket;
+    }
+
+    private void sweepIfNecessary(long now) {
+        long sweepTime = nextSweepTime.get();
+        if (now - sweepTime < 0 || !nextSweepTime.compareAndSet(sweepTime, now + SWEEP_INTERVAL_NANOS)) {
+            return;
+        }
+        buckets.values().removeIf(bucket -> now - bucket.lastAccessTime > IDLE_TIMEOUT_NANOS);
+    }
+
+    private static final class Rate {
+        static final Rate ZERO = new Rate(0, 0, 0);
+
+        final int epoch;
+        final long intervalMicros;
+        final long burstMicros;
+
+        Rate(int epoch, long intervalMicros, long burstMicros) {
+            this.epoch = epoch;
+            this.intervalMicros = intervalMicros;
+            this.burstMicros = burstMicros;
+        }
+    }
+
+    /**
+     * value: rate epoch | theoretical arrival time of the next permit
+     */
+    private static final class Bucket extends AtomicLong {
+        volatile long lastAccessTime;
+
+        Bucket(Rate rate, long nowMicros, long now) {
+            super(((long) rate.epoch << TIME_BITS) | nowMicros);
+            this.lastAccessTime = now;
+        }
+
+        boolean tryAcquire(long nowMicros, Rate rate) {
+            while (true) {
+                long state = get();
+                long arrivalTime = state & TIME_MASK;
+                if ((int) (state >>> TIME_BITS) != rate.epoch) {
+                    // the rate was reset
+                    arrivalTime = nowMicros;
+                } else if (arrivalTime - nowMicros > rate.intervalMicros + rate.burstMicros) {
+                    // the rate was increased, wait no longer than one new interval from now on
+                    compareAndSet(state, ((long) rate.epoch << TIME_BITS) |
+                            ((nowMicros + rate.intervalMicros + rate.burstMicros) & TIME_MASK));
+                    continue;
+                }
+                long start = Math.max(arrivalTime, nowMicros);
+                if (start - nowMicros > rate.burstMicros) {
+                    return false;
+                }
+                long next = ((long) rate.epoch << TIME_BITS) | ((start + rate.intervalMicros) & TIME_MASK);
+                if (compareAndSet(state, next)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package io.arex.foundation.internal;
+
+import io.arex.agent.bootstrap.util.StringUtil;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Merge the serialized mocker arrays of several entities into one batchSaveMockers request body.
+ * A batch is full when it reaches the max entity count or the max body length in encoded UTF-8 bytes,
+ * an entity larger than the max body length is sent as a batch of its own.
+ * The merged body is not materialized, {@link #writeTo(Writer)} writes the array elements of each entity directly.
+ */
+public class DataBatch {
+    private final int maxSize;
+    private final long maxBytes;
+    private final long deadline;
+    private final List<DataEntity> entityList;
+    /**
+     * [start, end) of the array elements in the post data of each entity
+     */
+    private final int[] elementRanges;
+    /**
+     * UTF-8 encoded length of the merged json array
+     */
+    private long length = 2;
+
+    public DataBatch(int maxSize, long maxBytes, long lingerNanos) {
+        this.maxSize = Math.max(maxSize, 1);
+        this.maxBytes = maxBytes;
+        this.deadline = System.nanoTime() + lingerNanos;
+        this.entityList = new ArrayList<>(this.maxSize);
+        this.elementRanges = new int[this.maxSize << 1];
+    }
+
+    /**
+     * @return false if the batch has no room left for the entity
+     */
+    public boolean add(DataEntity entity) {
+        String data = entity.getPostData();
+        if (data == null) {
+            return true;
+        }
+        // elements range of the json array: [start, end)
+        int start = data.indexOf('[') + 1;
+        int end = data.lastIndexOf(']');
+        while (start < end && Character.isWhitespace(data.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(data.charAt(end - 1))) {
+            end--;
+        }
+        if (start <= 0 || end <= start) {
+            // not a mocker array or empty array, nothing to merge
+            return true;
+        }
+        int separator = entityList.isEmpty() ? 0 : 1;
+        if (!entityList.isEmpty() && isFull()) {
+            return false;
+        }
+        long elementsLength = StringUtil.utf8Length(data, start, end);
+        if (!entityList.isEmpty() && length + separator + elementsLength > maxBytes) {
+            return false;
+        }
+        elementRanges[entityList.size() << 1] = start;
+        elementRanges[(entityList.size() << 1) + 1] = end;
+        entityList.add(entity);
+        length += separator + elementsLength;
+        return true;
+    }
+
+    public void writeTo(Writer writer) throws IOException {
+        writer.write('[');
+        for (int i = 0; i < entityList.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            int start = elementRanges[i << 1];
+            writer.write(entityList.get(i).getPostData(), start, elementRanges[(i << 1) + 1] - start);
+        }
+        writer.write(']');
+    }
+
+    public boolean isFull() {
+        return entityList.size() >= maxSize || length >= maxBytes;
+    }
+
+    public boolean isEmpty() {
+        return entityList.isEmpty();
+    }
+
+    public boolean isExpired(long now) {
+        return now - deadline >= 0;
+    }
+
+    public long getDeadline() {
+        return deadline;
+    }
+
+    public List<DataEntity> getEntityList() {
+        return entityList;
+    }
+
+    public int size() {
+        return entityList.size();
+    }
+
+    /**
+     * @return UTF-8 encoded length of the merged body
+     */
+    public long length() {
+        return length;
+    }
+}
@@ -1,13 +1,20 @@
 package io.arex.foundation.internal;
 
+import io.arex.agent.bootstrap.model.ArexMocker;
 import io.arex.agent.bootstrap.model.Mocker;
 import io.arex.inst.runtime.serializer.Serializer;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 
 public class DataEntity {
     private final long queueTime;
-    private final String postData;
+    private volatile String postData;
+    /**
+     * Snapshot of the recorded mockers waiting for serialization, released after {@link #serialize()}
+     */
+    private List<Mocker> pendingMockerList;
     private final String recordId;
     private final String operationName;
 
@@ -18,6 +25,45 @@ public class DataEntity {
         this.operationName = requestMockerList.get(0).getOperationName();
     }
 
+    private DataEntity(List<Mocker> pendingMockerList, String recordId, String operationName) {
+        this.pendingMockerList = pendingMockerList;
+        this.queueTime = System.nanoTime();
+        this.recordId = recordId;
+        this.operationName = operationName;
+    }
+
+    /**
+     * Create an entity whose serialization is deferred to {@link #serialize()}.
+     * The mockers are copied so that later modification by the business thread does not affect the recorded data.
+     */
+    public static DataEntity deferred(List<Mocker> requestMockerList) {
+        List<Mocker> snapshot = new ArrayList<>(requestMockerList.size());
+        for (Mocker mocker : requestMockerList) {
+            snapshot.add(copyOf(mocker));
+        }
+        Mocker first = requestMockerList.get(0);
+        return new DataEntity(snapshot, first.getRecordId(), first.getOperationName());
+    }
+
+    /**
+     * Serialize the pending mockers if not serialized yet, called from serializer worker
+     */
+    public String serialize() {
+        if (postData == null) {
+            synchronized (this) {
+                if (postData == null) {
+                    postData = Serializer.serialize(pendingMockerList);
+                    pendingMockerList = null;
+                }
+            }
+        }
+        return postData;
+    }
+
+    public boolean isSerialized() {
+        return postData != null;
+    }
+
     public long getQueueTime() {
         return queueTime;
     }
@@ -34,4 +80,39 @@ public class DataEntity {
         return operationName;
     }
 
+    private static Mocker copyOf(Mocker mocker) {
+        if (!(mocker instanceof ArexMocker)) {
+            return mocker;
+        }
+        ArexMocker source = (ArexMocker) mocker;
+        ArexMocker copy = new ArexMocker();
+        copy.setId(source.getId());
+        copy.setCategoryType(source.getCategoryType());
+        copy.setReplayId(source.getReplayId());
+        copy.setRecordId(source.getRecordId());
+        copy.setAppId(source.getAppId());
+        copy.setRecordEnvironment(source.getRecordEnvironment());
+        copy.setRecordVersion(source.getRecordVersion());
+        copy.setCreationTime(source.getCreationTime());
+        copy.setOperationName(source.getOperationName());
+        if (source.getTags() != null) {
+            copy.setTags(new HashMap<>(source.getTags()));
+        }
+        copy.setTargetRequest(copyOf(source.getTargetRequest()));
+        copy.setTargetResponse(copyOf(source.getTargetResponse()));
+        return copy;
+    }
+
+    private static Mocker.Target copyOf(Mocker.Target target) {
+        if (target == null) {
+            return null;
+        }
+        Mocker.Target copy = new Mocker.Target();
+        copy.setBody(target.getBody());
+        copy.setType(target.getType());
+        if (target.getAttributes() != null) {
+            copy.setAttributes(new HashMap<>(target.getAttributes()));
+        }
+        return copy;
+    }
 }
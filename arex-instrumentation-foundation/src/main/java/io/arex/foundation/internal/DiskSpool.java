@@ -0,0 +1,307 @@
+package io.arex.foundation.internal;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append only spool of records on memory mapped segment files, the total size is bounded by max bytes.
+ * <pre>
+ * record: [int length][int crc32][bytes], length 0 is the end of the segment,
+ * a consumed record is marked by a negative length, so the progress survives a restart.
+ * A record with bad crc (torn write) ends the segment when recovering.
+ * Fully consumed segments are unmapped and deleted, the oldest record is always replayed first.
+ * </pre>
+ * Records are appended and replayed from the spool thread, all methods are synchronized.
+ */
+public class DiskSpool implements Closeable {
+    static final String SEGMENT_SUFFIX = ".seg";
+    static final int HEADER_SIZE = 8;
+
+    private final File directory;
+    private final int segmentSize;
+    private final long maxBytes;
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private Segment writeSegment;
+    private long nextSequence;
+
+    public DiskSpool(File directory, int segmentSize, long maxBytes) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("can not create spool directory: " + directory);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxBytes = maxBytes;
+        recover();
+    }
+
+    /**
+     * @return false if the record is larger than a segment or the spool is full
+     */
+    public synchronized boolean append(byte[] data) throws IOException {
+        int recordSize = HEADER_SIZE + data.length;
+        if (data.length == 0 || recordSize > segmentSize) {
+            return false;
+        }
+        if (writeSegment == null || writeSegment.writePosition + recordSize > segmentSize) {
+            if ((long) (segments.size() + 1) * segmentSize > maxBytes) {
+                return false;
+            }
+            seal();
+            writeSegment = createSegment();
+        }
+        MappedByteBuffer buffer = writeSegment.buffer;
+        int position = writeSegment.writePosition;
+        // write the body and crc before the length, the length publishes the record
+        buffer.putInt(position + 4, crc(data));
+        ByteBuffer body = buffer.duplicate();
+        body.position(position + HEADER_SIZE);
+        body.put(data);
+        buffer.putInt(position, data.length);
+        writeSegment.writePosition += recordSize;
+        writeSegment.pending++;
+        return true;
+    }
+
+    /**
+     * @return the oldest record not consumed yet, null if empty
+     */
+    public synchronized Record peek() {
+        while (!segments.isEmpty()) {
+            Segment segment = segments.peekFirst();
+            MappedByteBuffer buffer = segment.buffer;
+            while (segment.readPosition + HEADER_SIZE <= segment.writePosition) {
+                int length = buffer.getInt(segment.readPosition);
+                if (length > 0) {
+                    byte[] data = new byte[length];
+                    ByteBuffer body = buffer.duplicate();
+                    body.position(segment.readPosition + HEADER_SIZE);
+                    body.get(data);
+                    return new Record(segment, segment.readPosition, data);
+                }
+                segment.readPosition += HEADER_SIZE - length;
+            }
+            if (segment == writeSegment) {
+                return null;
+            }
+            release(segments.pollFirst());
+        }
+        return null;
+    }
+
+    /**
+     * Mark the record consumed
+     */
+    public synchronized void commit(Record record) {
+        Segment segment = record.segment;
+        if (!segments.contains(segment) || segment.buffer.getInt(record.position) <= 0) {
+            return;
+        }
+        segment.buffer.putInt(record.position, -record.data.length);
+        segment.pending--;
+        if (segment.pending == 0 && segment != writeSegment) {
+            segments.remove(segment);
+            release(segment);
+        }
+    }
+
+    public synchronized boolean isEmpty() {
+        for (Segment segment : segments) {
+            if (segment.pending > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return disk bytes reserved by the segments
+     */
+    public synchronized long usedBytes() {
+        return (long) segments.size() * segmentSize;
+    }
+
+    @Override
+    public synchronized void close() {
+        seal();
+        for (Segment segment : segments) {
+            unmap(segment.buffer);
+        }
+        segments.clear();
+        writeSegment = null;
+    }
+
+    private void recover() throws IOException {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(SEGMENT_SUFFIX));
+        if (files == null) {
+            return;
+        }
+        List<Segment> recovered = new ArrayList<>(files.length);
+        for (File file : files) {
+            long sequence = parseSequence(file.getName());
+            if (sequence < 0 || file.length() < HEADER_SIZE) {
+                continue;
+            }
+            Segment segment = new Segment(sequence, file, map(file, (int) Math.min(file.length(), Integer.MAX_VALUE)));
+            scan(segment);
+            nextSequence = Math.max(nextSequence, sequence + 1);
+            if (segment.pending > 0) {
+                recovered.add(segment);
+            } else {
+                release(segment);
+            }
+        }
+        recovered.sort((left, right) -> Long.compare(left.sequence, right.sequence));
+        segments.addAll(recovered);
+    }
+
+    private static void scan(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        int capacity = buffer.capacity();
+        int position = 0;
+        int readPosition = -1;
+        while (position + HEADER_SIZE <= capacity) {
+            int length = buffer.getInt(position);
+            int size = Math.abs(length);
+            if (length == 0 || size < 0 || size > capacity - position - HEADER_SIZE) {
+                break;
+            }
+            if (length > 0) {
+                byte[] data = new byte[size];
+                ByteBuffer body = buffer.duplicate();
+                body.position(position + HEADER_SIZE);
+                body.get(data);
+                if (crc(data) != buffer.getInt(position + 4)) {
+                    // torn write, the rest of the segment is not reliable
+                    break;
+                }
+                segment.pending++;
+                if (readPosition < 0) {
+                    readPosition = position;
+                }
+            }
+            position += HEADER_SIZE + size;
+        }
+        segment.writePosition = position;
+        segment.readPosition = readPosition < 0 ? position : readPosition;
+    }
+
+    private Segment createSegment() throws IOException {
+        long sequence = nextSequence++;
+        File file = new File(directory, String.format("%020d%s", sequence, SEGMENT_SUFFIX));
+        Segment segment = new Segment(sequence, file, map(file, segmentSize));
+        segments.addLast(segment);
+        return segment;
+    }
+
+    private void seal() {
+        if (writeSegment == null) {
+            return;
+        }
+        writeSegment.buffer.force();
+        if (writeSegment.pending == 0) {
+            segments.remove(writeSegment);
+            release(writeSegment);
+        }
+        writeSegment = null;
+    }
+
+    private static MappedByteBuffer map(File file, int size) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            // the mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    private static void release(Segment segment) {
+        unmap(segment.buffer);
+        if (!segment.file.delete()) {
+            // still mapped on some platforms, delete it later
+            segment.file.deleteOnExit();
+        }
+    }
+
+    /**
+     * Release the mapping now instead of when the buffer is collected, the buffer must not be accessed anymore:
+     * Unsafe#invokeCleaner since java 9, the cleaner of the direct buffer before
+     */
+    static void unmap(MappedByteBuffer buffer) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner;
+            try {
+                invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            } catch (NoSuchMethodException e) {
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null) {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+                return;
+            }
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            invokeCleaner.invoke(theUnsafe.get(null), buffer);
+        } catch (Throwable e) {
+            // unmapped when the buffer is collected
+        }
+    }
+
+    private static long parseSequence(String fileName) {
+        try {
+            return Long.parseLong(fileName.substring(0, fileName.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static int crc(byte[] data) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(data, 0, data.length);
+        return (int) crc32.getValue();
+    }
+
+    private static final class Segment {
+        private final long sequence;
+        private final File file;
+        private final MappedByteBuffer buffer;
+        private int writePosition;
+        private int readPosition;
+        private int pending;
+
+        private Segment(long sequence, File file, MappedByteBuffer buffer) {
+            this.sequence = sequence;
+            this.file = file;
+            this.buffer = buffer;
+        }
+    }
+
+    public static final class Record {
+        private final Segment segment;
+        private final int position;
+        private final byte[] data;
+
+        private Record(Segment segment, int position, byte[] data) {
+            this.segment = segment;
+            this.position = position;
+            this.data = data;
+        }
+
+        public byte[] getData() {
+            return data;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package io.arex.foundation.internal;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded lock-free multi-producer/single-consumer ring buffer.
+ * <pre>
+ * producers claim a slot by CAS on the producer sequence, then publish the element with an ordered write,
+ * the single consumer waits for the published element, clears the slot and advances the consumer sequence.
+ * </pre>
+ * {@link #offer} may be called from any thread, {@link #poll} and {@link #drainTo} only from the consumer thread.
+ */
+public class MpscRingBuffer<E> {
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private final int mask;
+    private final int capacity;
+    private final AtomicReferenceArray<E> buffer;
+    private final PaddedSequence producerSequence = new PaddedSequence();
+    private final PaddedSequence consumerSequence = new PaddedSequence();
+    /**
+     * Cached upper bound of claimable producer sequence, avoid reading consumer sequence on each offer
+     */
+    private final PaddedSequence producerLimit;
+
+    public MpscRingBuffer(int capacity) {
+        this.capacity = roundToPowerOfTwo(capacity);
+        this.mask = this.capacity - 1;
+        this.buffer = new AtomicReferenceArray<>(this.capacity);
+        this.producerLimit = new PaddedSequence(this.capacity);
+    }
+
+    /**
+     * @return false if the buffer is full
+     */
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException("element");
+        }
+        long limit = producerLimit.get();
+        long sequence;
+        do {
+            sequence = producerSequence.get();
+            if (sequence >= limit) {
+                limit = consumerSequence.get() + capacity;
+                if (sequence >= limit) {
+                    return false;
+                }
+                producerLimit.lazySet(limit);
+            }
+        } while (!producerSequence.compareAndSet(sequence, sequence + 1));
+
+        buffer.lazySet(offset(sequence), element);
+        return true;
+    }
+
+    /**
+     * Single consumer only
+     * @return null if the buffer is empty
+     */
+    public E poll() {
+        long sequence = consumerSequence.get();
+        int offset = offset(sequence);
+        E element = buffer.get(offset);
+        if (element == null) {
+            if (sequence == producerSequence.get()) {
+                return null;
+            }
+            // slot claimed but not published yet
+            do {
+                element = buffer.get(offset);
+            } while (element == null);
+        }
+        buffer.lazySet(offset, null);
+        consumerSequence.lazySet(sequence + 1);
+        return element;
+    }
+
+    /**
+     * Single consumer only, drain at most {@code limit} published elements
+     * @return the number of elements drained
+     */
+    public int drainTo(Consumer<? super E> consumer, int limit) {
+        long sequence = consumerSequence.get();
+        int drained = 0;
+        for (; drained < limit; drained++) {
+            int offset = offset(sequence);
+            E element = buffer.get(offset);
+            if (element == null) {
+                break;
+            }
+            buffer.lazySet(offset, null);
+            consumerSequence.lazySet(++sequence);
+            consumer.accept(element);
+        }
+        return drained;
+    }
+
+    public int size() {
+        long consumer = consumerSequence.get();
+        long producer = producerSequence.get();
+        return (int) Math.min(Math.max(producer - consumer, 0), capacity);
+    }
+
+    public boolean isEmpty() {
+        return consumerSequence.get() == producerSequence.get();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    private int offset(long sequence) {
+        return (int) sequence & mask;
+    }
+
+    static int roundToPowerOfTwo(int value) {
+        if (value <= 1) {
+            return 1;
+        }
+        if (value >= MAX_CAPACITY) {
+            return MAX_CAPACITY;
+        }
+        return Integer.highestOneBit(value - 1) << 1;
+    }
+
+    /**
+     * Pad the sequence to its own cache line, avoid false sharing between producers and consumer
+     */
+    @SuppressWarnings("unused")
+    static final class PaddedSequence extends AtomicLong {
+        long p1, p2, p3, p4, p5, p6, p7;
+
+        PaddedSequence() {
+            super();
+        }
+
+        PaddedSequence(long initialValue) {
+            super(initialValue);
+        }
+    }
+}
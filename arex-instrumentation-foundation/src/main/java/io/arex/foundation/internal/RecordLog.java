@@ -0,0 +1,230 @@
+package io.arex.foundation.internal;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.IntConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append only log of entries on segment files, an entry is addressed by segment id (high 32 bits)
+ * and offset in the segment (low 32 bits).
+ * <pre>
+ * entry: [int length][int crc32][byte type][payload], the length covers type and payload.
+ * A torn entry (short read or bad crc) ends the log when opening, the segment is truncated there
+ * and the later segments are deleted.
+ * Once the total size exceeds max bytes, the oldest segment is dropped and the listener is notified.
+ * </pre>
+ * Appends are serialized, reads are positional and lock free.
+ */
+public class RecordLog implements Closeable {
+    static final String SEGMENT_SUFFIX = ".log";
+    static final int HEADER_SIZE = 9;
+
+    private final File directory;
+    private final long segmentSize;
+    private final long maxBytes;
+    private final ConcurrentSkipListMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+    private IntConsumer dropListener;
+    private Segment writeSegment;
+
+    public RecordLog(File directory, long segmentSize, long maxBytes) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("can not create log directory: " + directory);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxBytes = maxBytes;
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(SEGMENT_SUFFIX));
+        if (files != null) {
+            for (File file : files) {
+                int id = parseId(file.getName());
+                if (id >= 0) {
+                    segments.put(id, new Segment(id, file));
+                }
+            }
+        }
+    }
+
+    public interface EntryVisitor {
+        void visit(byte type, long address, byte[] payload);
+    }
+
+    /**
+     * Visit all entries in append order, called once before appending
+     */
+    public synchronized void load(EntryVisitor visitor) throws IOException {
+        Segment torn = null;
+        for (Segment segment : segments.values()) {
+            if (torn != null) {
+                // entries after a torn one were never acknowledged in order, the segment is dropped
+                segments.remove(segment.id);
+                segment.channel.close();
+                if (!segment.file.delete()) {
+                    segment.file.deleteOnExit();
+                }
+                continue;
+            }
+            long position = 0;
+            long size = segment.channel.size();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (position + HEADER_SIZE <= size) {
+                header.clear();
+                segment.channel.read(header, position);
+                int length = header.getInt(0);
+                if (length <= 0 || position + HEADER_SIZE - 1 + length > size) {
+                    break;
+                }
+                byte[] payload = new byte[length - 1];
+                segment.channel.read(ByteBuffer.wrap(payload), position + HEADER_SIZE);
+                byte type = header.get(8);
+                if (crc(type, payload) != header.getInt(4)) {
+                    break;
+                }
+                visitor.visit(type, address(segment.id, position), payload);
+                position += HEADER_SIZE - 1 + length;
+            }
+            if (position < size) {
+                // drop the torn tail, the log ends here
+                segment.channel.truncate(position);
+                torn = segment;
+            }
+            segment.size = position;
+        }
+        if (!segments.isEmpty()) {
+            writeSegment = segments.lastEntry().getValue();
+        }
+    }
+
+    /**
+     * @param dropListener receives the segment id when the oldest segment is dropped
+     */
+    public void setDropListener(IntConsumer dropListener) {
+        this.dropListener = dropListener;
+    }
+
+    /**
+     * @return address of the entry
+     */
+    public synchronized long append(byte type, byte[] payload) throws IOException {
+        int entrySize = HEADER_SIZE + payload.length;
+        if (writeSegment == null || writeSegment.size + entrySize > segmentSize && writeSegment.size > 0) {
+            roll();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(entrySize);
+        buffer.putInt(payload.length + 1).putInt(crc(type, payload)).put(type).put(payload);
+        buffer.flip();
+        long position = writeSegment.size;
+        while (buffer.hasRemaining()) {
+            writeSegment.channel.write(buffer, position + buffer.position());
+        }
+        writeSegment.size += entrySize;
+        return address(writeSegment.id, position);
+    }
+
+    /**
+     * @return the payload of the entry, null if its segment was dropped
+     */
+    public byte[] read(long address, int payloadLength) throws IOException {
+        Segment segment = segments.get(segmentId(address));
+        if (segment == null) {
+            return null;
+        }
+        byte[] payload = new byte[payloadLength];
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        long position = offset(address) + HEADER_SIZE;
+        while (buffer.hasRemaining()) {
+            int read = segment.channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                return null;
+            }
+        }
+        return payload;
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments.values()) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (Segment segment : segments.values()) {
+            segment.channel.close();
+        }
+        segments.clear();
+        writeSegment = null;
+    }
+
+    private void roll() throws IOException {
+        int id = segments.isEmpty() ? 0 : segments.lastKey() + 1;
+        writeSegment = new Segment(id, new File(directory, String.format("%010d%s", id, SEGMENT_SUFFIX)));
+        segments.put(id, writeSegment);
+        List<Segment> dropped = new ArrayList<>();
+        while (segments.size() > 1 && size() + segmentSize > maxBytes) {
+            Map.Entry<Integer, Segment> oldest = segments.pollFirstEntry();
+            dropped.add(oldest.getValue());
+        }
+        for (Segment segment : dropped) {
+            segment.channel.close();
+            if (!segment.file.delete()) {
+                segment.file.deleteOnExit();
+            }
+            if (dropListener != null) {
+                dropListener.accept(segment.id);
+            }
+        }
+    }
+
+    public static int segmentId(long address) {
+        return (int) (address >>> 32);
+    }
+
+    private static long offset(long address) {
+        return address & 0xFFFFFFFFL;
+    }
+
+    private static long address(int segmentId, long offset) {
+        return ((long) segmentId << 32) | offset;
+    }
+
+    private static int parseId(String fileName) {
+        try {
+            return Integer.parseInt(fileName.substring(0, fileName.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static int crc(byte type, byte[] payload) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(type);
+        crc32.update(payload, 0, payload.length);
+        return (int) crc32.getValue();
+    }
+
+    private static final class Segment {
+        private final int id;
+        private final File file;
+        private final FileChannel channel;
+        private volatile long size;
+
+        private Segment(int id, File file) throws IOException {
+            this.id = id;
+            this.file = file;
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            this.size = channel.size();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package io.arex.foundation.internal;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+
+/**
+ * A trained zstd dictionary, identified by the dictionary id embedded in its content.
+ */
+public class ZstdDictionary {
+    private static final int COMPRESSION_LEVEL = 3;
+
+    private final long id;
+    private final byte[] content;
+    private final ZstdDictCompress compressDictionary;
+
+    public ZstdDictionary(byte[] content) {
+        this.id = Zstd.getDictIdFromDict(content);
+        this.content = content;
+        this.compressDictionary = new ZstdDictCompress(content, COMPRESSION_LEVEL);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public byte[] getContent() {
+        return content;
+    }
+
+    public ZstdDictCompress getCompressDictionary() {
+        return compressDictionary;
+    }
+}
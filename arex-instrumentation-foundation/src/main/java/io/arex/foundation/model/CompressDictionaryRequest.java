@@ -0,0 +1,50 @@
+package io.arex.foundation.model;
+
+import java.io.Serializable;
+
+/**
+ * Register a trained zstd dictionary to storage service,
+ * batchSaveMockers requests compressed with it carry the dictionary id in header.
+ */
+public class CompressDictionaryRequest implements Serializable {
+
+    private String appId;
+    private long dictionaryId;
+    /**
+     * base64 encoded dictionary content
+     */
+    private String dictionary;
+
+    public CompressDictionaryRequest() {
+    }
+
+    public CompressDictionaryRequest(String appId, long dictionaryId, String dictionary) {
+        this.appId = appId;
+        this.dictionaryId = dictionaryId;
+        this.dictionary = dictionary;
+    }
+
+    public String getAppId() {
+        return appId;
+    }
+
+    public void setAppId(String appId) {
+        this.appId = appId;
+    }
+
+    public long getDictionaryId() {
+        return dictionaryId;
+    }
+
+    public void setDictionaryId(long dictionaryId) {
+        this.dictionaryId = dictionaryId;
+    }
+
+    public String getDictionary() {
+        return dictionary;
+    }
+
+    public void setDictionary(String dictionary) {
+        this.dictionary = dictionary;
+    }
+}
@@ -3,7 +3,9 @@ package io.arex.foundation.model;
 public enum DecelerateReasonEnum {
     NORMAL(0, "normal"),
     QUEUE_OVERFLOW(1, "queue overflow"),
-    SERVICE_EXCEPTION(2, "service exception");
+    SERVICE_EXCEPTION(2, "service exception"),
+    BACKPRESSURE(3, "backpressure"),
+    SERIALIZE_FAILURE(4, "serialize failure");
 
     private final int code;
     private final String value;
@@ -16,6 +16,7 @@ import java.time.OffsetDateTime;
 import com.google.gson.*;
 
 import javax.xml.datatype.XMLGregorianCalendar;
+import java.io.Writer;
 import java.lang.reflect.Type;
 import java.sql.Timestamp;
 import java.time.LocalDate;
@@ -96,6 +97,14 @@ public class GsonSerializer implements StringSerializable {
         return serializer.toJson(object);
     }
 
+    @Override
+    public void serialize(Object object, Writer writer) {
+        if (object == null) {
+            return;
+        }
+        serializer.toJson(object, writer);
+    }
+
     @Override
     public <T> T deserialize(String json, Class<T> clazz) {
         if (StringUtil.isEmpty(json) || clazz == null) {
@@ -33,6 +33,7 @@ import io.arex.inst.runtime.log.LogManager;
 import io.arex.inst.runtime.serializer.StringSerializable;
 
 import javax.xml.datatype.XMLGregorianCalendar;
+import java.io.Writer;
 import java.lang.reflect.Type;
 import java.sql.Time;
 import java.sql.Timestamp;
@@ -88,6 +89,14 @@ public final class JacksonSerializer implements StringSerializable {
         return MAPPER.writeValueAsString(object);
     }
 
+    @Override
+    public void serialize(Object object, Writer writer) throws Throwable {
+        if (object == null) {
+            return;
+        }
+        MAPPER.writeValue(writer, object);
+    }
+
     @Override
     public <T> T deserialize(String json, Class<T> clazz) throws Throwable {
         if (StringUtil.isEmpty(json) || clazz == null) {
@@ -1,5 +1,6 @@
 package io.arex.foundation.services;
 
+import com.github.luben.zstd.ZstdDictCompress;
 import com.google.auto.service.AutoService;
 import io.arex.agent.bootstrap.model.ArexMocker;
 import io.arex.agent.bootstrap.model.MockStrategyEnum;
@@ -8,10 +9,14 @@ import io.arex.agent.bootstrap.util.MapUtils;
 import io.arex.agent.bootstrap.util.StringUtil;
 import io.arex.foundation.config.ConfigManager;
 import io.arex.foundation.healthy.HealthManager;
+import io.arex.foundation.internal.DataBatch;
 import io.arex.foundation.internal.DataEntity;
-import io.arex.foundation.internal.MockEntityBuffer;
+import io.arex.foundation.internal.MpscRingBuffer;
+import io.arex.foundation.internal.ZstdDictionary;
 import io.arex.foundation.model.DecelerateReasonEnum;
+import io.arex.foundation.util.CompressUtil.ContentWriter;
 import io.arex.foundation.util.httpclient.AsyncHttpClientUtil;
+import io.arex.foundation.util.httpclient.ServiceEndpoints;
 import io.arex.foundation.model.HttpClientResponse;
 import io.arex.foundation.util.httpclient.async.ThreadFactoryImpl;
 import io.arex.inst.runtime.log.LogManager;
@@ -20,17 +25,21 @@ import io.arex.inst.runtime.serializer.Serializer;
 import io.arex.inst.runtime.util.CaseManager;
 import io.arex.inst.runtime.service.DataCollector;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
+import java.util.function.LongSupplier;
 
 @AutoService(DataCollector.class)
 public class DataCollectorService implements DataCollector {
@@ -39,35 +48,55 @@ public class DataCollectorService implements DataCollector {
     final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 15,
             TimeUnit.MINUTES, new LinkedBlockingQueue<>(), new ThreadFactoryImpl("data-save-handler"));
 
-    private MockEntityBuffer buffer = null;
+    private static final int DRAIN_BATCH_SIZE = 64;
+    private static final long IDLE_WAIT_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private MpscRingBuffer<DataEntity> buffer = null;
+    /**
+     * Serializer workers, only created if {@link ConfigManager#isAsyncSerialize()}
+     */
+    private ThreadPoolExecutor serializeExecutor = null;
+    /**
+     * Entities serialized by the workers, waiting to be merged into a batch by the save loop
+     */
+    private MpscRingBuffer<DataEntity> serializedBuffer = null;
     private Future<?> executeFuture = null;
     private final AtomicBoolean initialized = new AtomicBoolean(false);
+    private volatile Thread loopThread;
+    private volatile boolean loopWaiting;
 
-    private static String queryApiUrl;
-    private static String saveApiUrl;
-    private static String invalidCaseApiUrl;
-    private static String queryAllApiUrl;
+    /**
+     * Only accessed by the save loop thread
+     */
+    private DataBatch pendingBatch;
+    private int batchSize;
+    private long batchBytes;
+    private long batchLingerNanos;
 
-    static {
-        initServiceHost();
-    }
+    private static final String QUERY_PATH = "/api/storage/record/query";
+    static final String SAVE_PATH = "/api/storage/record/batchSaveMockers";
+    private static final String INVALID_CASE_PATH = "/api/storage/record/invalidCase";
+    private static final String QUERY_ALL_PATH = "/api/storage/record/queryMockers";
 
     @Override
     public void save(List<Mocker> mockerList) {
         if (HealthManager.isFastRejection()) {
             return;
         }
-        DataEntity entity = new DataEntity(mockerList);
-        if (!buffer.put(entity)) {
+        DataEntity entity = serializeExecutor != null ? DataEntity.deferred(mockerList) : new DataEntity(mockerList);
+        if (!buffer.offer(entity)) {
             HealthManager.onEnqueueRejection();
             CaseManager.invalid(entity.getRecordId(), null,
                     entity.getOperationName(), DecelerateReasonEnum.QUEUE_OVERFLOW.getValue());
+            return;
         }
+        signalLoop();
     }
 
     @Override
     public void invalidCase(String postData) {
-        AsyncHttpClientUtil.postAsyncWithJson(invalidCaseApiUrl, postData, null);
+        ServiceEndpoints.STORAGE.execute(INVALID_CASE_PATH,
+                url -> AsyncHttpClientUtil.postAsyncWithJson(url, postData, null));
     }
 
     @Override
@@ -84,32 +113,57 @@ public class DataCollectorService implements DataCollector {
 
     public void stop() {
         initialized.compareAndSet(true, false);
+        signalLoop();
     }
 
     private void init() {
         if (buffer == null) {
-            buffer = new MockEntityBuffer(ConfigManager.INSTANCE.getBufferSize());
+            buffer = new MpscRingBuffer<>(ConfigManager.INSTANCE.getBufferSize());
+        }
+        MpscRingBuffer<DataEntity> recordBuffer = buffer;
+        HealthManager.registerBufferOccupancy(() -> (double) recordBuffer.size() / recordBuffer.capacity());
+
+        if (serializeExecutor == null && ConfigManager.INSTANCE.isAsyncSerialize()) {
+            int workerSize = ConfigManager.INSTANCE.getSerializeWorkerSize();
+            serializedBuffer = new MpscRingBuffer<>(ConfigManager.INSTANCE.getBufferSize());
+            // caller(save loop) runs when all workers are busy, so the backlog is still bounded by the buffer
+            serializeExecutor = new ThreadPoolExecutor(workerSize, workerSize, 15, TimeUnit.MINUTES,
+                    new ArrayBlockingQueue<>(ConfigManager.INSTANCE.getBufferSize()),
+                    new ThreadFactoryImpl("data-serialize-handler"), new ThreadPoolExecutor.CallerRunsPolicy());
         }
 
+        batchSize = ConfigManager.INSTANCE.getBatchSaveSize();
+        // the compressed body is not larger than the original one, keep it under the 5MB limit of storage service
+        batchBytes = Math.min(ConfigManager.INSTANCE.getBatchSaveBytes(), AsyncHttpClientUtil.RECORD_BODY_MAX_LIMIT_5MB);
+        batchLingerNanos = TimeUnit.MILLISECONDS.toNanos(ConfigManager.INSTANCE.getBatchSaveLingerMs());
+
+        RecordSpoolService.INSTANCE.start();
+
         if (executeFuture == null) {
             executeFuture = executor.submit(this::loop);
         }
     }
 
     private void loop() {
+        loopThread = Thread.currentThread();
         while (true) {
             try {
-                DataEntity entity = buffer.get();
-                if (entity == null) {
+                int drained = buffer.drainTo(this::consume, DRAIN_BATCH_SIZE);
+                if (serializedBuffer != null) {
+                    drained += serializedBuffer.drainTo(this::appendBatch, DRAIN_BATCH_SIZE);
+                }
+                if (pendingBatch != null && (pendingBatch.isFull() || pendingBatch.isExpired(System.nanoTime()))) {
+                    flushBatch();
+                }
+                if (drained == 0) {
                     if (!initialized.get()) {
+                        flushBatch();
                         break;
                     }
 
-                    doSleep(1000);
+                    awaitData();
                     continue;
                 }
-                HealthManager.reportUsedTime(System.nanoTime() - entity.getQueueTime(), true);
-                saveData(entity);
                 if (HealthManager.isFastRejection()) {
                     doSleep(100);
                 }
@@ -119,6 +173,108 @@ public class DataCollectorService implements DataCollector {
         }
     }
 
+    /**
+     * Park the save loop until new data is enqueued or the pending batch lingers out.
+     */
+    private void awaitData() {
+        long waitNanos = pendingBatch == null ? IDLE_WAIT_NANOS : pendingBatch.getDeadline() - System.nanoTime();
+        if (waitNanos <= 0) {
+            return;
+        }
+        loopWaiting = true;
+        // recheck after publishing the waiting flag, pairs with signalLoop
+        if (buffer.isEmpty() && (serializedBuffer == null || serializedBuffer.isEmpty()) && initialized.get()) {
+            LockSupport.parkNanos(this, waitNanos);
+        }
+        loopWaiting = false;
+    }
+
+    private void signalLoop() {
+        if (loopWaiting) {
+            LockSupport.unpark(loopThread);
+        }
+    }
+
+    private void consume(DataEntity entity) {
+        try {
+            long dequeueTime = System.nanoTime();
+            HealthManager.reportStageTime(HealthManager.Stage.BUFFER, dequeueTime - entity.getQueueTime());
+            if (entity.isSerialized()) {
+                HealthManager.reportUsedTime(dequeueTime - entity.getQueueTime(), true);
+                appendBatch(entity);
+                return;
+            }
+            if (serializeExecutor == null) {
+                // serialized when saved, the serializer failed
+                discardUnserialized(entity);
+                return;
+            }
+            serializeExecutor.execute(() -> serializeAndEnqueue(entity, dequeueTime));
+        } catch (Throwable throwable) {
+            LogManager.warn("saveDataLoop", "send mock data unhandled error");
+        }
+    }
+
+    void serializeAndEnqueue(DataEntity entity, long dequeueTime) {
+        try {
+            if (CaseManager.isInvalidCase(entity.getRecordId())) {
+                return;
+            }
+            entity.serialize();
+            long serializedTime = System.nanoTime();
+            HealthManager.reportStageTime(HealthManager.Stage.SERIALIZE, serializedTime - dequeueTime);
+            // the health decision counts each entity once: buffer and serializer stage
+            HealthManager.reportUsedTime(serializedTime - entity.getQueueTime(), true);
+            if (!entity.isSerialized()) {
+                discardUnserialized(entity);
+                return;
+            }
+            if (serializedBuffer != null && serializedBuffer.offer(entity)) {
+                signalLoop();
+                return;
+            }
+            saveData(entity);
+        } catch (Throwable throwable) {
+            LogManager.warn("serializeAndEnqueue", StringUtil.format("serialize mock data error: %s, recordId: %s",
+                    throwable.toString(), entity.getRecordId()));
+        }
+    }
+
+    /**
+     * The serializer returns null on failure, the case is incomplete without the mockers
+     */
+    private static void discardUnserialized(DataEntity entity) {
+        LogManager.warn("serializeMockData", StringUtil.format("serialize mock data failed, recordId: %s",
+                entity.getRecordId()));
+        CaseManager.invalid(entity.getRecordId(), null, entity.getOperationName(),
+                DecelerateReasonEnum.SERIALIZE_FAILURE.getValue());
+    }
+
+    private void appendBatch(DataEntity entity) {
+        if (CaseManager.isInvalidCase(entity.getRecordId())) {
+            return;
+        }
+        ZstdDictionaryService.INSTANCE.sample(entity.getPostData());
+        if (pendingBatch == null) {
+            pendingBatch = new DataBatch(batchSize, batchBytes, batchLingerNanos);
+        }
+        if (!pendingBatch.add(entity)) {
+            flushBatch();
+            pendingBatch = new DataBatch(batchSize, batchBytes, batchLingerNanos);
+            pendingBatch.add(entity);
+        }
+        if (pendingBatch.isFull()) {
+            flushBatch();
+        }
+    }
+
+    private void flushBatch() {
+        if (pendingBatch != null && !pendingBatch.isEmpty()) {
+            saveBatch(pendingBatch);
+        }
+        pendingBatch = null;
+    }
+
     static void doSleep(long millis) {
         try {
             Thread.sleep(millis);
@@ -128,13 +284,43 @@ public class DataCollectorService implements DataCollector {
     }
 
     private static final String MOCK_STRATEGY = "X-AREX-Mock-Strategy-Code";
+    private static final String ZSTD_DICTIONARY_ID = "X-AREX-Zstd-Dictionary-Id";
 
     void saveData(DataEntity entity) {
         if (entity == null || CaseManager.isInvalidCase(entity.getRecordId())) {
             return;
         }
-        AsyncHttpClientUtil.postAsyncWithZstdJson(saveApiUrl, entity.getPostData(), null)
-                .whenComplete(saveMockDataConsumer(entity));
+        String postData = entity.getPostData();
+        postSaveData(writer -> writer.write(postData), Collections.singletonList(entity),
+                () -> StringUtil.utf8Length(postData, 0, postData.length()));
+    }
+
+    /**
+     * Send the merged mockers of the batch in one batchSaveMockers request
+     */
+    void saveBatch(DataBatch batch) {
+        if (batch.size() == 1) {
+            saveData(batch.getEntityList().get(0));
+            return;
+        }
+        postSaveData(batch::writeTo, batch.getEntityList(), batch::length);
+    }
+
+    /**
+     * Compress with the trained dictionary if available, otherwise plain zstd
+     */
+    private void postSaveData(ContentWriter content, List<DataEntity> entityList, LongSupplier bodyBytes) {
+        ZstdDictionary dictionary = ZstdDictionaryService.INSTANCE.current();
+        Map<String, String> requestHeaders = null;
+        if (dictionary != null) {
+            requestHeaders = MapUtils.newHashMapWithExpectedSize(2);
+            requestHeaders.put(ZSTD_DICTIONARY_ID, String.valueOf(dictionary.getId()));
+        }
+        ZstdDictCompress compressDictionary = dictionary != null ? dictionary.getCompressDictionary() : null;
+        Map<String, String> headers = requestHeaders;
+        ServiceEndpoints.STORAGE.execute(SAVE_PATH, url ->
+                        AsyncHttpClientUtil.postAsyncStreamingZstdJson(url, content, compressDictionary, headers))
+                .whenComplete(saveMockDataConsumer(entityList, content, bodyBytes));
     }
 
     /**
@@ -144,8 +330,9 @@ public class DataCollectorService implements DataCollector {
         Map<String, String> requestHeaders = MapUtils.newHashMapWithExpectedSize(1);
         requestHeaders.put(MOCK_STRATEGY, mockStrategy.getCode());
 
-        CompletableFuture<HttpClientResponse> responseCompletableFuture = AsyncHttpClientUtil.postAsyncWithZstdJson(queryApiUrl, postData,
-                requestHeaders).handle(queryMockDataFunction(postData));
+        CompletableFuture<HttpClientResponse> responseCompletableFuture = ServiceEndpoints.STORAGE.execute(QUERY_PATH,
+                url -> AsyncHttpClientUtil.postAsyncWithZstdJson(url, postData, requestHeaders))
+                .handle(queryMockDataFunction(postData));
 
         HttpClientResponse clientResponse = responseCompletableFuture.join();
         if (clientResponse == null) {
@@ -168,38 +355,54 @@ public class DataCollectorService implements DataCollector {
         };
     }
 
-    private <T> BiConsumer<T, Throwable> saveMockDataConsumer(DataEntity entity) {
+    /**
+     * If save failed, spool the data to local disk to replay later, invalidate the cases if not spooled
+     */
+    private <T> BiConsumer<T, Throwable> saveMockDataConsumer(List<DataEntity> entityList, ContentWriter content,
+                                                             LongSupplier bodyBytes) {
         return (response, throwable) -> {
-            long usedTime = System.nanoTime() - entity.getQueueTime();
+            long now = System.nanoTime();
             if (Objects.nonNull(throwable)) {
-                CaseManager.invalid(entity.getRecordId(), null, entity.getOperationName(), DecelerateReasonEnum.SERVICE_EXCEPTION.getValue());
-                LogManager.warn("saveMockDataConsumer", StringUtil.format("save mock data error: %s, post data: %s",
-                        throwable.toString(), entity.getPostData()));
-                usedTime = -1; // -1:reject
+                // called on the io reactor, spooled on the spool thread
+                RecordSpoolService.INSTANCE.spoolAsync(content, () -> {
+                    for (DataEntity entity : entityList) {
+                        CaseManager.invalid(entity.getRecordId(), null, entity.getOperationName(), DecelerateReasonEnum.SERVICE_EXCEPTION.getValue());
+                    }
+                });
+                // the body may be MBs, only the record ids and the size are logged
+                LogManager.warn("saveMockDataConsumer", StringUtil.format("save mock data error: %s, recordIds: %s, bytes: %s",
+                        throwable.toString(), recordIds(entityList), String.valueOf(bodyBytes.getAsLong())));
                 HealthManager.onDataServiceRejection();
             }
-            HealthManager.reportUsedTime(usedTime, false);
+            for (DataEntity entity : entityList) {
+                // -1:reject
+                HealthManager.reportUsedTime(throwable != null ? -1 : now - entity.getQueueTime(), false);
+            }
         };
     }
 
-    private static void initServiceHost() {
-        String storeServiceHost = ConfigManager.INSTANCE.getStorageServiceHost();
-        queryApiUrl = String.format("http://%s/api/storage/record/query", storeServiceHost);
-        saveApiUrl = String.format("http://%s/api/storage/record/batchSaveMockers", storeServiceHost);
-        invalidCaseApiUrl = String.format("http://%s/api/storage/record/invalidCase", storeServiceHost);
-        queryAllApiUrl = String.format("http://%s/api/storage/record/queryMockers", storeServiceHost);
+    private static String recordIds(List<DataEntity> entityList) {
+        StringBuilder builder = new StringBuilder();
+        for (DataEntity entity : entityList) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(entity.getRecordId());
+        }
+        return builder.toString();
     }
 
     @Override
     public String queryAll(String postData) {
-        CompletableFuture<HttpClientResponse> responseCompletableFuture =
-                AsyncHttpClientUtil.postAsyncWithZstdJson(queryAllApiUrl, postData, null)
-                        .handle(queryAllMocksFunction(postData));
-        HttpClientResponse clientResponse = responseCompletableFuture.join();
-        if (clientResponse == null) {
-            return null;
-        }
-        return clientResponse.getBody();
+        return queryAllAsync(postData).join();
+    }
+
+    @Override
+    public CompletableFuture<String> queryAllAsync(String postData) {
+        return ServiceEndpoints.STORAGE.execute(QUERY_ALL_PATH,
+                        url -> AsyncHttpClientUtil.postAsyncWithZstdJson(url, postData, null))
+                .handle(queryAllMocksFunction(postData))
+                .thenApply(clientResponse -> clientResponse == null ? null : clientResponse.getBody());
     }
 
     private BiFunction<HttpClientResponse, Throwable, HttpClientResponse> queryAllMocksFunction(String postData) {
@@ -0,0 +1,50 @@
+package io.arex.foundation.services;
+
+import io.arex.agent.bootstrap.InstrumentationHolder;
+import io.arex.agent.bootstrap.util.StringUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Local data directories of the agent, e.g. spool and embedded storage
+ */
+class DataDirectories {
+    private static final String LOCK_FILE = "arex.lock";
+
+    private DataDirectories() {
+    }
+
+    /**
+     * @return the configured path, otherwise the named directory beside the agent jar
+     */
+    static File resolve(String configuredPath, String name) {
+        if (StringUtil.isNotEmpty(configuredPath)) {
+            return new File(configuredPath);
+        }
+        File agentFile = InstrumentationHolder.getAgentFile();
+        if (agentFile != null && agentFile.getParentFile() != null) {
+            return new File(agentFile.getParentFile(), name);
+        }
+        return new File(System.getProperty("java.io.tmpdir"), "arex-" + name);
+    }
+
+    /**
+     * Lock the directory, so only one process uses it.
+     * @return the channel holding the lock until it is closed, null if locked by another process
+     */
+    static FileChannel tryLock(File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("can not create directory: " + directory);
+        }
+        FileChannel channel = FileChannel.open(new File(directory, LOCK_FILE).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (channel.tryLock() == null) {
+            channel.close();
+            return null;
+        }
+        return channel;
+    }
+}
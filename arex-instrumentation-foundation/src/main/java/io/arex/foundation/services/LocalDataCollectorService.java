@@ -0,0 +1,416 @@
+package io.arex.foundation.services;
+
+import com.google.auto.service.AutoService;
+import com.google.gson.Gson;
+import io.arex.agent.bootstrap.model.ArexMocker;
+import io.arex.agent.bootstrap.model.MockStrategyEnum;
+import io.arex.agent.bootstrap.model.Mocker;
+import io.arex.agent.bootstrap.util.CollectionUtil;
+import io.arex.agent.bootstrap.util.StringUtil;
+import io.arex.foundation.config.ConfigManager;
+import io.arex.foundation.healthy.HealthManager;
+import io.arex.foundation.internal.RecordLog;
+import io.arex.foundation.model.DecelerateReasonEnum;
+import io.arex.foundation.util.httpclient.async.ThreadFactoryImpl;
+import io.arex.inst.runtime.log.LogManager;
+import io.arex.inst.runtime.model.QueryAllMockerDTO;
+import io.arex.inst.runtime.serializer.Serializer;
+import io.arex.inst.runtime.service.DataCollector;
+import io.arex.inst.runtime.util.CaseManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Embedded storage used if storage mode is local, record and replay without storage service.
+ * <pre>
+ * 1. recorded mockers are serialized on the caller thread (same as the http data collector) and appended to
+ * a {@link RecordLog} by one writer thread, one entry per mocker, an invalid case is appended as a tombstone
+ * 2. the in-memory index keyed by recordId keeps address, category, operation and request hash (64 bit) of each mocker,
+ * it is rebuilt from the log when starting
+ * 3. query matches by category and operation: an unused mocker with the same request first,
+ * then the next unused one in record order (except STRICT_MATCH), then the last one if FIND_LAST,
+ * an entry point always matches the first one. Used mockers are tracked per replayId
+ * 4. queryAll returns the mockers of the requested category types as a json array
+ * </pre>
+ */
+@AutoService(DataCollector.class)
+public class LocalDataCollectorService implements DataCollector {
+    static final byte MOCKER_ENTRY = 1;
+    static final byte INVALID_ENTRY = 2;
+    private static final long SEGMENT_SIZE = 64 * 1024 * 1024L;
+    private static final int MAX_REPLAY_STATES = 1024;
+    private static final Gson GSON = new Gson();
+
+    private final Map<String, List<IndexEntry>> recordIndex = new ConcurrentHashMap<>();
+    /**
+     * replayId -> addresses of the used mockers, only the latest replays are kept
+     */
+    private final Map<String, Set<Long>> replayStates = Collections.synchronizedMap(
+            new LinkedHashMap<String, Set<Long>>(16, 0.75F, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Set<Long>> eldest) {
+                    return size() > MAX_REPLAY_STATES;
+                }
+            });
+    private final AtomicBoolean initialized = new AtomicBoolean(false);
+    private volatile RecordLog recordLog;
+    private ThreadPoolExecutor writer;
+    private FileChannel lockChannel;
+
+    @Override
+    public synchronized void start() {
+        if (!initialized.compareAndSet(false, true)) {
+            return;
+        }
+        File directory = new File(DataDirectories.resolve(ConfigManager.INSTANCE.getLocalStoragePath(), "storage"),
+                StringUtil.defaultString(ConfigManager.INSTANCE.getServiceName()));
+        try {
+            // keep the channel open to hold the lock until the process exits
+            lockChannel = DataDirectories.tryLock(directory);
+            if (lockChannel == null) {
+                LogManager.warn("localStorage.start", StringUtil.format(
+                        "storage directory %s is used by another process", directory.getPath()));
+                return;
+            }
+            RecordLog log = new RecordLog(directory, SEGMENT_SIZE, ConfigManager.INSTANCE.getLocalStorageMaxBytes());
+            // indexed in plain lists first, each case is published once instead of copying the array per mocker
+            Map<String, List<IndexEntry>> loadedIndex = new HashMap<>();
+            Set<String> invalidRecordIds = new HashSet<>();
+            log.load((type, address, payload) -> load(type, address, payload, loadedIndex, invalidRecordIds));
+            for (Map.Entry<String, List<IndexEntry>> loaded : loadedIndex.entrySet()) {
+                index(loaded.getKey(), loaded.getValue());
+            }
+            log.setDropListener(this::dropSegment);
+            writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(ConfigManager.INSTANCE.getBufferSize()),
+                    new ThreadFactoryImpl("local-storage-writer"));
+            recordLog = log;
+            LogManager.info("localStorage.start", StringUtil.format("storage directory: %s, cases: %s",
+                    directory.getPath(), String.valueOf(recordIndex.size())));
+        } catch (Throwable e) {
+            LogManager.warn("localStorage.start", e);
+        }
+    }
+
+    /**
+     * Write the pending mockers and release the storage directory
+     */
+    public synchronized void stop() {
+        if (!initialized.compareAndSet(true, false) || recordLog == null) {
+            return;
+        }
+        try {
+            writer.shutdown();
+            writer.awaitTermination(10, TimeUnit.SECONDS);
+            recordLog.close();
+            lockChannel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            LogManager.warn("localStorage.stop", e);
+        } finally {
+            recordLog = null;
+            recordIndex.clear();
+            replayStates.clear();
+        }
+    }
+
+    @Override
+    public void save(List<Mocker> mockerList) {
+        if (recordLog == null || CollectionUtil.isEmpty(mockerList)) {
+            return;
+        }
+        List<PendingEntry> entries = new ArrayList<>(mockerList.size());
+        for (Mocker mocker : mockerList) {
+            String json = Serializer.serialize(mocker);
+            if (json != null && mocker.getCategoryType() != null) {
+                entries.add(new PendingEntry(mocker, json.getBytes(StandardCharsets.UTF_8)));
+            }
+        }
+        Mocker first = mockerList.get(0);
+        try {
+            writer.execute(() -> append(first.getRecordId(), entries));
+        } catch (RejectedExecutionException e) {
+            HealthManager.onEnqueueRejection();
+            CaseManager.invalid(first.getRecordId(), null, first.getOperationName(),
+                    DecelerateReasonEnum.QUEUE_OVERFLOW.getValue());
+        }
+    }
+
+    @Override
+    public void invalidCase(String postData) {
+        Map<?, ?> request = GSON.fromJson(postData, Map.class);
+        if (request == null) {
+            return;
+        }
+        String replayId = (String) request.get("replayId");
+        if (StringUtil.isNotEmpty(replayId)) {
+            replayStates.remove(replayId);
+            return;
+        }
+        String recordId = (String) request.get("recordId");
+        if (recordLog == null || StringUtil.isEmpty(recordId)) {
+            return;
+        }
+        recordIndex.remove(recordId);
+        try {
+            writer.execute(() -> appendTombstone(recordId));
+        } catch (RejectedExecutionException e) {
+            LogManager.warn("localStorage.invalidCase", StringUtil.format("writer is busy, recordId: %s", recordId));
+        }
+    }
+
+    @Override
+    public String query(String postData, MockStrategyEnum mockStrategy) {
+        ArexMocker request = Serializer.deserialize(postData, ArexMocker.class);
+        if (request == null || request.getCategoryType() == null) {
+            return null;
+        }
+        List<IndexEntry> entries = recordIndex.get(request.getRecordId());
+        if (entries == null) {
+            return null;
+        }
+        IndexEntry matched = match(entries, request, mockStrategy);
+        return matched != null ? read(matched) : null;
+    }
+
+    @Override
+    public String queryAll(String postData) {
+        QueryAllMockerDTO request = Serializer.deserialize(postData, QueryAllMockerDTO.class);
+        if (request == null) {
+            return null;
+        }
+        List<IndexEntry> entries = recordIndex.get(request.getRecordId());
+        if (entries == null) {
+            return null;
+        }
+        List<String> categoryTypes = request.getCategoryTypes() != null ?
+                Arrays.asList(request.getCategoryTypes()) : null;
+        StringBuilder builder = new StringBuilder().append('[');
+        for (IndexEntry entry : entries) {
+            if (categoryTypes != null && !categoryTypes.contains(entry.category)) {
+                continue;
+            }
+            String json = read(entry);
+            if (json == null) {
+                continue;
+            }
+            if (builder.length() > 1) {
+                builder.append(',');
+            }
+            builder.append(json);
+        }
+        if (builder.length() == 1) {
+            return null;
+        }
+        return builder.append(']').toString();
+    }
+
+    /**
+     * Used only if storage mode is local, higher than the http data collector
+     */
+    @Override
+    public int order() {
+        return ConfigManager.INSTANCE.isLocalStorage() ? 1 : -1;
+    }
+
+    IndexEntry match(List<IndexEntry> entries, Mocker request, MockStrategyEnum mockStrategy) {
+        String category = request.getCategoryType().getName();
+        String operationName = request.getOperationName();
+        if (request.getCategoryType().isEntryPoint()) {
+            for (IndexEntry entry : entries) {
+                if (entry.matches(category, operationName)) {
+                    return entry;
+                }
+            }
+            return null;
+        }
+
+        String body = request.getTargetRequest() != null ? request.getTargetRequest().getBody() : null;
+        long requestHash = requestHash(body);
+        int requestLength = body != null ? body.length() : -1;
+        Set<Long> used = replayState(request.getReplayId());
+        synchronized (used) {
+            IndexEntry next = null;
+            IndexEntry last = null;
+            IndexEntry lastSameRequest = null;
+            for (IndexEntry entry : entries) {
+                if (!entry.matches(category, operationName)) {
+                    continue;
+                }
+                last = entry;
+                boolean sameRequest = entry.requestHash == requestHash && entry.requestLength == requestLength;
+                if (sameRequest) {
+                    lastSameRequest = entry;
+                }
+                if (used.contains(entry.address)) {
+                    continue;
+                }
+                if (sameRequest) {
+                    used.add(entry.address);
+                    return entry;
+                }
+                if (next == null) {
+                    next = entry;
+                }
+            }
+            if (mockStrategy == MockStrategyEnum.STRICT_MATCH) {
+                return null;
+            }
+            if (next != null) {
+                used.add(next.address);
+                return next;
+            }
+            if (mockStrategy == MockStrategyEnum.FIND_LAST) {
+                return lastSameRequest != null ? lastSameRequest : last;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 64 bit, a collision of two requests of the same operation is not realistic even over large logs
+     */
+    static long requestHash(String body) {
+        return body != null ? StringUtil.hash64(body) : 0L;
+    }
+
+    private Set<Long> replayState(String replayId) {
+        if (StringUtil.isEmpty(replayId)) {
+            return new HashSet<>();
+        }
+        return replayStates.computeIfAbsent(replayId, key -> new HashSet<>());
+    }
+
+    private void append(String recordId, List<PendingEntry> entries) {
+        if (CaseManager.isInvalidCase(recordId)) {
+            return;
+        }
+        List<IndexEntry> indexEntries = new ArrayList<>(entries.size());
+        try {
+            for (PendingEntry entry : entries) {
+                long address = recordLog.append(MOCKER_ENTRY, entry.payload);
+                indexEntries.add(new IndexEntry(address, entry.payload.length, entry.category,
+                        entry.operationName, entry.requestHash, entry.requestLength));
+            }
+        } catch (Throwable e) {
+            LogManager.warn("localStorage.save", StringUtil.format("save mockers error: %s, recordId: %s",
+                    e.toString(), recordId));
+        } finally {
+            // the mockers of one save belong to the same case, published with one copy of the array
+            index(recordId, indexEntries);
+        }
+    }
+
+    private void appendTombstone(String recordId) {
+        try {
+            recordLog.append(INVALID_ENTRY, recordId.getBytes(StandardCharsets.UTF_8));
+            recordIndex.remove(recordId);
+        } catch (IOException e) {
+            LogManager.warn("localStorage.invalidCase", StringUtil.format("save invalid case error: %s, recordId: %s",
+                    e.toString(), recordId));
+        }
+    }
+
+    private static void load(byte type, long address, byte[] payload, Map<String, List<IndexEntry>> loadedIndex,
+            Set<String> invalidRecordIds) {
+        if (type == INVALID_ENTRY) {
+            String recordId = new String(payload, StandardCharsets.UTF_8);
+            invalidRecordIds.add(recordId);
+            loadedIndex.remove(recordId);
+            return;
+        }
+        ArexMocker mocker = Serializer.deserialize(new String(payload, StandardCharsets.UTF_8), ArexMocker.class);
+        if (mocker == null || mocker.getCategoryType() == null || mocker.getRecordId() == null
+                || invalidRecordIds.contains(mocker.getRecordId())) {
+            return;
+        }
+        PendingEntry entry = new PendingEntry(mocker, payload);
+        loadedIndex.computeIfAbsent(entry.recordId, key -> new ArrayList<>()).add(new IndexEntry(address,
+                payload.length, entry.category, entry.operationName, entry.requestHash, entry.requestLength));
+    }
+
+    private void index(String recordId, List<IndexEntry> entries) {
+        if (recordId != null && !entries.isEmpty()) {
+            recordIndex.computeIfAbsent(recordId, key -> new CopyOnWriteArrayList<>()).addAll(entries);
+        }
+    }
+
+    private void dropSegment(int segmentId) {
+        recordIndex.values().forEach(entries -> entries.removeIf(
+                entry -> RecordLog.segmentId(entry.address) == segmentId));
+        recordIndex.values().removeIf(List::isEmpty);
+    }
+
+    private String read(IndexEntry entry) {
+        try {
+            byte[] payload = recordLog.read(entry.address, entry.length);
+            return payload != null ? new String(payload, StandardCharsets.UTF_8) : null;
+        } catch (IOException e) {
+            LogManager.warn("localStorage.read", e);
+            return null;
+        }
+    }
+
+    private static final class PendingEntry {
+        private final String recordId;
+        private final String category;
+        private final String operationName;
+        private final long requestHash;
+        private final int requestLength;
+        private final byte[] payload;
+
+        private PendingEntry(Mocker mocker, byte[] payload) {
+            String body = mocker.getTargetRequest() != null ? mocker.getTargetRequest().getBody() : null;
+            this.recordId = mocker.getRecordId();
+            this.category = mocker.getCategoryType().getName();
+            this.operationName = mocker.getOperationName();
+            this.requestHash = requestHash(body);
+            this.requestLength = body != null ? body.length() : -1;
+            this.payload = payload;
+        }
+    }
+
+    static final class IndexEntry {
+        private final long address;
+        private final int length;
+        private final String category;
+        private final String operationName;
+        private final long requestHash;
+        private final int requestLength;
+
+        private IndexEntry(long address, int length, String category, String operationName, long requestHash,
+                           int requestLength) {
+            this.address = address;
+            this.length = length;
+            this.category = category;
+            this.operationName = operationName;
+            this.requestHash = requestHash;
+            this.requestLength = requestLength;
+        }
+
+        boolean matches(String category, String operationName) {
+            return this.category.equals(category) && Objects.equals(this.operationName, operationName);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package io.arex.foundation.services;
+
+import io.arex.agent.bootstrap.util.StringUtil;
+import io.arex.foundation.config.ConfigManager;
+import io.arex.foundation.healthy.HealthManager;
+import io.arex.foundation.internal.DiskSpool;
+import io.arex.foundation.util.ChunkedByteArrayOutputStream;
+import io.arex.foundation.util.CompressUtil.ContentWriter;
+import io.arex.foundation.util.httpclient.AsyncHttpClientUtil;
+import io.arex.foundation.util.httpclient.ServiceEndpoints;
+import io.arex.foundation.util.httpclient.async.ThreadFactoryImpl;
+import io.arex.inst.runtime.log.LogManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Spool the recorded data to local disk when batchSaveMockers fails, instead of invalidating the cases.
+ * <pre>
+ * 1. the failed request body is appended to the {@link DiskSpool} under the agent directory,
+ * the disk usage is bounded by {@link ConfigManager#getSpoolMaxBytes()}, the cases are invalidated only if it is full
+ * 2. every 10 seconds, unless the health manager is rejecting, the oldest records are replayed one by one,
+ * the first failure stops the replay until the next period, so a recovering storage service is not flooded
+ * 3. the spool directory is locked, only one process of the application uses it
+ * 4. spool and replay run on a single spool thread, never on the http callback (io reactor) threads,
+ * encoding, disk writes and compression of the replayed records do not stall the other storage requests
+ * </pre>
+ */
+public class RecordSpoolService {
+    public static final RecordSpoolService INSTANCE = new RecordSpoolService();
+
+    static final int SEGMENT_SIZE = 16 * 1024 * 1024;
+    static final int REPLAY_BATCH_SIZE = 32;
+    static final int SPOOL_QUEUE_SIZE = 64;
+    private static final long REPLAY_INTERVAL_SECONDS = 10;
+
+    private final AtomicBoolean replaying = new AtomicBoolean(false);
+    private final Executor spoolExecutor;
+    private volatile DiskSpool spool;
+    private FileChannel lockChannel;
+
+    RecordSpoolService() {
+        this(new ThreadPoolExecutor(1, 1, 15, TimeUnit.MINUTES, new ArrayBlockingQueue<>(SPOOL_QUEUE_SIZE),
+                new ThreadFactoryImpl("data-spool-handler")));
+    }
+
+    RecordSpoolService(Executor spoolExecutor) {
+        this.spoolExecutor = spoolExecutor;
+    }
+
+    public synchronized void start() {
+        if (spool != null || !ConfigManager.INSTANCE.isSpoolEnable()) {
+            return;
+        }
+        File directory = new File(DataDirectories.resolve(ConfigManager.INSTANCE.getSpoolPath(), "spool"),
+                StringUtil.defaultString(ConfigManager.INSTANCE.getServiceName()));
+        try {
+            // keep the channel open to hold the lock until the process exits
+            lockChannel = DataDirectories.tryLock(directory);
+            if (lockChannel == null) {
+                LogManager.warn("recordSpool.start", StringUtil.format(
+                        "spool directory %s is used by another process, spool disabled", directory.getPath()));
+                return;
+            }
+            long maxBytes = ConfigManager.INSTANCE.getSpoolMaxBytes();
+            this.spool = new DiskSpool(directory, (int) Math.min(SEGMENT_SIZE, maxBytes), maxBytes);
+            TimerService.scheduleAtFixedRate(this::scheduleReplay, REPLAY_INTERVAL_SECONDS, REPLAY_INTERVAL_SECONDS,
+                    TimeUnit.SECONDS);
+            LogManager.info("recordSpool.start", StringUtil.format("spool directory: %s", directory.getPath()));
+        } catch (Throwable e) {
+            LogManager.warn("recordSpool.start", e);
+        }
+    }
+
+    /**
+     * Spool the content on the spool thread
+     * @param notSpooled called if spool is disabled, full, busy or the content is too large
+     */
+    public void spoolAsync(ContentWriter content, Runnable notSpooled) {
+        if (spool == null) {
+            notSpooled.run();
+            return;
+        }
+        try {
+            spoolExecutor.execute(() -> {
+                if (!spool(content)) {
+                    notSpooled.run();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            notSpooled.run();
+        }
+    }
+
+    /**
+     * @return true if the content is spooled, false if spool is disabled, full or the content is too large
+     */
+    boolean spool(ContentWriter content) {
+        DiskSpool diskSpool = spool;
+        if (diskSpool == null) {
+            return false;
+        }
+        try {
+            ChunkedByteArrayOutputStream outputStream = new ChunkedByteArrayOutputStream(SEGMENT_SIZE);
+            try (Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8)) {
+                content.writeTo(writer);
+            }
+            return diskSpool.append(outputStream.toByteArray());
+        } catch (IOException e) {
+            LogManager.warn("recordSpool.spool", StringUtil.format("spool record data error: %s", e.toString()));
+            return false;
+        }
+    }
+
+    private void scheduleReplay() {
+        try {
+            spoolExecutor.execute(this::replay);
+        } catch (RejectedExecutionException e) {
+            // spool thread busy, replay in the next period
+        }
+    }
+
+    void replay() {
+        DiskSpool diskSpool = spool;
+        if (diskSpool == null || HealthManager.isFastRejection() || diskSpool.isEmpty()) {
+            return;
+        }
+        if (replaying.compareAndSet(false, true)) {
+            replayNext(diskSpool, REPLAY_BATCH_SIZE);
+        }
+    }
+
+    private void replayNext(DiskSpool diskSpool, int remaining) {
+        DiskSpool.Record record = remaining > 0 ? diskSpool.peek() : null;
+        if (record == null) {
+            replaying.set(false);
+            return;
+        }
+        String postData = new String(record.getData(), StandardCharsets.UTF_8);
+        ServiceEndpoints.STORAGE.execute(DataCollectorService.SAVE_PATH,
+                        url -> AsyncHttpClientUtil.postAsyncStreamingZstdJson(url, writer -> writer.write(postData), null))
+                .whenComplete((response, throwable) -> {
+                    if (throwable != null) {
+                        LogManager.warn("recordSpool.replay", StringUtil.format(
+                                "replay spooled data error: %s, retry later", throwable.toString()));
+                        replaying.set(false);
+                        return;
+                    }
+                    diskSpool.commit(record);
+                    // the next record is compressed on the spool thread, not the io reactor
+                    try {
+                        spoolExecutor.execute(() -> replayNext(diskSpool, remaining - 1));
+                    } catch (RejectedExecutionException e) {
+                        replaying.set(false);
+                    }
+                });
+    }
+}
@@ -0,0 +1,130 @@
+package io.arex.foundation.services;
+
+import com.github.luben.zstd.ZstdDictTrainer;
+import com.google.gson.Gson;
+import io.arex.agent.bootstrap.util.StringUtil;
+import io.arex.foundation.config.ConfigManager;
+import io.arex.foundation.internal.ZstdDictionary;
+import io.arex.foundation.model.CompressDictionaryRequest;
+import io.arex.foundation.model.HttpClientResponse;
+import io.arex.foundation.util.httpclient.AsyncHttpClientUtil;
+import io.arex.foundation.util.httpclient.ServiceEndpoints;
+import io.arex.inst.runtime.log.LogManager;
+import org.apache.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Train a zstd dictionary from recent small record payloads and register it to storage service.
+ * <pre>
+ * 1. the save loop samples payloads smaller than 4KB until the sample buffer is full
+ * 2. train the dictionary on timer thread, then register it (id and content) to storage service
+ * 3. only after the storage service accepted it, the dictionary is used to compress batchSaveMockers requests,
+ *    otherwise plain zstd is used and training is retried later
+ * 4. retrain periodically, every dictionary has its own id, so storage service can keep all versions
+ * </pre>
+ */
+public class ZstdDictionaryService {
+    public static final ZstdDictionaryService INSTANCE = new ZstdDictionaryService();
+
+    /**
+     * small payloads benefit most from dictionary
+     */
+    static final int SAMPLE_MAX_LENGTH = 4 * 1024;
+    static final int TRAIN_SAMPLE_COUNT = 1000;
+    private static final int SAMPLE_BUFFER_SIZE = 1024 * 1024;
+    private static final int DICTIONARY_SIZE = 16 * 1024;
+    private static final long RETRAIN_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(6);
+    private static final long RETRY_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    private static final Gson GSON = new Gson();
+    private static final String DICTIONARY_PATH = "/api/storage/record/saveCompressDictionary";
+
+    private volatile ZstdDictionary current;
+    private volatile long nextSampleTime;
+    private final AtomicBoolean training = new AtomicBoolean(false);
+    /**
+     * Only accessed by the save loop thread
+     */
+    private ZstdDictTrainer trainer;
+    private int sampleCount;
+
+    ZstdDictionaryService() {
+    }
+
+    /**
+     * @return the dictionary registered to storage service, null if not available
+     */
+    public ZstdDictionary current() {
+        return current;
+    }
+
+    /**
+     * Collect a record payload as training sample, called from the save loop thread.
+     */
+    public void sample(String postData) {
+        if (!ConfigManager.INSTANCE.isZstdDictionaryEnable() || postData == null ||
+                postData.length() > SAMPLE_MAX_LENGTH) {
+            return;
+        }
+        if (training.get() || System.currentTimeMillis() < nextSampleTime) {
+            return;
+        }
+        if (trainer == null) {
+            trainer = new ZstdDictTrainer(SAMPLE_BUFFER_SIZE, DICTIONARY_SIZE);
+        }
+        // addSample return false if the sample buffer is full
+        if (trainer.addSample(postData.getBytes(StandardCharsets.UTF_8)) && ++sampleCount < TRAIN_SAMPLE_COUNT) {
+            return;
+        }
+
+        ZstdDictTrainer samples = trainer;
+        trainer = null;
+        sampleCount = 0;
+        if (training.compareAndSet(false, true)) {
+            TimerService.schedule(() -> train(samples), 0, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void train(ZstdDictTrainer samples) {
+        try {
+            register(new ZstdDictionary(samples.trainSamples()));
+        } catch (Throwable e) {
+            LogManager.warn("zstdDictionary.train", StringUtil.format("train dictionary error: %s", e.toString()));
+            finish(null);
+        }
+    }
+
+    private void register(ZstdDictionary dictionary) {
+        CompressDictionaryRequest request = new CompressDictionaryRequest(ConfigManager.INSTANCE.getServiceName(),
+                dictionary.getId(), Base64.getEncoder().encodeToString(dictionary.getContent()));
+        String postData = GSON.toJson(request);
+        ServiceEndpoints.STORAGE.execute(DICTIONARY_PATH, url -> AsyncHttpClientUtil.postAsyncWithJson(url, postData, null))
+                .whenComplete((response, throwable) -> {
+                    if (throwable != null || !isSuccess(response)) {
+                        LogManager.warn("zstdDictionary.register", StringUtil.format(
+                                "register dictionary %s failed, fallback to plain zstd", String.valueOf(dictionary.getId())));
+                        finish(null);
+                        return;
+                    }
+                    LogManager.info("zstdDictionary.register", StringUtil.format(
+                            "register dictionary %s, size: %s", String.valueOf(dictionary.getId()),
+                            String.valueOf(dictionary.getContent().length)));
+                    finish(dictionary);
+                });
+    }
+
+    private static boolean isSuccess(HttpClientResponse response) {
+        return response != null && response.getStatusCode() == HttpStatus.SC_OK;
+    }
+
+    private void finish(ZstdDictionary dictionary) {
+        if (dictionary != null) {
+            current = dictionary;
+        }
+        nextSampleTime = System.currentTimeMillis() + (dictionary != null ? RETRAIN_INTERVAL_MILLIS : RETRY_INTERVAL_MILLIS);
+        training.set(false);
+    }
+}
@@ -0,0 +1,141 @@
+package io.arex.foundation.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Byte output stream backed by a list of chunks, growing never copies the written bytes
+ * and the content can be streamed out without materializing a contiguous array.
+ * Writing beyond the size limit fails fast with {@link SizeLimitExceededException}.
+ */
+public class ChunkedByteArrayOutputStream extends OutputStream {
+    private static final int MIN_CHUNK_SIZE = 1024;
+    private static final int MAX_CHUNK_SIZE = 64 * 1024;
+
+    private final long sizeLimit;
+    private final List<byte[]> chunks = new ArrayList<>();
+    private byte[] current;
+    private int position;
+    private long size;
+
+    public ChunkedByteArrayOutputStream(long sizeLimit) {
+        this.sizeLimit = sizeLimit;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureCapacity(1);
+        current[position++] = (byte) b;
+        size++;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        ensureLimit(length);
+        while (length > 0) {
+            ensureCapacity(1);
+            int count = Math.min(length, current.length - position);
+            System.arraycopy(bytes, offset, current, position, count);
+            position += count;
+            offset += count;
+            length -= count;
+            size += count;
+        }
+    }
+
+    private void ensureCapacity(int length) throws IOException {
+        ensureLimit(length);
+        if (current != null && position < current.length) {
+            return;
+        }
+        int chunkSize = current == null ? MIN_CHUNK_SIZE : Math.min(current.length << 1, MAX_CHUNK_SIZE);
+        current = new byte[chunkSize];
+        chunks.add(current);
+        position = 0;
+    }
+
+    private void ensureLimit(int length) throws IOException {
+        if (size + length > sizeLimit) {
+            throw new SizeLimitExceededException(sizeLimit);
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public void writeTo(OutputStream outputStream) throws IOException {
+        int lastIndex = chunks.size() - 1;
+        for (int i = 0; i < lastIndex; i++) {
+            outputStream.write(chunks.get(i));
+        }
+        if (lastIndex >= 0) {
+            outputStream.write(chunks.get(lastIndex), 0, position);
+        }
+    }
+
+    public byte[] toByteArray() {
+        byte[] result = new byte[(int) size];
+        int offset = 0;
+        int lastIndex = chunks.size() - 1;
+        for (int i = 0; i <= lastIndex; i++) {
+            byte[] chunk = chunks.get(i);
+            int length = i == lastIndex ? position : chunk.length;
+            System.arraycopy(chunk, 0, result, offset, length);
+            offset += length;
+        }
+        return result;
+    }
+
+    public InputStream toInputStream() {
+        return new ChunkInputStream();
+    }
+
+    public static class SizeLimitExceededException extends IOException {
+        public SizeLimitExceededException(long sizeLimit) {
+            super("size exceeds limit: " + sizeLimit);
+        }
+    }
+
+    private class ChunkInputStream extends InputStream {
+        private int chunkIndex;
+        private int offset;
+
+        @Override
+        public int read() {
+            if (!hasRemaining()) {
+                return -1;
+            }
+            return chunks.get(chunkIndex)[offset++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] bytes, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(len, chunkLength(chunkIndex) - offset);
+            System.arraycopy(chunks.get(chunkIndex), offset, bytes, off, count);
+            offset += count;
+            return count;
+        }
+
+        private boolean hasRemaining() {
+            while (chunkIndex < chunks.size() && offset >= chunkLength(chunkIndex)) {
+                chunkIndex++;
+                offset = 0;
+            }
+            return chunkIndex < chunks.size();
+        }
+
+        private int chunkLength(int index) {
+            return index == chunks.size() - 1 ? position : chunks.get(index).length;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package io.arex.foundation.util;
 
 import com.github.luben.zstd.RecyclingBufferPool;
+import com.github.luben.zstd.ZstdDictCompress;
 import com.github.luben.zstd.ZstdInputStreamNoFinalizer;
 import com.github.luben.zstd.ZstdOutputStreamNoFinalizer;
 import org.slf4j.Logger;
@@ -21,7 +22,45 @@ public class CompressUtil {
     private static final Logger LOGGER = LoggerFactory.getLogger(CompressUtil.class);
 
     public static byte[] zstdCompress(String original, Charset charsetName) {
-        return zstdCompress(original.getBytes(charsetName));
+        if (original == null || original.isEmpty()) {
+            return ZERO_BYTE;
+        }
+        try {
+            return zstdCompress(writer -> writer.write(original), charsetName, Long.MAX_VALUE).toByteArray();
+        } catch (Throwable e) {
+            LOGGER.warn("[[title=arex.compress]]", e);
+            return ZERO_BYTE;
+        }
+    }
+
+    /**
+     * Streaming zstd compress, chars are encoded and compressed as they are written,
+     * without materializing the original bytes.
+     * @param content write the original content
+     * @param sizeLimit the max compressed size
+     * @throws ChunkedByteArrayOutputStream.SizeLimitExceededException as soon as the compressed size exceeds the limit
+     */
+    public static ChunkedByteArrayOutputStream zstdCompress(ContentWriter content, Charset charsetName,
+        long sizeLimit) throws IOException {
+        return zstdCompress(content, charsetName, sizeLimit, null);
+    }
+
+    /**
+     * @param dictionary compress with the dictionary if not null
+     */
+    public static ChunkedByteArrayOutputStream zstdCompress(ContentWriter content, Charset charsetName,
+        long sizeLimit, ZstdDictCompress dictionary) throws IOException {
+        ChunkedByteArrayOutputStream byteOutputStream = new ChunkedByteArrayOutputStream(sizeLimit);
+        ZstdOutputStreamNoFinalizer zstdOutputStream = new ZstdOutputStreamNoFinalizer(byteOutputStream,
+                RecyclingBufferPool.INSTANCE);
+        if (dictionary != null) {
+            zstdOutputStream.setDict(dictionary);
+        }
+        try (Writer writer = new OutputStreamWriter(zstdOutputStream, charsetName)) {
+            content.writeTo(writer);
+            writer.flush();
+        }
+        return byteOutputStream;
     }
 
     /**
@@ -73,4 +112,9 @@ public class CompressUtil {
     public static String zstdDecompress(byte[] bytes, Charset charsetName) {
         return zstdDecompress(new ByteArrayInputStream(bytes), charsetName);
     }
+
+    @FunctionalInterface
+    public interface ContentWriter {
+        void writeTo(Writer writer) throws IOException;
+    }
 }
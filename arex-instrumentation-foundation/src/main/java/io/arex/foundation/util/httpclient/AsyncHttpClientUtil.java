@@ -1,27 +1,32 @@
 package io.arex.foundation.util.httpclient;
 
+import com.github.luben.zstd.ZstdDictCompress;
 import io.arex.agent.bootstrap.constants.ConfigConstants;
 import io.arex.agent.bootstrap.util.MapUtils;
 import io.arex.agent.bootstrap.util.StringUtil;
 import io.arex.foundation.config.ConfigManager;
 import io.arex.foundation.model.HttpClientResponse;
-import io.arex.foundation.util.CompressUtil;
+import io.arex.foundation.util.CompressUtil.ContentWriter;
 import io.arex.foundation.util.httpclient.async.AutoCleanedPoolingNHttpClientConnectionManager;
 import io.arex.foundation.util.httpclient.async.ThreadFactoryImpl;
 import io.arex.inst.runtime.log.LogManager;
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
 import org.apache.http.impl.nio.client.HttpAsyncClients;
 import org.apache.http.message.BasicHeader;
+import org.apache.http.protocol.HttpContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
@@ -38,8 +43,13 @@ public class AsyncHttpClientUtil {
     /**
      * the compressed size of the sent httpEntity is limited to less than 5MB
      */
-    private static final long RECORD_BODY_MAX_LIMIT_5MB = 5 * 1024L * 1024L;
+    public static final long RECORD_BODY_MAX_LIMIT_5MB = 5 * 1024L * 1024L;
+    /**
+     * save requests (and other requests except queries) and replay queries use separate connection pools,
+     * so a slow batch upload never starves replay queries
+     */
     private static CloseableHttpAsyncClient asyncClient;
+    private static CloseableHttpAsyncClient queryClient;
     private static final CompletableFuture<HttpClientResponse> EMPTY_RESPONSE = CompletableFuture.completedFuture(
         HttpClientResponse.emptyResponse());
 
@@ -48,8 +58,10 @@ public class AsyncHttpClientUtil {
 
     static {
         try {
-            asyncClient = createAsyncClient();
+            asyncClient = createAsyncClient("arex-async-http-client");
             asyncClient.start();
+            queryClient = createAsyncClient("arex-async-http-query-client");
+            queryClient.start();
         } catch (Exception t) {
             LOGGER.warn("[[title=arex.AsyncHttpClientUtil.ctor]]", t);
         }
@@ -67,20 +79,61 @@ public class AsyncHttpClientUtil {
         return executeAsync(uri, httpEntity, requestHeaders, HttpClientResponseHandler.JsonHandler.INSTANCE);
     }
 
+    /**
+     * Query request, executed on the query connection pool
+     */
     public static CompletableFuture<HttpClientResponse> postAsyncWithZstdJson(String uri, String postData,
         Map<String, String> requestHeaders) {
-        HttpEntity httpEntity = new ByteArrayEntity(CompressUtil.zstdCompress(postData, StandardCharsets.UTF_8));
+        return postAsyncStreamingZstdJson(queryClient, uri, writer -> writer.write(postData), null, requestHeaders);
+    }
+
+    /**
+     * Post the json written by {@code content}, compressed with zstd while writing.
+     * Compression is aborted as soon as the compressed size exceeds {@link #RECORD_BODY_MAX_LIMIT_5MB}.
+     */
+    public static CompletableFuture<HttpClientResponse> postAsyncStreamingZstdJson(String uri, ContentWriter content,
+        Map<String, String> requestHeaders) {
+        return postAsyncStreamingZstdJson(uri, content, null, requestHeaders);
+    }
+
+    /**
+     * @param dictionary compress with the dictionary if not null, the receiver must know the dictionary
+     */
+    public static CompletableFuture<HttpClientResponse> postAsyncStreamingZstdJson(String uri, ContentWriter content,
+        ZstdDictCompress dictionary, Map<String, String> requestHeaders) {
+        return postAsyncStreamingZstdJson(asyncClient, uri, content, dictionary, requestHeaders);
+    }
+
+    private static CompletableFuture<HttpClientResponse> postAsyncStreamingZstdJson(CloseableHttpAsyncClient client,
+        String uri, ContentWriter content, ZstdDictCompress dictionary, Map<String, String> requestHeaders) {
+        HttpEntity httpEntity;
+        try {
+            httpEntity = ZstdJsonEntity.create(content, RECORD_BODY_MAX_LIMIT_5MB, dictionary);
+        } catch (IOException e) {
+            CompletableFuture<HttpClientResponse> failedFuture = new CompletableFuture<>();
+            failedFuture.completeExceptionally(new ServiceEndpoints.LocalRequestException(e));
+            return failedFuture;
+        }
+        if (httpEntity == null) {
+            LogManager.warn("executeAsync", "do not record, the size is larger than 5MB.");
+            return EMPTY_RESPONSE;
+        }
 
         if (requestHeaders == null) {
             requestHeaders = MapUtils.newHashMapWithExpectedSize(1);
         }
         requestHeaders.putIfAbsent(HttpHeaders.CONTENT_TYPE, ClientConfig.APPLICATION_ZSTD_JSON);
 
-        return executeAsync(uri, httpEntity, requestHeaders, HttpClientResponseHandler.ZstdJsonHandler.INSTANCE);
+        return executeAsync(client, uri, httpEntity, requestHeaders, HttpClientResponseHandler.ZstdJsonHandler.INSTANCE);
     }
 
     public static CompletableFuture<HttpClientResponse> executeAsync(String uri, HttpEntity httpEntity,
         Map<String, String> requestHeaders, HttpClientResponseHandler responseHandler) {
+        return executeAsync(asyncClient, uri, httpEntity, requestHeaders, responseHandler);
+    }
+
+    private static CompletableFuture<HttpClientResponse> executeAsync(CloseableHttpAsyncClient client, String uri,
+        HttpEntity httpEntity, Map<String, String> requestHeaders, HttpClientResponseHandler responseHandler) {
         if (httpEntity.getContentLength() > RECORD_BODY_MAX_LIMIT_5MB || httpEntity.getContentLength() < 0) {
             LogManager.warn("executeAsync", "do not record, the size is larger than 5MB.");
             return EMPTY_RESPONSE;
@@ -88,14 +141,14 @@ public class AsyncHttpClientUtil {
 
         HttpUriRequest httpPost = createHttpPost(uri, httpEntity, requestHeaders);
         CompletableFuture<HttpClientResponse> resultFuture = new CompletableFuture<>();
-        asyncClient.execute(httpPost, new HttpClientResponseCallback(resultFuture, responseHandler));
+        client.execute(httpPost, new HttpClientResponseCallback(resultFuture, responseHandler));
 
         return resultFuture;
     }
 
     private static HttpUriRequest createHttpPost(String uri, HttpEntity httpEntity, Map<String, String> requestHeaders) {
-        HttpPost httpPost = prepareHttpRequest(uri, ClientConfig.DEFAULT_CONNECT_TIMEOUT,
-            ClientConfig.DEFAULT_SOCKET_TIMEOUT);
+        HttpPost httpPost = prepareHttpRequest(uri, ConfigManager.INSTANCE.getHttpClientConnectTimeout(),
+            ConfigManager.INSTANCE.getHttpClientSocketTimeout());
         httpPost.setEntity(httpEntity);
 
         if (MapUtils.isNotEmpty(requestHeaders)) {
@@ -119,18 +172,27 @@ public class AsyncHttpClientUtil {
         return httpPost;
     }
 
-    private static CloseableHttpAsyncClient createAsyncClient() {
-        RequestConfig defaultRequestConfig =
-            createRequestConfig(ClientConfig.DEFAULT_CONNECT_TIMEOUT, ClientConfig.DEFAULT_SOCKET_TIMEOUT);
+    private static CloseableHttpAsyncClient createAsyncClient(String threadName) {
+        RequestConfig defaultRequestConfig = createRequestConfig(ConfigManager.INSTANCE.getHttpClientConnectTimeout(),
+            ConfigManager.INSTANCE.getHttpClientSocketTimeout());
 
         AutoCleanedPoolingNHttpClientConnectionManager connectionManager =
-            AutoCleanedPoolingNHttpClientConnectionManager.createDefault();
+            AutoCleanedPoolingNHttpClientConnectionManager.create(ConfigManager.INSTANCE.getHttpClientMaxTotal(),
+                ConfigManager.INSTANCE.getHttpClientMaxPerRoute(), Runtime.getRuntime().availableProcessors());
 
-        asyncClient = HttpAsyncClients.custom()
-            .setThreadFactory(new ThreadFactoryImpl("arex-async-http-client"))
+        return HttpAsyncClients.custom()
+            .setThreadFactory(new ThreadFactoryImpl(threadName))
             .setDefaultRequestConfig(defaultRequestConfig)
+            .setKeepAliveStrategy(AsyncHttpClientUtil::keepAliveDuration)
             .setConnectionManager(connectionManager).build();
-        return asyncClient;
+    }
+
+    /**
+     * keep alive as long as the server allows, but not longer than the idle time of pooled connections
+     */
+    static long keepAliveDuration(HttpResponse response, HttpContext context) {
+        long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+        return duration > 0 ? Math.min(duration, ClientConfig.DEFAULT_KEEP_ALIVE) : ClientConfig.DEFAULT_KEEP_ALIVE;
     }
 
     private static RequestConfig createRequestConfig(int connectTimeout, int socketTimeout) {
@@ -143,8 +205,7 @@ public class AsyncHttpClientUtil {
     static class ClientConfig {
 
         private static final int DEFAULT_CONNECTION_REQUEST_TIMEOUT = 5000;
-        private static final int DEFAULT_CONNECT_TIMEOUT = 5000;
-        private static final int DEFAULT_SOCKET_TIMEOUT = 5000;
+        private static final long DEFAULT_KEEP_ALIVE = 10 * 1000L;
         private static final String APPLICATION_ZSTD_JSON = "application/zstd-json;charset=UTF-8";
         private static final String APPLICATION_JSON = "application/json;charset=UTF-8";
 
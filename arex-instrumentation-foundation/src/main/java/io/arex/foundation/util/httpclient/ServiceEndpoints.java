@@ -0,0 +1,209 @@
+package io.arex.foundation.util.httpclient;
+
+import io.arex.agent.bootstrap.util.StringUtil;
+import io.arex.foundation.config.ConfigManager;
+import io.arex.foundation.model.HttpClientResponse;
+import io.arex.inst.runtime.log.LogManager;
+import org.apache.http.HttpStatus;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Client side balancing over the hosts of a service, the hosts config is a comma separated list.
+ * <pre>
+ * 1. each request goes to the available host with the least outstanding requests, ties are rotated
+ * 2. per host circuit breaker: opened after 5 consecutive failures (transport exception or 5xx),
+ *    a request failed before sending ({@link LocalRequestException}) is not counted,
+ *    after 10 seconds one trial request is allowed (before the available hosts),
+ *    it closes the circuit if succeeded, otherwise opens it again
+ * 3. if all circuits are open, the request fails fast without connecting
+ * </pre>
+ */
+public class ServiceEndpoints {
+    /**
+     * hosts of storage service, {@link ConfigManager#getStorageServiceHost()}
+     */
+    public static final ServiceEndpoints STORAGE = new ServiceEndpoints(ConfigManager.INSTANCE::getStorageServiceHost);
+
+    static final int FAILURE_THRESHOLD = 5;
+    static final long OPEN_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    private final Supplier<String> hostsSupplier;
+    private final AtomicInteger rotation = new AtomicInteger();
+    private volatile String hosts;
+    private volatile List<Endpoint> endpoints = Collections.emptyList();
+
+    public ServiceEndpoints(Supplier<String> hostsSupplier) {
+        this.hostsSupplier = hostsSupplier;
+    }
+
+    /**
+     * @param path request path, e.g. /api/storage/record/query
+     * @param request executes the request to the url of the selected host
+     */
+    public CompletableFuture<HttpClientResponse> execute(String path,
+        Function<String, CompletableFuture<HttpClientResponse>> request) {
+        Endpoint endpoint = select(System.currentTimeMillis());
+        if (endpoint == null) {
+            CompletableFuture<HttpClientResponse> failedFuture = new CompletableFuture<>();
+            failedFuture.completeExceptionally(new IOException(
+                StringUtil.format("no available host of %s", String.valueOf(hosts))));
+            return failedFuture;
+        }
+        CompletableFuture<HttpClientResponse> future;
+        try {
+            future = request.apply("http://" + endpoint.host + path);
+        } catch (RuntimeException e) {
+            endpoint.cancel();
+            throw e;
+        }
+        return future.whenComplete((response, throwable) -> {
+            if (isLocalFailure(throwable)) {
+                endpoint.cancel();
+                return;
+            }
+            endpoint.release(
+                throwable == null && (response == null || response.getStatusCode() < HttpStatus.SC_INTERNAL_SERVER_ERROR),
+                System.currentTimeMillis());
+        });
+    }
+
+    private static boolean isLocalFailure(Throwable throwable) {
+        if (throwable instanceof CompletionException && throwable.getCause() != null) {
+            throwable = throwable.getCause();
+        }
+        return throwable instanceof LocalRequestException;
+    }
+
+    Endpoint select(long now) {
+        List<Endpoint> current = endpoints();
+        int size = current.size();
+        if (size == 0) {
+            return null;
+        }
+        int start = size == 1 ? 0 : Math.floorMod(rotation.getAndIncrement(), size);
+        Endpoint selected = null;
+        // let one request try an endpoint whose open period is over, even if others are available,
+        // otherwise it would never be closed again
+        for (int i = 0; i < size; i++) {
+            Endpoint endpoint = current.get((start + i) % size);
+            if (endpoint.tryHalfOpen(now)) {
+                selected = endpoint;
+                break;
+            }
+        }
+        if (selected == null) {
+            for (int i = 0; i < size; i++) {
+                Endpoint endpoint = current.get((start + i) % size);
+                if (endpoint.isClosed() && (selected == null || endpoint.outstanding.get() < selected.outstanding.get())) {
+                    selected = endpoint;
+                }
+            }
+        }
+        if (selected != null) {
+            selected.outstanding.incrementAndGet();
+        }
+        return selected;
+    }
+
+    List<Endpoint> endpoints() {
+        String current = hostsSupplier.get();
+        if (current != null && !current.equals(hosts)) {
+            synchronized (this) {
+                if (!current.equals(hosts)) {
+                    endpoints = parse(current);
+                    hosts = current;
+                }
+            }
+        }
+        return endpoints;
+    }
+
+    private static List<Endpoint> parse(String hosts) {
+        List<Endpoint> list = new ArrayList<>();
+        for (String host : hosts.split(",")) {
+            String trimmed = host.trim();
+            if (!trimmed.isEmpty()) {
+                list.add(new Endpoint(trimmed));
+            }
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    static final class Endpoint {
+        private static final int CLOSED = 0;
+        private static final int OPEN = 1;
+        private static final int HALF_OPEN = 2;
+
+        private final String host;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicInteger state = new AtomicInteger(CLOSED);
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private volatile long openUntil;
+
+        Endpoint(String host) {
+            this.host = host;
+        }
+
+        String getHost() {
+            return host;
+        }
+
+        int getOutstanding() {
+            return outstanding.get();
+        }
+
+        boolean isClosed() {
+            return state.get() == CLOSED;
+        }
+
+        private boolean tryHalfOpen(long now) {
+            return now >= openUntil && state.compareAndSet(OPEN, HALF_OPEN);
+        }
+
+        /**
+         * Release a request that was not sent to the host, the circuit is left unchanged
+         */
+        void cancel() {
+            outstanding.decrementAndGet();
+            // give the trial back, otherwise the endpoint would stay half open without a request
+            state.compareAndSet(HALF_OPEN, OPEN);
+        }
+
+        void release(boolean success, long now) {
+            outstanding.decrementAndGet();
+            if (success) {
+                consecutiveFailures.set(0);
+                if (state.getAndSet(CLOSED) != CLOSED) {
+                    LogManager.info("serviceEndpoints.close", StringUtil.format("host %s recovered", host));
+                }
+                return;
+            }
+            if (consecutiveFailures.incrementAndGet() >= FAILURE_THRESHOLD || state.get() == HALF_OPEN) {
+                openUntil = now + OPEN_MILLIS;
+                if (state.getAndSet(OPEN) != OPEN) {
+                    LogManager.warn("serviceEndpoints.open", StringUtil.format(
+                        "host %s failed %s times, circuit open", host, String.valueOf(consecutiveFailures.get())));
+                }
+            }
+        }
+    }
+
+    /**
+     * The request failed before it was sent, e.g. encoding the body, the host is not to blame
+     */
+    public static class LocalRequestException extends IOException {
+        public LocalRequestException(Throwable cause) {
+            super(cause);
+        }
+    }
+}
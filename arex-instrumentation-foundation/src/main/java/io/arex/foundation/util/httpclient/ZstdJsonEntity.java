@@ -0,0 +1,69 @@
+package io.arex.foundation.util.httpclient;
+
+import com.github.luben.zstd.ZstdDictCompress;
+import io.arex.foundation.util.ChunkedByteArrayOutputStream;
+import io.arex.foundation.util.CompressUtil;
+import io.arex.foundation.util.CompressUtil.ContentWriter;
+import org.apache.http.entity.AbstractHttpEntity;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Http entity of zstd compressed json, the content is compressed while it is written
+ * and sent from the compressed chunks directly.
+ */
+public class ZstdJsonEntity extends AbstractHttpEntity {
+    private final ChunkedByteArrayOutputStream compressed;
+
+    private ZstdJsonEntity(ChunkedByteArrayOutputStream compressed) {
+        this.compressed = compressed;
+    }
+
+    /**
+     * @return null if the compressed size exceeds the limit
+     */
+    public static ZstdJsonEntity create(ContentWriter content, long sizeLimit) throws IOException {
+        return create(content, sizeLimit, null);
+    }
+
+    /**
+     * @param dictionary compress with the dictionary if not null
+     * @return null if the compressed size exceeds the limit
+     */
+    public static ZstdJsonEntity create(ContentWriter content, long sizeLimit, ZstdDictCompress dictionary)
+        throws IOException {
+        try {
+            return new ZstdJsonEntity(CompressUtil.zstdCompress(content, StandardCharsets.UTF_8, sizeLimit, dictionary));
+        } catch (ChunkedByteArrayOutputStream.SizeLimitExceededException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public long getContentLength() {
+        return compressed.size();
+    }
+
+    @Override
+    public InputStream getContent() {
+        return compressed.toInputStream();
+    }
+
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        compressed.writeTo(outputStream);
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+}
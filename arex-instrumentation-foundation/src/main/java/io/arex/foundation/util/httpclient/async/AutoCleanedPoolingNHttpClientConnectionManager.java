@@ -35,22 +35,28 @@ public final class AutoCleanedPoolingNHttpClientConnectionManager extends Poolin
         new ScheduledThreadPoolExecutor(1, new ThreadFactoryImpl("IdleNConnectionMonitorTask"));
 
     public static AutoCleanedPoolingNHttpClientConnectionManager createDefault() {
+        return create(ClientConnectionManagerConfig.DEFAULT_MAX_PER_ROUTE * 10,
+            ClientConnectionManagerConfig.DEFAULT_MAX_PER_ROUTE, Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    public static AutoCleanedPoolingNHttpClientConnectionManager create(int maxTotal, int maxPerRoute,
+        int ioThreadCount) {
         AutoCleanedPoolingNHttpClientConnectionManager connectionManager =
             new AutoCleanedPoolingNHttpClientConnectionManager(ClientConnectionManagerConfig.DEFAULT_CONNECTION_TTL,
                 ClientConnectionManagerConfig.DEFAULT_CONNECTION_IDLE_TIME,
-                ClientConnectionManagerConfig.DEFAULT_CLEAN_CHECK_INTERVAL);
+                ClientConnectionManagerConfig.DEFAULT_CLEAN_CHECK_INTERVAL, ioThreadCount);
 
         // Number of concurrent connections for a per route
-        connectionManager.setDefaultMaxPerRoute(ClientConnectionManagerConfig.DEFAULT_MAX_PER_ROUTE);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
         // Maximum number of connections for all routes
-        connectionManager.setMaxTotal(ClientConnectionManagerConfig.DEFAULT_MAX_PER_ROUTE * 10);
+        connectionManager.setMaxTotal(maxTotal);
 
         return connectionManager;
     }
 
     private AutoCleanedPoolingNHttpClientConnectionManager(int connectionTtl, int connectionIdleTime,
-        int cleanCheckInterval) {
-        super(createConnectingIOReactor(), null, getDefaultRegistry(), null, null, connectionTtl,
+        int cleanCheckInterval, int ioThreadCount) {
+        super(createConnectingIOReactor(ioThreadCount), null, getDefaultRegistry(), null, null, connectionTtl,
             TimeUnit.MILLISECONDS);
 
         IdleNConnectionMonitorTask idleNConnectionMonitorTask =
@@ -66,10 +72,10 @@ public final class AutoCleanedPoolingNHttpClientConnectionManager extends Poolin
             .build();
     }
 
-    static ConnectingIOReactor createConnectingIOReactor() {
+    static ConnectingIOReactor createConnectingIOReactor(int ioThreadCount) {
         // Configure IO thread
         IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
-            .setIoThreadCount(Runtime.getRuntime().availableProcessors() * 2)
+            .setIoThreadCount(ioThreadCount)
             .setSelectInterval(ClientConnectionManagerConfig.DEFAULT_SELECT_INTERVAL)
             .setSoKeepAlive(true)
             .build();
@@ -60,6 +60,25 @@ class ConfigManagerTest {
         assertEquals(1024, configManager.getBufferSize());
     }
 
+    @Test
+    void configServiceHostFallback() throws Exception {
+        String configServiceHost = System.clearProperty(ConfigConstants.CONFIG_SERVICE_HOST);
+        try {
+            final Constructor<ConfigManager> constructor = ConfigManager.class.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            ConfigManager newConfigManager = constructor.newInstance();
+            newConfigManager.setStorageServiceHost("storage-host1:8093, storage-host2:8093");
+            // the config uri is built from one host
+            assertEquals("storage-host1:8093", newConfigManager.getConfigServiceHost());
+            newConfigManager.setStorageServiceHost("storage-host1:8093");
+            assertEquals("storage-host1:8093", newConfigManager.getConfigServiceHost());
+        } finally {
+            if (configServiceHost != null) {
+                System.setProperty(ConfigConstants.CONFIG_SERVICE_HOST, configServiceHost);
+            }
+        }
+    }
+
     @Test
     void readConfigFromFile() throws URISyntaxException {
         URL configPathResource = ConfigManagerTest.class.getClassLoader().getResource("arex.agent.conf");
@@ -0,0 +1,33 @@
+package io.arex.foundation.healthy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class AimdRateControllerTest {
+
+    @Test
+    void adjust() {
+        AimdRateController controller = new AimdRateController();
+        HealthSignals idle = new HealthSignals(0.1D, 0, 0, 0, 0, 0.2D, 0D);
+        assertEquals(0.55D, controller.adjust(0.5D, idle), 0.0001);
+
+        HealthSignals overload = new HealthSignals(0.6D, 0, 0, 0, 0, 0.2D, 0D);
+        assertEquals(0.35D, controller.adjust(0.5D, overload), 0.0001);
+
+        HealthSignals slowStorage = new HealthSignals(0.1D, 0, TimeUnit.SECONDS.toNanos(4), 10, 0, 0D, 0D);
+        assertEquals(0.35D, controller.adjust(0.5D, slowStorage), 0.0001);
+
+        HealthSignals rejected = new HealthSignals(0D, 0, 0, 0, 1, 0D, 0D);
+        assertEquals(0.35D, controller.adjust(0.5D, rejected), 0.0001);
+
+        // between recover and overload pressure, hold
+        HealthSignals busy = new HealthSignals(0.45D, 0, 0, 0, 0, 0D, 0D);
+        assertEquals(0.5D, controller.adjust(0.5D, busy), 0.0001);
+
+        // busy host cpu holds the rate, not decreased by it
+        HealthSignals busyHost = new HealthSignals(0.1D, 0, 0, 0, 0, 0.95D, 0D);
+        assertEquals(0.5D, controller.adjust(0.5D, busyHost), 0.0001);
+    }
+}
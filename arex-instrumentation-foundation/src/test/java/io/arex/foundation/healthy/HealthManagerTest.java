@@ -4,6 +4,7 @@ import io.arex.agent.bootstrap.constants.ConfigConstants;
 import io.arex.agent.bootstrap.util.Assert;
 import io.arex.agent.bootstrap.util.ReflectUtil;
 import io.arex.foundation.config.ConfigManager;
+import io.arex.foundation.model.DecelerateReasonEnum;
 import io.arex.foundation.services.TimerService;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -13,6 +14,7 @@ import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
@@ -111,6 +113,44 @@ class HealthManagerTest {
         assertEquals(expect, result);
     }
 
+    @Test
+    void rateControl() {
+        ConfigManager.INSTANCE.setRecordRate(10);
+        // the host cpu and gc signals of the test jvm are not stable, recovery is stubbed after the first decrease
+        AtomicBoolean recovered = new AtomicBoolean(false);
+        RateController aimd = HealthManager.createRateController("aimd");
+        HealthManager.enableRateControl((factor, signals) ->
+                recovered.get() ? factor + AimdRateController.INCREASE_STEP : aimd.adjust(factor, signals));
+        timerServiceMocker.verify(() -> TimerService.scheduleAtFixedRate(any(), anyLong(), anyLong(), any()));
+        try {
+            assertTrue(HealthManager.acquire("rateControl"));
+            // never switch to reject state, rejection is a control signal
+            HealthManager.onDataServiceRejection();
+            assertFalse(HealthManager.isFastRejection());
+
+            HealthManager.RateControlTask task = new HealthManager.RateControlTask();
+            task.run();
+            assertEquals(AimdRateController.DECREASE_FACTOR,
+                    HealthManager.RecordRateManager.RECORD_RATE_MANAGER.getRateFactor(), 0.0001);
+            assertEquals("7.00", System.getProperty(ConfigConstants.CURRENT_RATE));
+            assertEquals(DecelerateReasonEnum.BACKPRESSURE.getCodeStr(),
+                    System.getProperty(ConfigConstants.DECELERATE_CODE));
+            assertEquals(7D, HealthManager.RecordRateManager.RECORD_RATE_MANAGER.getRate(), 0.0001);
+
+            // recover additively
+            recovered.set(true);
+            task.run();
+            assertEquals(AimdRateController.DECREASE_FACTOR + AimdRateController.INCREASE_STEP,
+                    HealthManager.RecordRateManager.RECORD_RATE_MANAGER.getRateFactor(), 0.0001);
+            assertEquals("7.50", System.getProperty(ConfigConstants.CURRENT_RATE));
+        } finally {
+            HealthManager.enableRateControl(null);
+        }
+        assertEquals(1D, HealthManager.RecordRateManager.RECORD_RATE_MANAGER.getRateFactor());
+        assertNull(HealthManager.createRateController("unknown"));
+        assertTrue(HealthManager.createRateController("PID") instanceof PidRateController);
+    }
+
     @ParameterizedTest
     @MethodSource("runCase")
     void run(Runnable mocker, Assert asserts) {
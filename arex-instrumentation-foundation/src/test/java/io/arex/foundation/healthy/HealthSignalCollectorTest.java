@@ -0,0 +1,51 @@
+package io.arex.foundation.healthy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class HealthSignalCollectorTest {
+
+    @Test
+    void bucketOf() {
+        assertEquals(0, HealthSignalCollector.bucketOf(0));
+        assertEquals(1, HealthSignalCollector.bucketOf(1));
+        assertEquals(2, HealthSignalCollector.bucketOf(3));
+        assertEquals(11, HealthSignalCollector.bucketOf(1024));
+        assertEquals(HealthSignalCollector.LATENCY_BUCKETS - 1, HealthSignalCollector.bucketOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    void snapshot() {
+        HealthSignalCollector collector = new HealthSignalCollector();
+        collector.setBufferOccupancy(() -> 0.25D);
+        for (int i = 0; i < 98; i++) {
+            collector.recordStorageLatency(TimeUnit.MILLISECONDS.toNanos(5));
+        }
+        collector.recordStorageLatency(TimeUnit.MILLISECONDS.toNanos(1500));
+        collector.recordStorageLatency(TimeUnit.MILLISECONDS.toNanos(1500));
+        collector.onReject();
+        collector.recordStageLatency(HealthManager.Stage.SERIALIZE, TimeUnit.MILLISECONDS.toNanos(3));
+
+        HealthSignals signals = collector.snapshot();
+        // stages are separate metrics, not counted as storage requests
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(4), signals.getStageLatencyP99(HealthManager.Stage.SERIALIZE));
+        assertEquals(0, signals.getStageLatencyP99(HealthManager.Stage.BUFFER));
+        assertEquals(0.25D, signals.getBufferOccupancy());
+        assertEquals(100, signals.getStorageRequestCount());
+        assertEquals(1, signals.getRejectCount());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(8), signals.getStorageLatencyP50());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(2048), signals.getStorageLatencyP99());
+        assertTrue(signals.getCpuLoad() >= 0D && signals.getCpuLoad() <= 1D);
+        assertEquals(HealthSignals.REJECT_PRESSURE, signals.pressure());
+
+        // reset after snapshot
+        signals = collector.snapshot();
+        assertEquals(0, signals.getStorageRequestCount());
+        assertEquals(0, signals.getRejectCount());
+        assertEquals(0, signals.getStorageLatencyP99());
+        assertEquals(0, signals.getStageLatencyP99(HealthManager.Stage.SERIALIZE));
+    }
+}
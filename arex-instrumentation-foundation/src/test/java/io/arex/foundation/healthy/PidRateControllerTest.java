@@ -0,0 +1,55 @@
+package io.arex.foundation.healthy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class PidRateControllerTest {
+
+    @Test
+    void adjust() {
+        PidRateController controller = new PidRateController();
+        HealthSignals overload = new HealthSignals(0D, 0, 0, 0, 1, 0D, 0D);
+        double factor = 1D;
+        for (int i = 0; i < 3; i++) {
+            double next = controller.adjust(factor, overload);
+            assertTrue(next < factor);
+            factor = Math.max(next, HealthManager.MIN_RATE_FACTOR);
+        }
+
+        HealthSignals idle = new HealthSignals(0D, 0, 0, 0, 0, 0D, 0D);
+        for (int i = 0; i < 20; i++) {
+            factor = Math.max(HealthManager.MIN_RATE_FACTOR, Math.min(1D, controller.adjust(factor, idle)));
+        }
+        // recovers after the overload
+        assertTrue(factor >= 1D);
+    }
+
+    @Test
+    void holdAtSetpoint() {
+        PidRateController controller = new PidRateController();
+        HealthSignals overload = new HealthSignals(0D, 0, 0, 0, 1, 0D, 0D);
+        double factor = 1D;
+        for (int i = 0; i < 3; i++) {
+            factor = controller.adjust(factor, overload);
+        }
+        // pressure 0.7, the factor settles instead of drifting with the past errors
+        HealthSignals setpoint = new HealthSignals(0.35D, 0, 0, 0, 0, 0D, 0D);
+        factor = controller.adjust(factor, setpoint);
+        factor = controller.adjust(factor, setpoint);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(factor, controller.adjust(factor, setpoint), 0.0001);
+        }
+    }
+
+    @Test
+    void holdWhileCpuSaturated() {
+        PidRateController controller = new PidRateController();
+        HealthSignals busyHost = new HealthSignals(0D, 0, 0, 0, 0, 0.95D, 0D);
+        assertEquals(0.5D, controller.adjust(0.5D, busyHost), 0.0001);
+
+        HealthSignals overload = new HealthSignals(0D, 0, 0, 0, 1, 0.95D, 0D);
+        assertTrue(controller.adjust(0.5D, overload) < 0.5D);
+    }
+}
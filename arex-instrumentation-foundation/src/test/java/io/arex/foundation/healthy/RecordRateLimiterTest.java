@@ -0,0 +1,118 @@
+package io.arex.foundation.healthy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class RecordRateLimiterTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void zeroRate() {
+        RecordRateLimiter limiter = new RecordRateLimiter();
+        assertFalse(limiter.tryAcquire("uri"));
+        limiter.setRate(0, true);
+        assertFalse(limiter.tryAcquire("uri"));
+        assertEquals(0, limiter.size());
+    }
+
+    @Test
+    void refill() {
+        RecordRateLimiter limiter = new RecordRateLimiter();
+        // one permit every 6 seconds
+        limiter.setRate(10, true);
+        long now = System.nanoTime();
+        assertTrue(limiter.tryAcquire("uri", now));
+        assertFalse(limiter.tryAcquire("uri", now + SECOND));
+        // buckets of different keys are independent
+        assertTrue(limiter.tryAcquire("other", now + SECOND));
+        assertTrue(limiter.tryAcquire("uri", now + 6 * SECOND));
+        assertFalse(limiter.tryAcquire("uri", now + 7 * SECOND));
+
+        // keep the taken permits, the wait is capped by the new interval
+        limiter.setRate(60, false);
+        assertFalse(limiter.tryAcquire("uri", now + 7 * SECOND));
+        assertTrue(limiter.tryAcquire("uri", now + 8 * SECOND));
+        assertFalse(limiter.tryAcquire("uri", now + 8 * SECOND + SECOND / 2));
+        assertTrue(limiter.tryAcquire("uri", now + 9 * SECOND));
+
+        // reset starts over like a new limiter
+        limiter.setRate(60, true);
+        assertTrue(limiter.tryAcquire("uri", now + 9 * SECOND));
+        assertFalse(limiter.tryAcquire("uri", now + 9 * SECOND));
+    }
+
+    @Test
+    void burst() {
+        RecordRateLimiter limiter = new RecordRateLimiter();
+        // 10 permits per second, store up to one second
+        limiter.setRate(600, true);
+        long now = System.nanoTime();
+        int acquired = 0;
+        for (int i = 0; i < 100; i++) {
+            if (limiter.tryAcquire("uri", now)) {
+                acquired++;
+            }
+        }
+        assertEquals(10, acquired);
+    }
+
+    @Test
+    void evictIdleKeys() {
+        RecordRateLimiter limiter = new RecordRateLimiter();
+        limiter.setRate(10, true);
+        long now = System.nanoTime();
+        limiter.tryAcquire("idle", now);
+        limiter.tryAcquire("active", now);
+        long later = now + RecordRateLimiter.IDLE_TIMEOUT_NANOS;
+        limiter.tryAcquire("active", later);
+        assertEquals(2, limiter.size());
+        limiter.tryAcquire("active", later + RecordRateLimiter.SWEEP_INTERVAL_NANOS + SECOND * 2);
+        assertEquals(1, limiter.size());
+    }
+
+    @Test
+    void maxKeys() {
+        RecordRateLimiter limiter = new RecordRateLimiter();
+        limiter.setRate(10, true);
+        long now = System.nanoTime();
+        for (int i = 0; i < RecordRateLimiter.MAX_KEYS; i++) {
+            assertTrue(limiter.tryAcquire("/order/" + i, now));
+        }
+        // keys beyond the limit share the overflow bucket
+        assertTrue(limiter.tryAcquire("/order/overflow1", now));
+        assertFalse(limiter.tryAcquire("/order/overflow2", now));
+        assertEquals(RecordRateLimiter.MAX_KEYS, limiter.size());
+    }
+
+    @Test
+    void concurrentAcquire() throws InterruptedException {
+        RecordRateLimiter limiter = new RecordRateLimiter();
+        limiter.setRate(1, true);
+        long now = System.nanoTime();
+        int threads = 8;
+        AtomicInteger acquired = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            executor.execute(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    if (limiter.tryAcquire("uri", now)) {
+                        acquired.incrementAndGet();
+                    }
+                }
+                latch.countDown();
+            });
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertEquals(1, acquired.get());
+    }
+}
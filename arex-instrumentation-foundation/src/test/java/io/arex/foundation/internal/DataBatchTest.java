@@ -0,0 +1,94 @@
+package io.arex.foundation.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.arex.agent.bootstrap.model.ArexMocker;
+import io.arex.inst.runtime.serializer.Serializer;
+import java.io.StringWriter;
+import java.util.Collections;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+
+class DataBatchTest {
+    static MockedStatic<Serializer> serializerMocked;
+
+    @BeforeAll
+    static void setUp() {
+        serializerMocked = Mockito.mockStatic(Serializer.class);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        serializerMocked.close();
+    }
+
+    private static DataEntity entity(String postData) {
+        serializerMocked.when(() -> Serializer.serialize(Mockito.any())).thenReturn(postData);
+        return new DataEntity(Collections.singletonList(new ArexMocker()));
+    }
+
+    @Test
+    void add() {
+        DataBatch batch = new DataBatch(3, 1024, 0);
+        assertTrue(batch.isEmpty());
+        assertTrue(batch.add(entity("[{\"id\":1}]")));
+        // skip null and empty array
+        assertTrue(batch.add(entity(null)));
+        assertTrue(batch.add(entity(" [ ] ")));
+        assertTrue(batch.add(entity("[ {\"id\":2},{\"id\":3} ]")));
+        assertEquals(2, batch.size());
+        assertFalse(batch.isFull());
+        assertTrue(batch.add(entity("[{\"id\":4}]")));
+        assertTrue(batch.isFull());
+        assertFalse(batch.add(entity("[{\"id\":5}]")));
+        String expected = "[{\"id\":1},{\"id\":2},{\"id\":3},{\"id\":4}]";
+        assertEquals(expected, render(batch));
+        assertEquals(expected.length(), batch.length());
+    }
+
+    @Test
+    void maxBytes() {
+        DataBatch batch = new DataBatch(10, 20, 0);
+        // the first entity is always accepted even if it exceeds the limit
+        assertTrue(batch.add(entity("[{\"id\":\"0123456789\"}]")));
+        assertTrue(batch.isFull());
+        assertFalse(batch.add(entity("[{\"id\":1}]")));
+
+        batch = new DataBatch(10, 20, 0);
+        assertTrue(batch.add(entity("[{\"id\":1}]")));
+        assertFalse(batch.add(entity("[{\"id\":\"0123456789\"}]")));
+        assertEquals(1, batch.size());
+    }
+
+    @Test
+    void maxEncodedBytes() {
+        // 3 chars of 3 bytes in UTF-8
+        String cjk = "[\"\u6570\u636e\u5e93\"]";
+        DataBatch batch = new DataBatch(10, 20, 0);
+        assertTrue(batch.add(entity(cjk)));
+        assertEquals(13, batch.length());
+        assertFalse(batch.add(entity(cjk)));
+        assertEquals(1, batch.size());
+    }
+
+    @Test
+    void isExpired() {
+        DataBatch batch = new DataBatch(10, 1024, 100_000_000L);
+        assertFalse(batch.isExpired(System.nanoTime()));
+        assertTrue(batch.isExpired(batch.getDeadline()));
+
+        DataBatch single = new DataBatch(1, Long.MAX_VALUE, 0);
+        single.add(entity("[{\"id\":1}]"));
+        assertTrue(single.isFull());
+        assertEquals("[{\"id\":1}]", render(single));
+    }
+
+    private static String render(DataBatch batch) {
+        StringWriter writer = new StringWriter();
+        assertDoesNotThrow(() -> batch.writeTo(writer));
+        return writer.toString();
+    }
+}
@@ -0,0 +1,109 @@
+package io.arex.foundation.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DiskSpoolTest {
+    @TempDir
+    Path tempDir;
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(DiskSpool.Record record) {
+        return new String(record.getData(), StandardCharsets.UTF_8);
+    }
+
+    private int segmentCount() {
+        File[] files = tempDir.toFile().listFiles((dir, name) -> name.endsWith(DiskSpool.SEGMENT_SUFFIX));
+        return files == null ? 0 : files.length;
+    }
+
+    @Test
+    void appendAndCommit() throws Exception {
+        DiskSpool spool = new DiskSpool(tempDir.toFile(), 64, 1024);
+        assertTrue(spool.isEmpty());
+        assertNull(spool.peek());
+        assertFalse(spool.append(new byte[0]));
+        // larger than a segment
+        assertFalse(spool.append(new byte[64]));
+
+        assertTrue(spool.append(bytes("[1]")));
+        assertTrue(spool.append(bytes("[2]")));
+        assertFalse(spool.isEmpty());
+
+        DiskSpool.Record record = spool.peek();
+        assertEquals("[1]", string(record));
+        // peek again before commit returns the same record
+        assertEquals("[1]", string(spool.peek()));
+        spool.commit(record);
+        spool.commit(record);
+        record = spool.peek();
+        assertEquals("[2]", string(record));
+        spool.commit(record);
+        assertNull(spool.peek());
+        assertTrue(spool.isEmpty());
+        spool.close();
+    }
+
+    @Test
+    void rollAndBound() throws Exception {
+        // 2 records of 24 bytes per segment, at most 3 segments
+        DiskSpool spool = new DiskSpool(tempDir.toFile(), 48, 150);
+        byte[] data = new byte[16];
+        for (int i = 0; i < 6; i++) {
+            data[0] = (byte) i;
+            assertTrue(spool.append(data.clone()));
+        }
+        assertFalse(spool.append(data));
+        assertEquals(144, spool.usedBytes());
+        assertEquals(3, segmentCount());
+
+        // consume the first segment, it is deleted and leaves room for a new one
+        for (int i = 0; i < 2; i++) {
+            DiskSpool.Record record = spool.peek();
+            assertEquals(i, record.getData()[0]);
+            spool.commit(record);
+        }
+        assertEquals(2, segmentCount());
+        assertTrue(spool.append(data));
+        assertEquals(3, segmentCount());
+        spool.close();
+    }
+
+    @Test
+    void recover() throws Exception {
+        DiskSpool spool = new DiskSpool(tempDir.toFile(), 64, 1024);
+        spool.append(bytes("[1]"));
+        spool.append(bytes("[2]"));
+        spool.append(bytes("[3]"));
+        spool.commit(spool.peek());
+        spool.close();
+
+        // torn write of the last record
+        File segment = tempDir.toFile().listFiles((dir, name) -> name.endsWith(DiskSpool.SEGMENT_SUFFIX))[0];
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.seek(2L * (DiskSpool.HEADER_SIZE + 3) + DiskSpool.HEADER_SIZE);
+            file.write('x');
+        }
+
+        DiskSpool recovered = new DiskSpool(tempDir.toFile(), 64, 1024);
+        DiskSpool.Record record = recovered.peek();
+        assertEquals("[2]", string(record));
+        recovered.commit(record);
+        assertNull(recovered.peek());
+        assertTrue(recovered.isEmpty());
+
+        // new records go to a new segment
+        assertTrue(recovered.append(bytes("[4]")));
+        assertEquals("[4]", string(recovered.peek()));
+        recovered.close();
+    }
+}
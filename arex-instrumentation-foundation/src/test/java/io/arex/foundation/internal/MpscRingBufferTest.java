@@ -0,0 +1,92 @@
+package io.arex.foundation.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class MpscRingBufferTest {
+
+    @Test
+    void roundToPowerOfTwo() {
+        assertEquals(1, MpscRingBuffer.roundToPowerOfTwo(0));
+        assertEquals(1, MpscRingBuffer.roundToPowerOfTwo(1));
+        assertEquals(4, MpscRingBuffer.roundToPowerOfTwo(3));
+        assertEquals(1024, MpscRingBuffer.roundToPowerOfTwo(1024));
+        assertEquals(1 << 30, MpscRingBuffer.roundToPowerOfTwo(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void offerAndPoll() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(3);
+        assertEquals(4, buffer.capacity());
+        assertTrue(buffer.isEmpty());
+        assertNull(buffer.poll());
+        assertThrows(NullPointerException.class, () -> buffer.offer(null));
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        // full
+        assertFalse(buffer.offer(4));
+        assertEquals(4, buffer.size());
+
+        assertEquals(0, buffer.poll());
+        assertTrue(buffer.offer(4));
+        for (int i = 1; i <= 4; i++) {
+            assertEquals(i, buffer.poll());
+        }
+        assertNull(buffer.poll());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void drainTo() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(8);
+        for (int i = 0; i < 5; i++) {
+            buffer.offer(i);
+        }
+        List<Integer> result = new ArrayList<>();
+        assertEquals(3, buffer.drainTo(result::add, 3));
+        assertEquals(2, buffer.drainTo(result::add, 3));
+        assertEquals(0, buffer.drainTo(result::add, 3));
+        assertEquals(5, result.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i, result.get(i));
+        }
+    }
+
+    @Test
+    void multiProducer() throws InterruptedException {
+        int producers = 8;
+        int perProducer = 10000;
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(64);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch latch = new CountDownLatch(producers);
+        for (int p = 0; p < producers; p++) {
+            executor.execute(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!buffer.offer(i)) {
+                        Thread.yield();
+                    }
+                }
+                latch.countDown();
+            });
+        }
+
+        long[] sum = new long[1];
+        int total = 0;
+        while (total < producers * perProducer) {
+            total += buffer.drainTo(value -> sum[0] += value, 32);
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertTrue(buffer.isEmpty());
+        assertEquals((long) producers * perProducer * (perProducer - 1) / 2, sum[0]);
+    }
+}
@@ -0,0 +1,110 @@
+package io.arex.foundation.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RecordLogTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void appendAndRead() throws Exception {
+        try (RecordLog log = new RecordLog(tempDir.toFile(), 1024, 4096)) {
+            log.load((type, address, payload) -> fail("empty log"));
+            long first = log.append((byte) 1, bytes("first"));
+            long second = log.append((byte) 2, bytes("second"));
+            assertEquals("first", new String(log.read(first, 5), StandardCharsets.UTF_8));
+            assertEquals("second", new String(log.read(second, 6), StandardCharsets.UTF_8));
+            assertEquals(RecordLog.HEADER_SIZE * 2 + 11, log.size());
+        }
+
+        // reopen
+        List<String> entries = new ArrayList<>();
+        try (RecordLog log = new RecordLog(tempDir.toFile(), 1024, 4096)) {
+            log.load((type, address, payload) -> entries.add(type + ":" + new String(payload, StandardCharsets.UTF_8)));
+            assertEquals(2, entries.size());
+            assertEquals("1:first", entries.get(0));
+            assertEquals("2:second", entries.get(1));
+        }
+    }
+
+    @Test
+    void truncateTornTail() throws Exception {
+        try (RecordLog log = new RecordLog(tempDir.toFile(), 1024, 4096)) {
+            log.load((type, address, payload) -> {});
+            log.append((byte) 1, bytes("complete"));
+            log.append((byte) 1, bytes("torn"));
+        }
+        File segment = tempDir.resolve("0000000000" + RecordLog.SEGMENT_SUFFIX).toFile();
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.setLength(file.length() - 2);
+        }
+
+        List<String> entries = new ArrayList<>();
+        try (RecordLog log = new RecordLog(tempDir.toFile(), 1024, 4096)) {
+            log.load((type, address, payload) -> entries.add(new String(payload, StandardCharsets.UTF_8)));
+            assertEquals(1, entries.size());
+            assertEquals(RecordLog.HEADER_SIZE + 8, segment.length());
+            long address = log.append((byte) 1, bytes("next"));
+            assertEquals("next", new String(log.read(address, 4), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void dropSegmentsAfterTornEntry() throws Exception {
+        byte[] payload = new byte[40];
+        try (RecordLog log = new RecordLog(tempDir.toFile(), 64, 1024)) {
+            log.load((type, address, entry) -> {});
+            log.append((byte) 1, payload);
+            log.append((byte) 2, payload);
+            log.append((byte) 3, payload);
+        }
+        File torn = tempDir.resolve("0000000001" + RecordLog.SEGMENT_SUFFIX).toFile();
+        try (RandomAccessFile file = new RandomAccessFile(torn, "rw")) {
+            file.setLength(file.length() - 2);
+        }
+
+        List<Byte> types = new ArrayList<>();
+        try (RecordLog log = new RecordLog(tempDir.toFile(), 64, 1024)) {
+            log.load((type, address, entry) -> types.add(type));
+            assertEquals(1, types.size());
+            assertEquals((byte) 1, types.get(0));
+            assertEquals(0, torn.length());
+            assertFalse(tempDir.resolve("0000000002" + RecordLog.SEGMENT_SUFFIX).toFile().exists());
+            assertEquals(RecordLog.HEADER_SIZE + payload.length, log.size());
+            long address = log.append((byte) 4, payload);
+            assertEquals(1, RecordLog.segmentId(address));
+        }
+    }
+
+    @Test
+    void dropOldestSegment() throws Exception {
+        List<Integer> dropped = new ArrayList<>();
+        try (RecordLog log = new RecordLog(tempDir.toFile(), 64, 192)) {
+            log.load((type, address, payload) -> {});
+            log.setDropListener(dropped::add);
+            byte[] payload = new byte[40];
+            long first = log.append((byte) 1, payload);
+            log.append((byte) 1, payload);
+            log.append((byte) 1, payload);
+            assertTrue(dropped.isEmpty());
+            log.append((byte) 1, payload);
+            assertEquals(1, dropped.size());
+            assertEquals(RecordLog.segmentId(first), dropped.get(0));
+            assertNull(log.read(first, payload.length));
+            assertTrue(log.size() <= 192);
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -3,8 +3,10 @@ package io.arex.foundation.serializer;
 import static org.junit.jupiter.api.Assertions.*;
 
 import io.arex.agent.bootstrap.util.CollectionUtil;
+import io.arex.foundation.serializer.gson.GsonSerializer;
 import io.arex.foundation.serializer.jackson.JacksonSerializer;
 import io.arex.inst.runtime.serializer.Serializer;
+import io.arex.inst.runtime.serializer.SizeLimitExceededException;
 import io.arex.inst.runtime.util.TypeUtil;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -62,4 +64,27 @@ class SerializerTest {
             assertInstanceOf(LocalDate.class, e);
         }
     }
+
+    @Test
+    void serializeWithSizeLimit() throws Throwable {
+        Serializer.builder(CollectionUtil.newArrayList(JacksonSerializer.INSTANCE, GsonSerializer.INSTANCE)).build();
+        Map<String, String> map = new HashMap<>();
+        map.put("key", "value");
+        for (String serializer : CollectionUtil.newArrayList("jackson", "gson")) {
+            String json = Serializer.serializeWithException(map, serializer);
+            assertEquals(json, Serializer.serializeWithSizeLimit(map, serializer, json.length()));
+            assertThrows(SizeLimitExceededException.class,
+                () -> Serializer.serializeWithSizeLimit(map, serializer, json.length() - 1));
+        }
+
+        // nested collection
+        List<List<Object>> doubleList = new ArrayList<>();
+        doubleList.add(CollectionUtil.newArrayList("a", "b"));
+        doubleList.add(null);
+        doubleList.add(new ArrayList<>());
+        String json = Serializer.serializeWithException(doubleList, "jackson");
+        assertEquals(json, Serializer.serializeWithSizeLimit(doubleList, "jackson", json.length()));
+        assertThrows(SizeLimitExceededException.class,
+            () -> Serializer.serializeWithSizeLimit(doubleList, "jackson", json.length() - 1));
+    }
 }
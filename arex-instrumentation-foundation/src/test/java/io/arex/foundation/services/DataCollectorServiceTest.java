@@ -6,8 +6,10 @@ import static org.mockito.ArgumentMatchers.anyString;
 
 import io.arex.agent.bootstrap.model.ArexMocker;
 import io.arex.agent.bootstrap.model.MockStrategyEnum;
+import io.arex.agent.bootstrap.model.Mocker;
 import io.arex.foundation.config.ConfigManager;
 import io.arex.foundation.healthy.HealthManager;
+import io.arex.foundation.internal.DataBatch;
 import io.arex.foundation.internal.DataEntity;
 import io.arex.foundation.model.DecelerateReasonEnum;
 import io.arex.foundation.model.HttpClientResponse;
@@ -16,7 +18,11 @@ import io.arex.foundation.util.httpclient.AsyncHttpClientUtil;
 import io.arex.inst.runtime.context.ArexContext;
 import io.arex.inst.runtime.context.ContextManager;
 
+import java.io.StringWriter;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 import io.arex.inst.runtime.model.QueryAllMockerDTO;
@@ -30,9 +36,10 @@ import org.mockito.Mockito;
 
 class DataCollectorServiceTest {
     static MockedStatic<CaseManager> caseManagerMocked;
+    static MockedStatic<AsyncHttpClientUtil> httpClientMocked;
     @BeforeAll
     static void setUp() {
-        Mockito.mockStatic(AsyncHttpClientUtil.class);
+        httpClientMocked = Mockito.mockStatic(AsyncHttpClientUtil.class);
         Mockito.mockStatic(HealthManager.class);
         Mockito.mockStatic(ContextManager.class);
         Mockito.mockStatic(Serializer.class);
@@ -49,12 +56,12 @@ class DataCollectorServiceTest {
         final ArexMocker mocker = new ArexMocker();
         mocker.setRecordId("testRecordId");
         CompletableFuture<HttpClientResponse> mockResponse = CompletableFuture.completedFuture(HttpClientResponse.emptyResponse());
-        Mockito.when(AsyncHttpClientUtil.postAsyncWithZstdJson(anyString(), any(), any())).thenReturn(mockResponse);
+        Mockito.when(AsyncHttpClientUtil.postAsyncStreamingZstdJson(anyString(), any(), any(), any())).thenReturn(mockResponse);
         assertDoesNotThrow(()-> DataCollectorService.INSTANCE.saveData(new DataEntity(Collections.singletonList(mocker))));
 
         CompletableFuture<HttpClientResponse> mockException = new CompletableFuture<>();
         mockException.completeExceptionally(new RuntimeException("mock exception"));
-        Mockito.when(AsyncHttpClientUtil.postAsyncWithZstdJson(anyString(), any(), any())).thenReturn(mockException);
+        Mockito.when(AsyncHttpClientUtil.postAsyncStreamingZstdJson(anyString(), any(), any(), any())).thenReturn(mockException);
         assertDoesNotThrow(()-> DataCollectorService.INSTANCE.saveData(new DataEntity(Collections.singletonList(mocker))));
         caseManagerMocked.verify(()-> CaseManager.invalid("testRecordId", null, null, DecelerateReasonEnum.SERVICE_EXCEPTION.getValue()), Mockito.times(1));
 
@@ -69,6 +76,88 @@ class DataCollectorServiceTest {
         assertDoesNotThrow(()-> DataCollectorService.INSTANCE.saveData(new DataEntity(Collections.singletonList(mocker))));
     }
 
+    @Test
+    void serializeAndEnqueue() {
+        final ArexMocker mocker = new ArexMocker();
+        mocker.setRecordId("testAsyncRecordId");
+        mocker.setTargetRequest(new Mocker.Target());
+        mocker.getTargetRequest().setAttribute("key", "value");
+        Map<String, String> tags = new HashMap<>();
+        tags.put("key", "value");
+        mocker.setTags(tags);
+        DataEntity entity = DataEntity.deferred(Collections.singletonList(mocker));
+        assertFalse(entity.isSerialized());
+        assertEquals("testAsyncRecordId", entity.getRecordId());
+
+        // modify after save does not affect the snapshot
+        mocker.getTargetRequest().setAttribute("key", "changed");
+        tags.put("key", "changed");
+        Mockito.when(Serializer.serialize(Mockito.argThat(arg -> "value".equals(requestAttribute(arg))
+                && "value".equals(((ArexMocker) ((List<?>) arg).get(0)).getTags().get("key")))))
+                .thenReturn("value");
+        CompletableFuture<HttpClientResponse> mockResponse = CompletableFuture.completedFuture(HttpClientResponse.emptyResponse());
+        Mockito.when(AsyncHttpClientUtil.postAsyncStreamingZstdJson(anyString(), any(), any(), any())).thenReturn(mockResponse);
+        DataCollectorService.INSTANCE.serializeAndEnqueue(entity, System.nanoTime());
+        assertTrue(entity.isSerialized());
+        assertEquals("value", entity.getPostData());
+
+        // serialize failed, the case is invalid and nothing is sent
+        mocker.setRecordId("testSerializeFailedId");
+        DataEntity failed = DataEntity.deferred(Collections.singletonList(mocker));
+        httpClientMocked.clearInvocations();
+        DataCollectorService.INSTANCE.serializeAndEnqueue(failed, System.nanoTime());
+        assertFalse(failed.isSerialized());
+        caseManagerMocked.verify(() -> CaseManager.invalid("testSerializeFailedId", null, null,
+                DecelerateReasonEnum.SERIALIZE_FAILURE.getValue()));
+        httpClientMocked.verify(() -> AsyncHttpClientUtil.postAsyncStreamingZstdJson(anyString(), any(), any(), any()),
+                Mockito.never());
+    }
+
+    @Test
+    void saveBatch() {
+        Mockito.when(Serializer.serialize(Mockito.argThat(arg -> "batchRecordId1".equals(recordId(arg)))))
+                .thenReturn("[{\"recordId\":\"batchRecordId1\"}]");
+        Mockito.when(Serializer.serialize(Mockito.argThat(arg -> "batchRecordId2".equals(recordId(arg)))))
+                .thenReturn("[{\"recordId\":\"batchRecordId2\"}]");
+        final ArexMocker mocker1 = new ArexMocker();
+        mocker1.setRecordId("batchRecordId1");
+        final ArexMocker mocker2 = new ArexMocker();
+        mocker2.setRecordId("batchRecordId2");
+        DataBatch batch = new DataBatch(10, 1024, 0);
+        batch.add(new DataEntity(Collections.singletonList(mocker1)));
+        batch.add(new DataEntity(Collections.singletonList(mocker2)));
+
+        String expected = "[{\"recordId\":\"batchRecordId1\"},{\"recordId\":\"batchRecordId2\"}]";
+        CompletableFuture<HttpClientResponse> mockException = new CompletableFuture<>();
+        mockException.completeExceptionally(new RuntimeException("mock exception"));
+        Mockito.when(AsyncHttpClientUtil.postAsyncStreamingZstdJson(anyString(), Mockito.argThat(content -> {
+            if (content == null) {
+                return false;
+            }
+            StringWriter writer = new StringWriter();
+            assertDoesNotThrow(() -> content.writeTo(writer));
+            return expected.equals(writer.toString());
+        }), any(), any())).thenReturn(mockException);
+        assertDoesNotThrow(()-> DataCollectorService.INSTANCE.saveBatch(batch));
+        caseManagerMocked.verify(()-> CaseManager.invalid("batchRecordId1", null, null, DecelerateReasonEnum.SERVICE_EXCEPTION.getValue()), Mockito.times(1));
+        caseManagerMocked.verify(()-> CaseManager.invalid("batchRecordId2", null, null, DecelerateReasonEnum.SERVICE_EXCEPTION.getValue()), Mockito.times(1));
+    }
+
+    private static String recordId(Object arg) {
+        if (!(arg instanceof List)) {
+            return null;
+        }
+        return ((Mocker) ((List<?>) arg).get(0)).getRecordId();
+    }
+
+    private static String requestAttribute(Object arg) {
+        if (!(arg instanceof List)) {
+            return null;
+        }
+        Mocker mocker = (Mocker) ((List<?>) arg).get(0);
+        return mocker.getTargetRequest() == null ? null : mocker.getTargetRequest().attributeAsString("key");
+    }
+
     @Test
     void queryReplayData() {
         Mockito.when(AsyncHttpClientUtil.postAsyncWithZstdJson(anyString(), anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
@@ -94,6 +183,8 @@ class DataCollectorServiceTest {
 
     @Test
     void invalidCase() {
+        Mockito.when(AsyncHttpClientUtil.postAsyncWithJson(anyString(), any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(HttpClientResponse.emptyResponse()));
         assertDoesNotThrow(()-> DataCollectorService.INSTANCE.invalidCase("test"));
     }
 
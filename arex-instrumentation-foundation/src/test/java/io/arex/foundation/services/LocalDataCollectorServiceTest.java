@@ -0,0 +1,172 @@
+package io.arex.foundation.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.arex.agent.bootstrap.model.ArexMocker;
+import io.arex.agent.bootstrap.model.MockCategoryType;
+import io.arex.agent.bootstrap.model.MockStrategyEnum;
+import io.arex.agent.bootstrap.model.Mocker;
+import io.arex.foundation.config.ConfigManager;
+import io.arex.foundation.serializer.gson.GsonSerializer;
+import io.arex.inst.runtime.model.QueryAllMockerDTO;
+import io.arex.inst.runtime.serializer.Serializer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LocalDataCollectorServiceTest {
+    @TempDir
+    Path tempDir;
+    LocalDataCollectorService service;
+
+    @BeforeAll
+    static void setUp() {
+        Serializer.builder(GsonSerializer.INSTANCE).build();
+    }
+
+    @BeforeEach
+    void start() {
+        ConfigManager.INSTANCE.setLocalStoragePath(tempDir.toString());
+        service = new LocalDataCollectorService();
+        service.start();
+    }
+
+    @AfterEach
+    void stop() {
+        service.stop();
+    }
+
+    @Test
+    void order() {
+        ConfigManager.INSTANCE.setStorageServiceMode("mock");
+        assertEquals(-1, service.order());
+        ConfigManager.INSTANCE.setStorageServiceMode("local");
+        assertEquals(1, service.order());
+        ConfigManager.INSTANCE.setStorageServiceMode("mock");
+    }
+
+    @Test
+    void saveAndQuery() {
+        service.save(Arrays.asList(
+                mocker(MockCategoryType.SERVLET, "/api", "entry"),
+                mocker(MockCategoryType.DYNAMIC_CLASS, "getUser", "1"),
+                mocker(MockCategoryType.DYNAMIC_CLASS, "getUser", "2"),
+                mocker(MockCategoryType.REDIS, "get", "key")));
+        restart();
+
+        // entry point
+        assertEquals("entry", requestBody(service.query(query(MockCategoryType.SERVLET, "/api", null, "replay1"),
+                MockStrategyEnum.OVER_BREAK)));
+        // same request first
+        assertEquals("2", requestBody(service.query(query(MockCategoryType.DYNAMIC_CLASS, "getUser", "2", "replay1"),
+                MockStrategyEnum.OVER_BREAK)));
+        // then next unused one
+        assertEquals("1", requestBody(service.query(query(MockCategoryType.DYNAMIC_CLASS, "getUser", "2", "replay1"),
+                MockStrategyEnum.OVER_BREAK)));
+        // all used
+        assertNull(service.query(query(MockCategoryType.DYNAMIC_CLASS, "getUser", "2", "replay1"),
+                MockStrategyEnum.OVER_BREAK));
+        assertEquals("2", requestBody(service.query(query(MockCategoryType.DYNAMIC_CLASS, "getUser", "2", "replay1"),
+                MockStrategyEnum.FIND_LAST)));
+
+        // strict match in another replay
+        assertNull(service.query(query(MockCategoryType.DYNAMIC_CLASS, "getUser", "3", "replay2"),
+                MockStrategyEnum.STRICT_MATCH));
+        assertEquals("1", requestBody(service.query(query(MockCategoryType.DYNAMIC_CLASS, "getUser", "1", "replay2"),
+                MockStrategyEnum.STRICT_MATCH)));
+        assertEquals("2", requestBody(service.query(query(MockCategoryType.DYNAMIC_CLASS, "getUser", "3", "replay2"),
+                MockStrategyEnum.OVER_BREAK)));
+
+        // unknown record and operation
+        assertNull(service.query(query(MockCategoryType.REDIS, "set", "key", "replay1"), MockStrategyEnum.OVER_BREAK));
+        ArexMocker unknown = mocker(MockCategoryType.REDIS, "get", "key");
+        unknown.setRecordId("unknown");
+        assertNull(service.query(Serializer.serialize(unknown), MockStrategyEnum.OVER_BREAK));
+    }
+
+    @Test
+    void queryAll() {
+        service.save(Arrays.asList(
+                mocker(MockCategoryType.SERVLET, "/api", "entry"),
+                mocker(MockCategoryType.DYNAMIC_CLASS, "getUser", "1"),
+                mocker(MockCategoryType.REDIS, "get", "key")));
+        restart();
+
+        QueryAllMockerDTO request = new QueryAllMockerDTO();
+        request.setRecordId("record1");
+        ArexMocker[] mockers = GsonSerializer.INSTANCE.deserialize(service.queryAll(Serializer.serialize(request)),
+                ArexMocker[].class);
+        assertEquals(2, mockers.length);
+        assertEquals(MockCategoryType.DYNAMIC_CLASS.getName(), mockers[0].getCategoryType().getName());
+        assertEquals(MockCategoryType.REDIS.getName(), mockers[1].getCategoryType().getName());
+
+        request.setCategoryTypes(new String[]{MockCategoryType.MESSAGE_PRODUCER.getName()});
+        assertNull(service.queryAll(Serializer.serialize(request)));
+        request.setRecordId("unknown");
+        assertNull(service.queryAll(Serializer.serialize(request)));
+    }
+
+    @Test
+    void sameHashCodeRequest() {
+        // "Aa" and "BB" have the same String.hashCode and length
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        service.save(Arrays.asList(
+                mocker(MockCategoryType.DYNAMIC_CLASS, "getUser", "Aa"),
+                mocker(MockCategoryType.DYNAMIC_CLASS, "getUser", "BB")));
+        restart();
+        assertEquals("BB", requestBody(service.query(query(MockCategoryType.DYNAMIC_CLASS, "getUser", "BB", "replay1"),
+                MockStrategyEnum.STRICT_MATCH)));
+        assertEquals("Aa", requestBody(service.query(query(MockCategoryType.DYNAMIC_CLASS, "getUser", "Aa", "replay1"),
+                MockStrategyEnum.STRICT_MATCH)));
+    }
+
+    @Test
+    void invalidCase() {
+        service.save(Collections.singletonList(mocker(MockCategoryType.DYNAMIC_CLASS, "getUser", "1")));
+        restart();
+        String query = query(MockCategoryType.DYNAMIC_CLASS, "getUser", "1", "replay1");
+        assertNotNull(service.query(query, MockStrategyEnum.OVER_BREAK));
+
+        // replay state is dropped
+        service.invalidCase("{\"recordId\":\"record1\",\"replayId\":\"replay1\"}");
+        assertNotNull(service.query(query, MockStrategyEnum.OVER_BREAK));
+
+        // record is removed, also after restart
+        service.invalidCase("{\"recordId\":\"record1\",\"replayId\":\"\"}");
+        assertNull(service.query(query(MockCategoryType.DYNAMIC_CLASS, "getUser", "1", "replay2"),
+                MockStrategyEnum.OVER_BREAK));
+        restart();
+        assertNull(service.query(query(MockCategoryType.DYNAMIC_CLASS, "getUser", "1", "replay3"),
+                MockStrategyEnum.OVER_BREAK));
+    }
+
+    private void restart() {
+        service.stop();
+        service.start();
+    }
+
+    private static ArexMocker mocker(MockCategoryType categoryType, String operationName, String body) {
+        ArexMocker mocker = new ArexMocker(categoryType);
+        mocker.setRecordId("record1");
+        mocker.setOperationName(operationName);
+        mocker.setTargetRequest(new Mocker.Target());
+        mocker.getTargetRequest().setBody(body);
+        mocker.setTargetResponse(new Mocker.Target());
+        return mocker;
+    }
+
+    private static String query(MockCategoryType categoryType, String operationName, String body, String replayId) {
+        ArexMocker mocker = mocker(categoryType, operationName, body);
+        mocker.setReplayId(replayId);
+        return Serializer.serialize(mocker);
+    }
+
+    private static String requestBody(String json) {
+        return GsonSerializer.INSTANCE.deserialize(json, ArexMocker.class).getTargetRequest().getBody();
+    }
+}
@@ -0,0 +1,100 @@
+package io.arex.foundation.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.isNull;
+
+import io.arex.foundation.config.ConfigManager;
+import io.arex.foundation.model.HttpClientResponse;
+import io.arex.foundation.util.CompressUtil.ContentWriter;
+import io.arex.foundation.util.httpclient.AsyncHttpClientUtil;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+
+class RecordSpoolServiceTest {
+    static MockedStatic<AsyncHttpClientUtil> httpClientMocked;
+    static MockedStatic<TimerService> timerServiceMocked;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeAll
+    static void setUp() {
+        httpClientMocked = Mockito.mockStatic(AsyncHttpClientUtil.class);
+        timerServiceMocked = Mockito.mockStatic(TimerService.class);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        httpClientMocked.close();
+        timerServiceMocked.close();
+        ConfigManager.INSTANCE.setSpoolEnable("false");
+    }
+
+    @Test
+    void spoolAndReplay() {
+        // spool thread replaced by the caller, the static mocks are only visible to this thread
+        RecordSpoolService service = new RecordSpoolService(Runnable::run);
+        // disabled
+        service.start();
+        assertFalse(service.spool(writer -> writer.write("[1]")));
+        AtomicBoolean notSpooled = new AtomicBoolean();
+        service.spoolAsync(writer -> writer.write("[1]"), () -> notSpooled.set(true));
+        assertTrue(notSpooled.get());
+
+        ConfigManager.INSTANCE.setSpoolEnable("true");
+        ConfigManager.INSTANCE.setSpoolPath(tempDir.toString());
+        service.start();
+        timerServiceMocked.verify(() -> TimerService.scheduleAtFixedRate(any(), Mockito.anyLong(),
+                Mockito.anyLong(), any()));
+        notSpooled.set(false);
+        service.spoolAsync(writer -> writer.write("[1]"), () -> notSpooled.set(true));
+        assertTrue(service.spool(writer -> writer.write("[2]")));
+        assertFalse(notSpooled.get());
+
+        // storage service still down, keep the records
+        List<String> posted = new ArrayList<>();
+        CompletableFuture<HttpClientResponse> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new RuntimeException("down"));
+        httpClientMocked.when(() -> AsyncHttpClientUtil.postAsyncStreamingZstdJson(anyString(), any(), isNull()))
+                .thenAnswer(invocation -> {
+                    posted.add(content(invocation.getArgument(1)));
+                    return failed;
+                });
+        service.replay();
+        assertEquals(1, posted.size());
+
+        // recovered, replay all in order
+        posted.clear();
+        httpClientMocked.when(() -> AsyncHttpClientUtil.postAsyncStreamingZstdJson(anyString(), any(), isNull()))
+                .thenAnswer(invocation -> {
+                    posted.add(content(invocation.getArgument(1)));
+                    return CompletableFuture.completedFuture(new HttpClientResponse(200, null, "{}"));
+                });
+        service.replay();
+        assertEquals(2, posted.size());
+        assertEquals("[1]", posted.get(0));
+        assertEquals("[2]", posted.get(1));
+
+        posted.clear();
+        service.replay();
+        assertTrue(posted.isEmpty());
+    }
+
+    private static String content(ContentWriter content) throws Exception {
+        StringWriter writer = new StringWriter();
+        content.writeTo(writer);
+        return writer.toString();
+    }
+}
@@ -0,0 +1,108 @@
+package io.arex.foundation.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+
+import com.github.luben.zstd.RecyclingBufferPool;
+import com.github.luben.zstd.ZstdInputStreamNoFinalizer;
+import io.arex.foundation.config.ConfigManager;
+import io.arex.foundation.internal.ZstdDictionary;
+import io.arex.foundation.model.HttpClientResponse;
+import io.arex.foundation.util.ChunkedByteArrayOutputStream;
+import io.arex.foundation.util.CompressUtil;
+import io.arex.foundation.util.httpclient.AsyncHttpClientUtil;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+
+class ZstdDictionaryServiceTest {
+    static MockedStatic<AsyncHttpClientUtil> httpClientMocked;
+    static MockedStatic<TimerService> timerServiceMocked;
+
+    @BeforeAll
+    static void setUp() {
+        httpClientMocked = Mockito.mockStatic(AsyncHttpClientUtil.class);
+        timerServiceMocked = Mockito.mockStatic(TimerService.class);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        httpClientMocked.close();
+        timerServiceMocked.close();
+        ConfigManager.INSTANCE.setZstdDictionaryEnable("false");
+    }
+
+    private static String payload(int index) {
+        return "[{\"categoryType\":{\"name\":\"DynamicClass\",\"entryPoint\":false,\"skipComparison\":true}," +
+            "\"recordId\":\"AREX-172-26-0-4-" + (78802751936100L + index) + "\",\"appId\":\"community-test\"," +
+            "\"creationTime\":" + (1689700307421L + index * 7L) + ",\"targetRequest\":{\"body\":\"" + index +
+            "\",\"type\":\"java.lang.String\"},\"targetResponse\":{\"body\":\"" + (index * 31) +
+            "\",\"type\":\"java.lang.Long\"},\"operationName\":\"java.lang.System.currentTimeMillis\"}]";
+    }
+
+    @Test
+    void trainAndCompress() throws Exception {
+        ZstdDictionaryService service = new ZstdDictionaryService();
+        // disabled
+        service.sample(payload(0));
+        timerServiceMocked.verifyNoInteractions();
+
+        ConfigManager.INSTANCE.setZstdDictionaryEnable("true");
+        httpClientMocked.when(() -> AsyncHttpClientUtil.postAsyncWithJson(anyString(), anyString(), any()))
+            .thenReturn(CompletableFuture.completedFuture(new HttpClientResponse(200, null, "{}")));
+        timerServiceMocked.when(() -> TimerService.schedule(any(), Mockito.anyLong(), any())).thenAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        });
+        // too large to sample
+        service.sample(new String(new char[ZstdDictionaryService.SAMPLE_MAX_LENGTH + 1]));
+        assertNull(service.current());
+
+        for (int i = 0; i < ZstdDictionaryService.TRAIN_SAMPLE_COUNT; i++) {
+            service.sample(payload(i));
+        }
+        ZstdDictionary dictionary = service.current();
+        assertNotNull(dictionary);
+        assertTrue(dictionary.getId() != 0);
+
+        String original = payload(99999);
+        ChunkedByteArrayOutputStream withDictionary = CompressUtil.zstdCompress(writer -> writer.write(original),
+            StandardCharsets.UTF_8, Long.MAX_VALUE, dictionary.getCompressDictionary());
+        byte[] plain = CompressUtil.zstdCompress(original, StandardCharsets.UTF_8);
+        assertTrue(withDictionary.size() < plain.length);
+
+        try (ZstdInputStreamNoFinalizer inputStream = new ZstdInputStreamNoFinalizer(withDictionary.toInputStream(),
+            RecyclingBufferPool.INSTANCE)) {
+            inputStream.setDict(dictionary.getContent());
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            for (int length; (length = inputStream.read(buffer)) != -1; ) {
+                outputStream.write(buffer, 0, length);
+            }
+            assertEquals(original, outputStream.toString("UTF-8"));
+        }
+    }
+
+    @Test
+    void registerFailed() {
+        ZstdDictionaryService service = new ZstdDictionaryService();
+        ConfigManager.INSTANCE.setZstdDictionaryEnable("true");
+        httpClientMocked.when(() -> AsyncHttpClientUtil.postAsyncWithJson(anyString(), anyString(), any()))
+            .thenReturn(CompletableFuture.completedFuture(new HttpClientResponse(404, null, null)));
+        timerServiceMocked.when(() -> TimerService.schedule(any(), Mockito.anyLong(), any())).thenAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        });
+        for (int i = 0; i < ZstdDictionaryService.TRAIN_SAMPLE_COUNT; i++) {
+            service.sample(payload(i));
+        }
+        // fallback to plain zstd
+        assertNull(service.current());
+    }
+}
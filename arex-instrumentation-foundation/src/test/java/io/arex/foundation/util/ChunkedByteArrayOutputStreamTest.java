@@ -0,0 +1,51 @@
+package io.arex.foundation.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import org.junit.jupiter.api.Test;
+
+class ChunkedByteArrayOutputStreamTest {
+
+    @Test
+    void write() throws Exception {
+        ChunkedByteArrayOutputStream outputStream = new ChunkedByteArrayOutputStream(100_000);
+        byte[] expected = new byte[10_000];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = (byte) i;
+        }
+        outputStream.write(expected[0]);
+        outputStream.write(expected, 1, expected.length - 1);
+        assertEquals(expected.length, outputStream.size());
+        assertArrayEquals(expected, outputStream.toByteArray());
+
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        outputStream.writeTo(target);
+        assertArrayEquals(expected, target.toByteArray());
+
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        try (InputStream inputStream = outputStream.toInputStream()) {
+            read.write(inputStream.read());
+            byte[] buffer = new byte[777];
+            for (int length; (length = inputStream.read(buffer, 0, buffer.length)) != -1; ) {
+                read.write(buffer, 0, length);
+            }
+        }
+        assertArrayEquals(expected, read.toByteArray());
+    }
+
+    @Test
+    void sizeLimit() throws Exception {
+        ChunkedByteArrayOutputStream outputStream = new ChunkedByteArrayOutputStream(3);
+        outputStream.write(new byte[3], 0, 3);
+        assertThrows(ChunkedByteArrayOutputStream.SizeLimitExceededException.class, () -> outputStream.write(1));
+        assertThrows(ChunkedByteArrayOutputStream.SizeLimitExceededException.class,
+            () -> outputStream.write(new byte[2], 0, 2));
+        assertEquals(3, outputStream.size());
+
+        ChunkedByteArrayOutputStream empty = new ChunkedByteArrayOutputStream(3);
+        assertEquals(0, empty.toByteArray().length);
+        assertEquals(-1, empty.toInputStream().read());
+    }
+}
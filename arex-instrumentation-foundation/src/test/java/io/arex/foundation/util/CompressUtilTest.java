@@ -2,6 +2,7 @@ package io.arex.foundation.util;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 import org.junit.jupiter.api.Test;
@@ -29,4 +30,24 @@ class CompressUtilTest {
         String newCompressString = Base64.getEncoder().encodeToString(newCompressBytes);
         assertEquals(oldCompressString, newCompressString);
     }
+
+    @Test
+    void streamingCompress() throws Exception {
+        ChunkedByteArrayOutputStream compressed = CompressUtil.zstdCompress(writer -> {
+            writer.write('[');
+            writer.write("hello AREX");
+            writer.write(']');
+        }, StandardCharsets.UTF_8, 1024);
+        assertEquals("[hello AREX]", CompressUtil.zstdDecompress(compressed.toInputStream(), StandardCharsets.UTF_8));
+        assertEquals(compressed.size(), compressed.toByteArray().length);
+
+        // random content is not compressible, abort when exceeds the limit
+        final java.util.Random random = new java.util.Random(1);
+        assertThrows(ChunkedByteArrayOutputStream.SizeLimitExceededException.class, () ->
+            CompressUtil.zstdCompress(writer -> {
+                for (int i = 0; i < 1024 * 1024; i++) {
+                    writer.write('a' + random.nextInt(26));
+                }
+            }, StandardCharsets.UTF_8, 1024));
+    }
 }
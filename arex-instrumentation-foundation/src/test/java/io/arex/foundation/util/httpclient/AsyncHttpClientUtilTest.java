@@ -31,6 +31,9 @@ class AsyncHttpClientUtilTest {
         asyncClient.setAccessible(true);
         mockAsyncClient = Mockito.mock(CloseableHttpAsyncClient.class);
         asyncClient.set(null, mockAsyncClient);
+        final Field queryClient = AsyncHttpClientUtil.class.getDeclaredField("queryClient");
+        queryClient.setAccessible(true);
+        queryClient.set(null, mockAsyncClient);
     }
 
     @AfterAll
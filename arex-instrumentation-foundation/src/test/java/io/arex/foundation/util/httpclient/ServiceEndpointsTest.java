@@ -0,0 +1,151 @@
+package io.arex.foundation.util.httpclient;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.arex.foundation.model.HttpClientResponse;
+import io.arex.foundation.util.httpclient.ServiceEndpoints.Endpoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+class ServiceEndpointsTest {
+
+    @Test
+    void leastOutstanding() {
+        ServiceEndpoints endpoints = new ServiceEndpoints(() -> "host1:8093, host2:8093");
+        Endpoint first = endpoints.select(0);
+        Endpoint second = endpoints.select(0);
+        assertNotSame(first, second);
+        assertEquals(1, first.getOutstanding());
+        assertEquals(1, second.getOutstanding());
+
+        // host with fewer outstanding requests is preferred
+        first.release(true, 0);
+        for (int i = 0; i < 4; i++) {
+            assertSame(first, endpoints.select(0));
+            first.release(true, 0);
+        }
+    }
+
+    @Test
+    void circuitBreaker() {
+        ServiceEndpoints endpoints = new ServiceEndpoints(() -> "host1");
+        Endpoint endpoint = endpoints.select(0);
+        endpoint.release(false, 0);
+        for (int i = 1; i < ServiceEndpoints.FAILURE_THRESHOLD; i++) {
+            assertSame(endpoint, endpoints.select(0));
+            endpoint.release(false, 0);
+        }
+        assertFalse(endpoint.isClosed());
+        assertNull(endpoints.select(ServiceEndpoints.OPEN_MILLIS - 1));
+
+        // half open, only one trial
+        assertSame(endpoint, endpoints.select(ServiceEndpoints.OPEN_MILLIS));
+        assertNull(endpoints.select(ServiceEndpoints.OPEN_MILLIS));
+        // trial failed, open again
+        endpoint.release(false, ServiceEndpoints.OPEN_MILLIS);
+        assertNull(endpoints.select(ServiceEndpoints.OPEN_MILLIS + 1));
+
+        assertSame(endpoint, endpoints.select(ServiceEndpoints.OPEN_MILLIS * 2));
+        endpoint.release(true, ServiceEndpoints.OPEN_MILLIS * 2);
+        assertTrue(endpoint.isClosed());
+        assertEquals(0, endpoint.getOutstanding());
+    }
+
+    @Test
+    void halfOpenWhileOthersAvailable() {
+        ServiceEndpoints endpoints = new ServiceEndpoints(() -> "host1,host2");
+        Endpoint failed = endpoints.endpoints().get(0);
+        Endpoint healthy = endpoints.endpoints().get(1);
+        int failures = 0;
+        while (failures < ServiceEndpoints.FAILURE_THRESHOLD) {
+            Endpoint endpoint = endpoints.select(0);
+            boolean success = endpoint == healthy;
+            endpoint.release(success, 0);
+            failures += success ? 0 : 1;
+        }
+        assertFalse(failed.isClosed());
+        for (int i = 0; i < 4; i++) {
+            assertSame(healthy, endpoints.select(ServiceEndpoints.OPEN_MILLIS - 1));
+            healthy.release(true, ServiceEndpoints.OPEN_MILLIS - 1);
+        }
+
+        // the open period is over, one trial goes to the failed host though the other is available
+        assertSame(failed, endpoints.select(ServiceEndpoints.OPEN_MILLIS));
+        assertSame(healthy, endpoints.select(ServiceEndpoints.OPEN_MILLIS));
+        failed.release(true, ServiceEndpoints.OPEN_MILLIS);
+        assertTrue(failed.isClosed());
+        healthy.release(true, ServiceEndpoints.OPEN_MILLIS);
+        // back in rotation
+        Endpoint first = endpoints.select(ServiceEndpoints.OPEN_MILLIS);
+        assertNotSame(first, endpoints.select(ServiceEndpoints.OPEN_MILLIS));
+    }
+
+    @Test
+    void execute() {
+        ServiceEndpoints endpoints = new ServiceEndpoints(() -> "host1");
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < ServiceEndpoints.FAILURE_THRESHOLD; i++) {
+            HttpClientResponse response = endpoints.execute("/api/query", url -> {
+                urls.add(url);
+                return CompletableFuture.completedFuture(new HttpClientResponse(503, null, null));
+            }).join();
+            assertEquals(503, response.getStatusCode());
+        }
+        assertEquals("http://host1/api/query", urls.get(0));
+        assertFalse(endpoints.endpoints().get(0).isClosed());
+
+        // all open, fail fast without calling the request
+        CompletableFuture<HttpClientResponse> future = endpoints.execute("/api/query", url -> {
+            urls.add(url);
+            return CompletableFuture.completedFuture(null);
+        });
+        assertThrows(CompletionException.class, future::join);
+        assertEquals(ServiceEndpoints.FAILURE_THRESHOLD, urls.size());
+
+        // no host
+        assertThrows(CompletionException.class,
+            () -> new ServiceEndpoints(() -> null).execute("/api/query", url -> null).join());
+    }
+
+    @Test
+    void localFailureNotCounted() {
+        ServiceEndpoints endpoints = new ServiceEndpoints(() -> "host1");
+        for (int i = 0; i < ServiceEndpoints.FAILURE_THRESHOLD; i++) {
+            CompletableFuture<HttpClientResponse> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new ServiceEndpoints.LocalRequestException(new IllegalStateException()));
+            assertThrows(CompletionException.class, () -> endpoints.execute("/api/query", url -> failed).join());
+            assertThrows(IllegalStateException.class, () -> endpoints.execute("/api/query", url -> {
+                throw new IllegalStateException();
+            }));
+        }
+        Endpoint endpoint = endpoints.endpoints().get(0);
+        assertTrue(endpoint.isClosed());
+        assertEquals(0, endpoint.getOutstanding());
+
+        // a cancelled trial gives the half open endpoint back
+        for (int i = 0; i < ServiceEndpoints.FAILURE_THRESHOLD; i++) {
+            endpoints.select(0).release(false, 0);
+        }
+        assertSame(endpoint, endpoints.select(ServiceEndpoints.OPEN_MILLIS));
+        endpoint.cancel();
+        assertSame(endpoint, endpoints.select(ServiceEndpoints.OPEN_MILLIS));
+    }
+
+    @Test
+    void hostsChanged() {
+        AtomicReference<String> hosts = new AtomicReference<>("host1");
+        ServiceEndpoints endpoints = new ServiceEndpoints(hosts::get);
+        assertEquals(1, endpoints.endpoints().size());
+        List<Endpoint> before = endpoints.endpoints();
+        assertSame(before, endpoints.endpoints());
+
+        hosts.set("host1,host2,,");
+        List<Endpoint> after = endpoints.endpoints();
+        assertEquals(2, after.size());
+        assertEquals("host2", after.get(1).getHost());
+    }
+}
@@ -7,6 +7,7 @@ import io.arex.agent.bootstrap.model.MockResult;
 import io.arex.agent.bootstrap.model.MockStrategyEnum;
 import io.arex.agent.bootstrap.model.Mocker;
 import io.arex.agent.bootstrap.util.ArrayUtils;
+import io.arex.agent.bootstrap.util.ConcurrentLongHashSet;
 import io.arex.agent.bootstrap.util.StringUtil;
 import io.arex.inst.common.util.MonoRecordFunction;
 import io.arex.inst.common.util.FluxRecordFunction;
@@ -19,18 +20,20 @@ import io.arex.inst.runtime.context.ContextManager;
 import io.arex.inst.runtime.model.ArexConstants;
 import io.arex.inst.runtime.model.DynamicClassEntity;
 import io.arex.inst.runtime.serializer.Serializer;
+import io.arex.inst.runtime.serializer.SizeLimitExceededException;
 import io.arex.inst.runtime.util.*;
 import io.arex.inst.runtime.log.LogManager;
 
 import java.lang.reflect.Array;
 import java.lang.reflect.Method;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
-import io.arex.inst.runtime.util.sizeof.ThrowableFilter;
 import org.aspectj.lang.ProceedingJoinPoint;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -49,26 +52,26 @@ public class DynamicClassExtractor {
     private static final String SEPARATE = "-";
     private final String clazzName;
     private final String methodName;
-    private final String methodKey;
+    private String methodKey;
+    private Supplier<String> methodKeyBuilder;
     private String serializedResult;
     private Object result;
     private String resultClazz;
-    private String methodSignatureKey;
     private final String methodReturnType;
-    private int methodSignatureKeyHash;
+    private long methodSignatureKeyHash;
+    private long valueArgsKeyHash;
     private final Class<?> actualType;
     private final Object[] args;
     private final String dynamicSignature;
     private final String requestType;
     private boolean isExceedMaxSize;
-    private static final AgentSizeOf agentSizeOf = AgentSizeOf.newInstance(ThrowableFilter.INSTANCE);
 
     public DynamicClassExtractor(Method method, Object[] args, String keyExpression, Class<?> actualType) {
         this.clazzName = normalizeClassName(method.getDeclaringClass().getName());
         this.methodName = method.getName();
         this.args = args;
         this.dynamicSignature = getDynamicEntitySignature();
-        this.methodKey = buildMethodKey(method, args, keyExpression);
+        initMethodKey(() -> buildMethodKey(method, args, keyExpression));
         this.methodReturnType = TypeUtil.getName(method.getReturnType());
         this.actualType = actualType;
         this.requestType = buildRequestType(method);
@@ -90,11 +93,51 @@ public class DynamicClassExtractor {
             this.requestType = ArrayUtils.toString(method.getParameterTypes(), obj -> ((Class<?>)obj).getTypeName());
         }
         this.dynamicSignature = getDynamicEntitySignature();
-        this.methodKey = buildMethodKey(method, this.args);
+        initMethodKey(() -> buildMethodKey(method, this.args));
         this.methodReturnType = TypeUtil.getName(method.getReturnType());
         this.actualType = null;
     }
 
+    /**
+     * the args of value types can not be changed by the method, so the serialization is deferred until
+     * the call is recorded or replayed, a duplicate call is filtered out without serializing the args
+     */
+    private void initMethodKey(Supplier<String> builder) {
+        if (isValueArgs(this.args)) {
+            this.methodKeyBuilder = builder;
+        } else {
+            this.methodKey = builder.get();
+        }
+    }
+
+    String getMethodKey() {
+        if (methodKeyBuilder != null) {
+            this.methodKey = methodKeyBuilder.get();
+            this.methodKeyBuilder = null;
+        }
+        return methodKey;
+    }
+
+    private static boolean isValueArgs(Object[] args) {
+        if (ArrayUtils.isEmpty(args)) {
+            return false;
+        }
+        for (Object arg : args) {
+            if (arg != null && !isValueType(arg)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isValueType(Object arg) {
+        Class<?> argClass = arg.getClass();
+        return argClass == String.class || argClass == Integer.class || argClass == Long.class
+                || argClass == Boolean.class || argClass == Double.class || argClass == Float.class
+                || argClass == Short.class || argClass == Byte.class || argClass == Character.class
+                || arg instanceof Enum;
+    }
+
     private int proceedingJoinPointIndex(Class<?>[] parameterTypes) {
         if (ArrayUtils.isEmpty(parameterTypes)) {
             return -1;
@@ -112,7 +155,7 @@ public class DynamicClassExtractor {
         this.methodName = methodName;
         this.args = args;
         this.dynamicSignature = getDynamicEntitySignature();
-        this.methodKey = serialize(args, ArexConstants.GSON_REQUEST_SERIALIZER);
+        initMethodKey(() -> serialize(this.args, ArexConstants.GSON_REQUEST_SERIALIZER));
         this.methodReturnType = methodReturnType;
         this.actualType = null;
         this.requestType = null;
@@ -262,7 +305,7 @@ public class DynamicClassExtractor {
     private Mocker makeMocker() {
         Mocker mocker = MockUtils.createDynamicClass(this.clazzName, this.methodName);
         mocker.setNeedMerge(true);
-        mocker.getTargetRequest().setBody(this.methodKey);
+        mocker.getTargetRequest().setBody(getMethodKey());
         mocker.getTargetResponse().setType(this.resultClazz);
         mocker.getTargetRequest().setType(this.requestType);
         return mocker;
@@ -310,9 +353,18 @@ public class DynamicClassExtractor {
         // Judge whether the hash value of the method signature has been recorded to avoid repeated recording.
         ArexContext context = ContextManager.currentContext();
         if (context != null) {
-            this.methodSignatureKey = buildDuplicateMethodKey();
-            if (methodKey != null) {
-                this.methodSignatureKeyHash = StringUtil.encodeAndHash(this.methodSignatureKey);
+            ConcurrentLongHashSet methodSignatureHashes = context.getMethodSignatureHashes();
+            if (methodKeyBuilder != null) {
+                // the args are not serialized yet, check the same args values first
+                this.valueArgsKeyHash = buildValueArgsKeyHash();
+                if (methodSignatureHashes.contains(this.valueArgsKeyHash)) {
+                    logDuplicateMethod(null);
+                    return false;
+                }
+            }
+            String resultKey = buildResultKey();
+            if (getMethodKey() != null) {
+                this.methodSignatureKeyHash = StringUtil.hash64(clazzName, methodName, methodKey, resultKey);
             } else {
                 /*
                  * no argument method check repeat first by className + methodName
@@ -320,27 +372,58 @@ public class DynamicClassExtractor {
                  * so first only check className + methodName
                  */
                 this.methodSignatureKeyHash = buildNoArgMethodSignatureHash(false);
-                if (!context.getMethodSignatureHashList().contains(this.methodSignatureKeyHash)) {
+                if (!methodSignatureHashes.contains(this.methodSignatureKeyHash)) {
                     // if missed means no exceed size limit, check className + methodName + result
                     this.methodSignatureKeyHash = buildNoArgMethodSignatureHash(true);
                 }
             }
-            if (context.getMethodSignatureHashList().contains(this.methodSignatureKeyHash)) {
-                if (Config.get().isEnableDebug()) {
-                    LogManager.warn(NEED_RECORD_TITLE,
-                            StringUtil.format("do not record method, cuz exist same method signature: %s", this.methodSignatureKey));
+            if (methodSignatureHashes.contains(this.methodSignatureKeyHash)) {
+                if (this.valueArgsKeyHash != 0) {
+                    methodSignatureHashes.add(this.valueArgsKeyHash);
                 }
+                logDuplicateMethod(resultKey);
                 return false;
             }
         }
         return true;
     }
 
-    private String buildDuplicateMethodKey() {
+    private void logDuplicateMethod(String resultKey) {
+        if (Config.get().isEnableDebug()) {
+            String methodSignatureKey = resultKey == null ? clazzName + "_" + methodName + "_" + Arrays.toString(args)
+                    : String.format("%s_%s_%s_%s", clazzName, methodName, methodKey, resultKey);
+            LogManager.warn(NEED_RECORD_TITLE,
+                    StringUtil.format("do not record method, cuz exist same method signature: %s", methodSignatureKey));
+        }
+    }
+
+    private String buildResultKey() {
         if (Objects.isNull(result)) {
-            return String.format("%s_%s_%s_no_result", clazzName, methodName, methodKey);
+            return "no_result";
         }
-        return String.format("%s_%s_%s_has_result_%s", clazzName, methodName, methodKey, getResultKey());
+        return "has_result_" + getResultKey();
+    }
+
+    /**
+     * hash of the class, method, the value args with their types and the result key
+     */
+    private long buildValueArgsKeyHash() {
+        CharSequence[] parts = new CharSequence[args.length * 2 + 4];
+        parts[0] = "value_args";
+        parts[1] = clazzName;
+        parts[2] = methodName;
+        int index = 3;
+        for (Object arg : args) {
+            if (arg == null) {
+                parts[index++] = null;
+                parts[index++] = null;
+            } else {
+                parts[index++] = arg.getClass().getName();
+                parts[index++] = arg instanceof Enum ? ((Enum<?>) arg).name() : String.valueOf(arg);
+            }
+        }
+        parts[index] = buildResultKey();
+        return StringUtil.hash64(parts);
     }
 
     private String getResultKey() {
@@ -363,25 +446,44 @@ public class DynamicClassExtractor {
     private void cacheMethodSignature() {
         ArexContext context = ContextManager.currentContext();
         if (context != null) {
-            context.getMethodSignatureHashList().add(this.methodSignatureKeyHash);
+            ConcurrentLongHashSet methodSignatureHashes = context.getMethodSignatureHashes();
+            methodSignatureHashes.add(this.methodSignatureKeyHash);
+            if (this.valueArgsKeyHash != 0) {
+                methodSignatureHashes.add(this.valueArgsKeyHash);
+            }
         }
     }
 
     public String getSerializedResult() {
         if (this.serializedResult == null && !this.isExceedMaxSize) {
-            if (!agentSizeOf.checkMemorySizeLimit(this.result, AgentSizeOf.getSizeLimit())) {
-                this.isExceedMaxSize = true;
-                LogManager.warn(ArexConstants.EXCEED_MAX_SIZE_TITLE, StringUtil.format("method:%s, exceed memory max limit:%s, " +
-                                "record result will be null, please check method return size, suggest replace it",
-                        this.dynamicSignature, AgentSizeOf.humanReadableUnits(AgentSizeOf.getSizeLimit())));
-                IgnoreUtils.addInvalidOperation(dynamicSignature);
-                return null;
-            }
-            this.serializedResult = serialize(this.result, ArexConstants.GSON_SERIALIZER);
+            this.serializedResult = serializeWithSizeLimit(this.result, ArexConstants.GSON_SERIALIZER);
         }
         return this.serializedResult;
     }
 
+    /**
+     * the size is checked while serializing, the serialization aborts as soon as the limit is exceeded
+     */
+    private String serializeWithSizeLimit(Object object, String serializer) {
+        if (IgnoreUtils.invalidOperation(dynamicSignature)) {
+            return null;
+        }
+        try {
+            return Serializer.serializeWithSizeLimit(object, serializer, AgentSizeOf.getSizeLimit());
+        } catch (SizeLimitExceededException ex) {
+            this.isExceedMaxSize = true;
+            LogManager.warn(ArexConstants.EXCEED_MAX_SIZE_TITLE, StringUtil.format("method:%s, exceed memory max limit:%s, " +
+                            "record result will be null, please check method return size, suggest replace it",
+                    this.dynamicSignature, AgentSizeOf.humanReadableUnits(AgentSizeOf.getSizeLimit())));
+            IgnoreUtils.addInvalidOperation(dynamicSignature);
+            return null;
+        } catch (Throwable ex) {
+            IgnoreUtils.addInvalidOperation(dynamicSignature);
+            LogManager.warn("serializeWithException", StringUtil.format("can not serialize object: %s, cause: %s", TypeUtil.errorSerializeToString(object), ex.toString()));
+            return null;
+        }
+    }
+
     private String serialize(Object object, String serializer) {
         if (IgnoreUtils.invalidOperation(dynamicSignature)) {
             return null;
@@ -395,11 +497,11 @@ public class DynamicClassExtractor {
         }
     }
 
-    private int buildNoArgMethodSignatureHash(boolean isNeedResult) {
+    private long buildNoArgMethodSignatureHash(boolean isNeedResult) {
         if (isNeedResult) {
-            return StringUtil.encodeAndHash(String.format("%s_%s_%s", this.clazzName, this.methodName, getSerializedResult()));
+            return StringUtil.hash64(this.clazzName, this.methodName, getSerializedResult());
         }
-        return StringUtil.encodeAndHash(String.format("%s_%s_%s", this.clazzName, this.methodName, null));
+        return StringUtil.hash64(this.clazzName, this.methodName, null);
     }
 
     /**
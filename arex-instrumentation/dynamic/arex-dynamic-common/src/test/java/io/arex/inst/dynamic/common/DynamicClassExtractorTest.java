@@ -11,9 +11,11 @@ import io.arex.inst.runtime.config.ConfigBuilder;
 import io.arex.inst.runtime.context.ArexContext;
 import io.arex.inst.runtime.context.ContextManager;
 import io.arex.agent.bootstrap.model.MockResult;
+import io.arex.agent.bootstrap.util.ConcurrentLongHashSet;
 import io.arex.agent.bootstrap.util.StringUtil;
 import io.arex.inst.runtime.model.DynamicClassEntity;
 import io.arex.inst.runtime.serializer.Serializer;
+import io.arex.inst.runtime.serializer.SizeLimitExceededException;
 import io.arex.inst.runtime.util.IgnoreUtils;
 import io.arex.inst.runtime.util.MockUtils;
 import java.lang.reflect.Field;
@@ -27,7 +29,6 @@ import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
-import io.arex.inst.runtime.util.sizeof.AgentSizeOf;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.Signature;
 import org.junit.jupiter.api.AfterAll;
@@ -52,31 +53,27 @@ import reactor.core.publisher.Mono;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.params.provider.Arguments.arguments;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mockStatic;
 
 @ExtendWith(MockitoExtension.class)
 class DynamicClassExtractorTest {
-    static AgentSizeOf agentSizeOf;
-
     @BeforeAll
     static void setUp() {
         Mockito.mockStatic(ContextManager.class);
         Mockito.mockStatic(Serializer.class);
         ConfigBuilder.create("test").enableDebug(true).build();
-        agentSizeOf = Mockito.mock(AgentSizeOf.class);
-        Mockito.mockStatic(AgentSizeOf.class);
-        Mockito.when(AgentSizeOf.newInstance(any())).thenReturn(agentSizeOf);
     }
 
     @AfterAll
     static void tearDown() {
-        agentSizeOf = null;
         Mockito.clearAllCaches();
     }
 
@@ -150,19 +147,20 @@ class DynamicClassExtractorTest {
         ArexContext context = Mockito.mock(ArexContext.class);
         Mockito.when(ContextManager.currentContext()).thenReturn(context);
         Runnable signatureContains = () -> {
-            Set<Integer> methodSignatureHashList = new HashSet<>();
-            methodSignatureHashList.add(StringUtil.encodeAndHash(
+            ConcurrentLongHashSet methodSignatureHashes = new ConcurrentLongHashSet();
+            methodSignatureHashes.add(StringUtil.hash64(
                     "io.arex.inst.dynamic.common.DynamicClassExtractorTest_testWithArexMock_mock Serializer.serialize_has_result_java.lang.String"
             ));
-            Mockito.when(context.getMethodSignatureHashList()).thenReturn(methodSignatureHashList);
+            Mockito.when(context.getMethodSignatureHashes()).thenReturn(methodSignatureHashes);
             try {
                 Mockito.when(Serializer.serializeWithException(any(), anyString())).thenReturn("mock Serializer.serialize");
+                Mockito.when(Serializer.serializeWithSizeLimit(any(), anyString(), anyLong())).thenReturn("mock Serializer.serialize");
             } catch (Throwable ignored) {
             }
         };
 
         Runnable resultIsNull = () -> {
-            Mockito.when(context.getMethodSignatureHashList()).thenReturn(new HashSet<>());
+            Mockito.when(context.getMethodSignatureHashes()).thenReturn(new ConcurrentLongHashSet());
         };
 
         Predicate<Object> isNull = Objects::isNull;
@@ -226,13 +224,13 @@ class DynamicClassExtractorTest {
 
     @Test
     void testSetFutureResponse() throws NoSuchMethodException {
-        Set<Integer> methodSignatureHashList = new HashSet<>();
-        methodSignatureHashList.add(StringUtil.encodeAndHash(
+        ConcurrentLongHashSet methodSignatureHashes = new ConcurrentLongHashSet();
+        methodSignatureHashes.add(StringUtil.hash64(
             "io.arex.inst.dynamic.common.DynamicClassExtractorTest_testReturnListenableFuture_mock_has_result_java.lang.String"
         ));
         ArexContext context = Mockito.mock(ArexContext.class);
         Mockito.when(ContextManager.currentContext()).thenReturn(context);
-        Mockito.when(context.getMethodSignatureHashList()).thenReturn(methodSignatureHashList);
+        Mockito.when(context.getMethodSignatureHashes()).thenReturn(methodSignatureHashes);
 
         Method testReturnListenableFuture = DynamicClassExtractorTest.class.getDeclaredMethod("testReturnListenableFuture", String.class, Throwable.class);
         DynamicClassExtractor extractor = new DynamicClassExtractor(testReturnListenableFuture, new Object[]{"mock", null}, "#val", null);
@@ -401,6 +399,10 @@ class DynamicClassExtractorTest {
         return val + "testWithArexMock";
     }
 
+    public String testValueArgs(String val) {
+        return val + "testValueArgs";
+    }
+
     public String testWithArexMock(List list) {
        return "testWithArexMock";
     }
@@ -441,11 +443,63 @@ class DynamicClassExtractorTest {
         assertEquals(MockResult.IGNORE_MOCK_RESULT, replay);
 
         // test getSerializedResult serialize
-        Mockito.when(agentSizeOf.checkMemorySizeLimit(any(), any(long.class))).thenReturn(true);
         extractor = new DynamicClassExtractor(testWithArexMock, args, null);
         assertNull(extractor.getSerializedResult());
     }
 
+    @Test
+    void skipValueArgsSerializationWhenDuplicate() throws Throwable {
+        Method testWithArexMock = DynamicClassExtractorTest.class.getDeclaredMethod("testValueArgs", String.class);
+        ConfigBuilder.create("value-args").enableDebug(true).build();
+        ArexContext context = Mockito.mock(ArexContext.class);
+        ConcurrentLongHashSet methodSignatureHashes = new ConcurrentLongHashSet();
+        Mockito.when(ContextManager.currentContext()).thenReturn(context);
+        Mockito.when(context.getMethodSignatureHashes()).thenReturn(methodSignatureHashes);
+
+        try (MockedStatic<MockUtils> mockService = mockStatic(MockUtils.class)) {
+            ArexMocker arexMocker = new ArexMocker();
+            arexMocker.setTargetRequest(new Target());
+            arexMocker.setTargetResponse(new Target());
+            mockService.when(() -> MockUtils.createDynamicClass(any(), any())).thenReturn(arexMocker);
+
+            DynamicClassExtractor extractor = new DynamicClassExtractor(testWithArexMock, new Object[]{"value"}, "#val", null);
+            // args of value types are not serialized before recording
+            final Field methodKey = DynamicClassExtractor.class.getDeclaredField("methodKey");
+            methodKey.setAccessible(true);
+            assertNull(methodKey.get(extractor));
+            extractor.recordResponse("result");
+            assertEquals("value", methodKey.get(extractor));
+            // the method signature and the value args
+            assertEquals(2, methodSignatureHashes.size());
+
+            DynamicClassExtractor duplicate = new DynamicClassExtractor(testWithArexMock, new Object[]{"value"}, "#val", null);
+            duplicate.recordResponse("result");
+            assertNull(methodKey.get(duplicate));
+            mockService.verify(() -> MockUtils.recordMocker(any()), Mockito.times(1));
+
+            // other args are serialized when constructed
+            final Field methodKeyBuilder = DynamicClassExtractor.class.getDeclaredField("methodKeyBuilder");
+            methodKeyBuilder.setAccessible(true);
+            assertNotNull(methodKeyBuilder.get(duplicate));
+            DynamicClassExtractor builderArgs = new DynamicClassExtractor(testWithArexMock, new Object[]{new StringBuilder("value")}, "#val", null);
+            assertNull(methodKeyBuilder.get(builderArgs));
+        }
+    }
+
+    @Test
+    void serializedResultExceedSize() throws Throwable {
+        Method testWithArexMock = DynamicClassExtractorTest.class.getDeclaredMethod("testWithArexMock", List.class);
+        ConfigBuilder.create("exceed-size").enableDebug(true).build();
+        Mockito.when(Serializer.serializeWithSizeLimit(any(), anyString(), anyLong()))
+            .thenThrow(new SizeLimitExceededException(1L)).thenReturn(null);
+        DynamicClassExtractor extractor = new DynamicClassExtractor(testWithArexMock, new Object[]{new ArrayList<>()}, null);
+        extractor.recordResponse("exceedSize");
+        assertNull(extractor.getSerializedResult());
+        final Field isExceedMaxSize = DynamicClassExtractor.class.getDeclaredField("isExceedMaxSize");
+        isExceedMaxSize.setAccessible(true);
+        assertTrue((boolean) isExceedMaxSize.get(extractor));
+    }
+
     @Test
     void emptyMethodKeyAndExceedSize() throws NoSuchMethodException {
         Method testEmptyArgs = DynamicClassExtractorTest.class.getDeclaredMethod("invalidOperation");
@@ -53,6 +53,10 @@ public class ThreadPoolInstrumentation extends TypeInstrumentation {
                 "java.util.concurrent.CompletableFuture$ThreadPerTaskExecutor",
                 "java.util.concurrent.Executors$DelegatedExecutorService",
                 "java.util.concurrent.Executors$FinalizableDelegatedExecutorService",
+                // jdk 21+: Executors.newThreadPerTaskExecutor, StructuredTaskScope.fork with any thread factory,
+                // the virtual threads are covered by VirtualThreadInstrumentation
+                "java.util.concurrent.ThreadPerTaskExecutor",
+                "java.util.concurrent.StructuredTaskScope",
                 "org.apache.tomcat.util.threads.ThreadPoolExecutor",
                 "org.eclipse.jetty.util.thread.QueuedThreadPool",
                 "org.eclipse.jetty.util.thread.ReservedThreadExecutor",
@@ -0,0 +1,43 @@
+package io.arex.inst.executors;
+
+import io.arex.agent.bootstrap.ctx.RunnableWrapper;
+import io.arex.inst.extension.MethodInstrumentation;
+import io.arex.inst.extension.TypeInstrumentation;
+import net.bytebuddy.asm.Advice;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.matcher.ElementMatcher;
+
+import java.util.List;
+
+import static java.util.Collections.singletonList;
+import static net.bytebuddy.matcher.ElementMatchers.isConstructor;
+import static net.bytebuddy.matcher.ElementMatchers.named;
+import static net.bytebuddy.matcher.ElementMatchers.takesArgument;
+import static net.bytebuddy.matcher.ElementMatchers.takesArguments;
+
+/**
+ * jdk 21+: every virtual thread is created by VirtualThread(Executor, String, int, Runnable),
+ * covers Thread.startVirtualThread, Thread.ofVirtual().start/unstarted/factory and the executors using them.
+ * The task is wrapped when the thread is created, no holder is kept per thread.
+ */
+public class VirtualThreadInstrumentation extends TypeInstrumentation {
+    @Override
+    public ElementMatcher<TypeDescription> typeMatcher() {
+        return named("java.lang.VirtualThread");
+    }
+
+    @Override
+    public List<MethodInstrumentation> methodAdvices() {
+        return singletonList(new MethodInstrumentation(
+                isConstructor().and(takesArguments(4)).and(takesArgument(3, Runnable.class)),
+                this.getClass().getName() + "$ConstructorAdvice"));
+    }
+
+    @SuppressWarnings("unused")
+    public static class ConstructorAdvice {
+        @Advice.OnMethodEnter(suppress = Throwable.class)
+        public static void onEnter(@Advice.Argument(value = 3, readOnly = false) Runnable task) {
+            task = RunnableWrapper.get(task);
+        }
+    }
+}
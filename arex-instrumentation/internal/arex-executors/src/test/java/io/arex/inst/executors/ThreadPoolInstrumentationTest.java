@@ -2,6 +2,7 @@ package io.arex.inst.executors;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import io.arex.inst.executors.ThreadPoolInstrumentation.ExecutorCallableAdvice;
@@ -28,6 +29,14 @@ class ThreadPoolInstrumentationTest {
     @Test
     void typeMatcher() {
         assertTrue(inst.typeMatcher().matches(TypeDescription.ForLoadedType.of(ThreadPoolExecutor.class)));
+        // loom executors are matched by name, not loaded before jdk 21
+        assertTrue(inst.typeMatcher().matches(latent("java.util.concurrent.ThreadPerTaskExecutor")));
+        assertTrue(inst.typeMatcher().matches(latent("java.util.concurrent.StructuredTaskScope")));
+        assertFalse(inst.typeMatcher().matches(latent("java.util.concurrent.StructuredTaskScope$ShutdownOnFailure")));
+    }
+
+    private static TypeDescription latent(String name) {
+        return new TypeDescription.Latent(name, 0, null);
     }
 
     @Test
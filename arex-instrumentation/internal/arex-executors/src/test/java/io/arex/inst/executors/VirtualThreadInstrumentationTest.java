@@ -0,0 +1,28 @@
+package io.arex.inst.executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import net.bytebuddy.description.type.TypeDescription;
+import org.junit.jupiter.api.Test;
+
+class VirtualThreadInstrumentationTest {
+    VirtualThreadInstrumentation inst = new VirtualThreadInstrumentation();
+
+    @Test
+    void typeMatcher() {
+        // loaded since jdk 21
+        assertTrue(inst.typeMatcher().matches(new TypeDescription.Latent("java.lang.VirtualThread", 0, null)));
+        assertFalse(inst.typeMatcher().matches(TypeDescription.ForLoadedType.of(Thread.class)));
+    }
+
+    @Test
+    void methodAdvices() {
+        assertEquals(1, inst.methodAdvices().size());
+    }
+
+    @Test
+    void ConstructorAdvice_onEnter() {
+        Runnable runnable = () -> {};
+        assertDoesNotThrow(() -> VirtualThreadInstrumentation.ConstructorAdvice.onEnter(runnable));
+    }
+}